@@ -0,0 +1,74 @@
+package com.sheemab.socialmedia.Feed.System.benchmark;
+
+import com.sheemab.socialmedia.Feed.System.dto.PostResponseDto;
+import com.sheemab.socialmedia.Feed.System.entity.Comments;
+import com.sheemab.socialmedia.Feed.System.entity.Likes;
+import com.sheemab.socialmedia.Feed.System.entity.Post;
+import com.sheemab.socialmedia.Feed.System.service.Impl.FeedAssembler;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * In-memory part of FeedService: hybrid merge of two candidate lists, and building the
+ * PostResponseDtos of a page from fetched likes/comments/usernames. No Mongo or Redis needed.
+ *
+ * likesPerPost/commentsPerPost = 3 is the default SUMMARY view, larger values are FULL views.
+ *
+ * ./gradlew jmh -PjmhIncludes=FeedAssemblyBenchmark
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+public class FeedAssemblyBenchmark {
+
+    @Param({"20", "100"})
+    public int pageSize;
+
+    @Param({"3", "100", "1000"})
+    public int likesPerPost;
+
+    @Param({"3", "50"})
+    public int commentsPerPost;
+
+    private List<Post> page;
+    private List<Post> pushed;
+    private List<Post> pulled;
+    private Map<String, Collection<Likes>> likesByPost;
+    private Map<String, Collection<Comments>> commentsByPost;
+    private Map<String, String> usernames;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        FeedFixtures fixtures = new FeedFixtures(42, 5_000);
+        page = fixtures.posts(pageSize, likesPerPost, commentsPerPost);
+        likesByPost = fixtures.likesByPost(page, likesPerPost);
+        commentsByPost = fixtures.commentsByPost(page, commentsPerPost);
+        usernames = fixtures.usernames();
+
+        // hybrid merge input: two newest-first lists of page+1 posts with some overlap
+        pushed = fixtures.posts(pageSize + 1, 0, 0);
+        pulled = new ArrayList<>(fixtures.posts(pageSize + 1, 0, 0));
+        pulled.set(0, pushed.get(0));
+    }
+
+    @Benchmark
+    public List<Post> merge() {
+        return FeedAssembler.merge(pushed, pulled, pageSize + 1);
+    }
+
+    @Benchmark
+    public Set<String> collectUserIds() {
+        return FeedAssembler.userIds(likesByPost, commentsByPost);
+    }
+
+    @Benchmark
+    public List<PostResponseDto> assemble() {
+        return FeedAssembler.assemble(page, likesByPost, commentsByPost, usernames);
+    }
+}
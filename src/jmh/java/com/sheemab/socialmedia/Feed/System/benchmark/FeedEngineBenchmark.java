@@ -0,0 +1,105 @@
+package com.sheemab.socialmedia.Feed.System.benchmark;
+
+import com.mongodb.reactivestreams.client.MongoClient;
+import com.mongodb.reactivestreams.client.MongoClients;
+import com.sheemab.socialmedia.Feed.System.config.FeedProperties;
+import com.sheemab.socialmedia.Feed.System.entity.Post;
+import com.sheemab.socialmedia.Feed.System.repository.PostRepository;
+import com.sheemab.socialmedia.Feed.System.service.Impl.KWayMergeFeedEngine;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.ReactiveMongoTemplate;
+import org.springframework.data.mongodb.core.index.Index;
+import org.springframework.data.mongodb.repository.support.ReactiveMongoRepositoryFactory;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * First page of a pull feed: the single $in + sort query vs. the k-way merge engine,
+ * for users following more and more authors.
+ *
+ * Needs a local MongoDB (override with -Dbench.mongo.uri=...). Data goes to a separate
+ * "FeedSystemBenchmark" database that is dropped and re-seeded for every followCount.
+ *
+ * ./gradlew jmh -PjmhIncludes=FeedEngineBenchmark
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class FeedEngineBenchmark {
+
+    private static final String DATABASE = "FeedSystemBenchmark";
+    private static final int POSTS_PER_AUTHOR = 30;
+
+    @Param({"10", "100", "1000", "5000"})
+    public int followCount;
+
+    @Param({"20"})
+    public int pageSize;
+
+    private MongoClient client;
+    private PostRepository postRepository;
+    private KWayMergeFeedEngine engine;
+    private Set<String> authorIds;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        client = MongoClients.create(System.getProperty("bench.mongo.uri", "mongodb://localhost:27017"));
+        ReactiveMongoTemplate template = new ReactiveMongoTemplate(client, DATABASE);
+
+        template.dropCollection(Post.class).block();
+        template.indexOps(Post.class)
+                .ensureIndex(new Index()
+                        .on("userId", Sort.Direction.ASC)
+                        .on("createdAt", Sort.Direction.DESC)
+                        .on("_id", Sort.Direction.DESC))
+                .block();
+
+        // Same data for every run: fixed seed, posts spread over the last 30 days
+        Random random = new Random(42);
+        LocalDateTime now = LocalDateTime.of(2025, 1, 1, 0, 0);
+        authorIds = new HashSet<>();
+        List<Post> posts = new ArrayList<>();
+        for (int author = 0; author < followCount; author++) {
+            String authorId = "author-" + author;
+            authorIds.add(authorId);
+            for (int i = 0; i < POSTS_PER_AUTHOR; i++) {
+                posts.add(Post.builder()
+                        .userId(authorId)
+                        .content("post " + i + " by " + authorId)
+                        .createdAt(now.minusSeconds(random.nextInt(30 * 24 * 3600)))
+                        .build());
+            }
+        }
+        template.insertAll(posts).then().block();
+
+        postRepository = new ReactiveMongoRepositoryFactory(template).getRepository(PostRepository.class);
+        engine = new KWayMergeFeedEngine(postRepository, new FeedProperties());
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        client.close();
+    }
+
+    @Benchmark
+    public List<Post> inQuery() {
+        return postRepository.findByUserIdInOrderByCreatedAtDescIdDesc(authorIds, PageRequest.of(0, pageSize + 1))
+                .collectList()
+                .block();
+    }
+
+    @Benchmark
+    public List<Post> kWayMerge() {
+        return engine.merge(authorIds, null, pageSize + 1)
+                .collectList()
+                .block();
+    }
+}
@@ -0,0 +1,133 @@
+package com.sheemab.socialmedia.Feed.System.benchmark;
+
+import com.sheemab.socialmedia.Feed.System.entity.Comments;
+import com.sheemab.socialmedia.Feed.System.entity.Likes;
+import com.sheemab.socialmedia.Feed.System.entity.Post;
+import com.sheemab.socialmedia.Feed.System.entity.User;
+import org.bson.types.ObjectId;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+/**
+ * Deterministic in-memory data for the Mongo/Redis-free benchmarks.
+ * Same seed -> same fixtures on every machine and every commit, so results can be compared.
+ */
+final class FeedFixtures {
+
+    static final LocalDateTime NOW = LocalDateTime.of(2025, 1, 1, 12, 0);
+
+    private final Random random;
+    private final List<String> userIds = new ArrayList<>();
+
+    FeedFixtures(long seed, int userCount) {
+        this.random = new Random(seed);
+        for (int i = 0; i < userCount; i++) {
+            userIds.add(String.format("%024x", i)); // ObjectId-shaped, stable across runs
+        }
+    }
+
+    /**
+     * Posts newest first, spread over the last day, with ~280 characters of content.
+     */
+    List<Post> posts(int count, int likeCount, int commentCount) {
+        List<Post> posts = new ArrayList<>(count);
+        LocalDateTime createdAt = NOW;
+        for (int i = 0; i < count; i++) {
+            createdAt = createdAt.minusSeconds(1 + random.nextInt(3600));
+            posts.add(Post.builder()
+                    .id(nextId())
+                    .userId(randomUserId())
+                    .content(text(280))
+                    .createdAt(createdAt)
+                    .likeCount(likeCount)
+                    .commentCount(commentCount)
+                    .build());
+        }
+        return posts;
+    }
+
+    Map<String, Collection<Likes>> likesByPost(List<Post> posts, int perPost) {
+        Map<String, Collection<Likes>> likesByPost = new HashMap<>();
+        for (Post post : posts) {
+            List<Likes> likes = new ArrayList<>(perPost);
+            for (int i = 0; i < perPost; i++) {
+                likes.add(Likes.builder()
+                        .likeId(nextId())
+                        .postId(post.getId())
+                        .userId(randomUserId())
+                        .likedAt(post.getCreatedAt().plusSeconds(random.nextInt(3600)))
+                        .build());
+            }
+            likesByPost.put(post.getId(), likes);
+        }
+        return likesByPost;
+    }
+
+    Map<String, Collection<Comments>> commentsByPost(List<Post> posts, int perPost) {
+        Map<String, Collection<Comments>> commentsByPost = new HashMap<>();
+        for (Post post : posts) {
+            List<Comments> comments = new ArrayList<>(perPost);
+            for (int i = 0; i < perPost; i++) {
+                comments.add(Comments.builder()
+                        .commentId(nextId())
+                        .postId(post.getId())
+                        .userId(randomUserId())
+                        .text(text(80))
+                        .commentedAt(post.getCreatedAt().plusSeconds(random.nextInt(3600)))
+                        .build());
+            }
+            commentsByPost.put(post.getId(), comments);
+        }
+        return commentsByPost;
+    }
+
+    /**
+     * All 12 ObjectId bytes from the seeded Random, so ids (and the hash order of the maps keyed by them)
+     * are the same on every run.
+     */
+    private String nextId() {
+        byte[] bytes = new byte[12];
+        random.nextBytes(bytes);
+        return new ObjectId(bytes).toHexString();
+    }
+
+    Map<String, String> usernames() {
+        Map<String, String> usernames = new HashMap<>();
+        for (int i = 0; i < userIds.size(); i++) {
+            usernames.put(userIds.get(i), "user_" + i);
+        }
+        return usernames;
+    }
+
+    List<User> users(int count) {
+        List<User> users = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            users.add(User.builder()
+                    .id(userIds.get(i % userIds.size()))
+                    .username("user_" + i)
+                    .email("user_" + i + "@example.com")
+                    .followersCount(random.nextInt(10_000))
+                    .followingCount(random.nextInt(1_000))
+                    .build());
+        }
+        return users;
+    }
+
+    private String randomUserId() {
+        return userIds.get(random.nextInt(userIds.size()));
+    }
+
+    private String text(int length) {
+        StringBuilder text = new StringBuilder(length);
+        for (int i = 0; i < length; i++) {
+            text.append(i % 6 == 5 ? ' ' : (char) ('a' + random.nextInt(26)));
+        }
+        return text.toString();
+    }
+}
@@ -0,0 +1,52 @@
+package com.sheemab.socialmedia.Feed.System.benchmark;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.sheemab.socialmedia.Feed.System.dto.PostResponseDto;
+import com.sheemab.socialmedia.Feed.System.entity.Post;
+import com.sheemab.socialmedia.Feed.System.service.Impl.FeedAssembler;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * JSON serialization of one feed page, with an ObjectMapper configured like Spring Boot's default
+ * (java.time support, ISO dates). The size of one serialized page is printed once per trial.
+ *
+ * ./gradlew jmh -PjmhIncludes=FeedSerializationBenchmark
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+public class FeedSerializationBenchmark {
+
+    @Param({"20", "100"})
+    public int pageSize;
+
+    @Param({"3", "1000"})
+    public int likesPerPost;
+
+    private ObjectMapper objectMapper;
+    private List<PostResponseDto> feedPage;
+
+    @Setup(Level.Trial)
+    public void setUp() throws JsonProcessingException {
+        FeedFixtures fixtures = new FeedFixtures(42, 5_000);
+        List<Post> posts = fixtures.posts(pageSize, likesPerPost, 3);
+        feedPage = FeedAssembler.assemble(posts,
+                fixtures.likesByPost(posts, likesPerPost),
+                fixtures.commentsByPost(posts, 3),
+                fixtures.usernames());
+
+        objectMapper = Jackson2ObjectMapperBuilder.json().build();
+        System.out.printf("%n[pageSize=%d, likesPerPost=%d] %d bytes per page%n",
+                pageSize, likesPerPost, objectMapper.writeValueAsBytes(feedPage).length);
+    }
+
+    @Benchmark
+    public byte[] serializeFeedPage() throws JsonProcessingException {
+        return objectMapper.writeValueAsBytes(feedPage);
+    }
+}
@@ -0,0 +1,116 @@
+package com.sheemab.socialmedia.Feed.System.benchmark;
+
+import com.mongodb.reactivestreams.client.MongoClient;
+import com.mongodb.reactivestreams.client.MongoClients;
+import com.sheemab.socialmedia.Feed.System.config.FeedProperties;
+import com.sheemab.socialmedia.Feed.System.entity.Likes;
+import com.sheemab.socialmedia.Feed.System.entity.Post;
+import com.sheemab.socialmedia.Feed.System.repository.LikeRepository;
+import com.sheemab.socialmedia.Feed.System.repository.PostRepository;
+import com.sheemab.socialmedia.Feed.System.service.Impl.FeedVersionService;
+import com.sheemab.socialmedia.Feed.System.service.Impl.HotPostService;
+import com.sheemab.socialmedia.Feed.System.service.Impl.LikeWriteBehind;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.ReactiveMongoTemplate;
+import org.springframework.data.mongodb.core.index.Index;
+import org.springframework.data.mongodb.repository.support.ReactiveMongoRepositoryFactory;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Likes per second on one viral post: one insert + $inc per click (LikeService without write-behind)
+ * vs. the write-behind pipeline flushing burstSize clicks with bulk writes.
+ * Every click comes from a new user, so each one really adds a like; all clicks of a burst are in flight at once.
+ *
+ * Needs a local MongoDB (override with -Dbench.mongo.uri=...), data goes to the "FeedSystemBenchmark" database.
+ *
+ * ./gradlew jmh -PjmhIncludes=LikeWriteBenchmark
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+public class LikeWriteBenchmark {
+
+    private static final String DATABASE = "FeedSystemBenchmark";
+    private static final int BURST_SIZE = 500;
+
+    @Param({"ACKNOWLEDGED", "MAJORITY"})
+    public String writeConcern;
+
+    private MongoClient client;
+    private LikeRepository likeRepository;
+    private PostRepository postRepository;
+    private LikeWriteBehind writeBehind;
+    private String postId;
+    private final AtomicLong users = new AtomicLong();
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        client = MongoClients.create(System.getProperty("bench.mongo.uri", "mongodb://localhost:27017"));
+        ReactiveMongoTemplate template = new ReactiveMongoTemplate(client, DATABASE);
+
+        template.dropCollection(Likes.class).block();
+        template.dropCollection(Post.class).block();
+        template.indexOps(Likes.class)
+                .ensureIndex(new Index().on("postId", Sort.Direction.ASC).on("userId", Sort.Direction.ASC).unique())
+                .block();
+        postId = template.insert(Post.builder().userId("author").content("viral").createdAt(LocalDateTime.now()).build())
+                .block()
+                .getId();
+
+        ReactiveMongoRepositoryFactory factory = new ReactiveMongoRepositoryFactory(template);
+        likeRepository = factory.getRepository(LikeRepository.class);
+        postRepository = factory.getRepository(PostRepository.class);
+
+        // a full burst is flushed as soon as it is buffered; the window never expires during a run
+        FeedProperties properties = new FeedProperties();
+        properties.getLikeWrites().setEnabled(true);
+        properties.getLikeWrites().setMaxBatchSize(BURST_SIZE);
+        properties.getLikeWrites().setWindow(Duration.ofSeconds(10));
+        properties.getLikeWrites().setAcknowledge(FeedProperties.Acknowledge.FLUSHED);
+        properties.getLikeWrites().setWriteConcern(writeConcern);
+        // feed versions and hot posts off: only the like writes are measured
+        properties.getVersions().setEnabled(false);
+        properties.getHotPosts().setEnabled(false);
+        writeBehind = new LikeWriteBehind(template, properties, new FeedVersionService(null, null, properties),
+                new HotPostService(null, null, properties));
+        writeBehind.start();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws Exception {
+        writeBehind.stop();
+        client.close();
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(BURST_SIZE)
+    public void perClick() {
+        Flux.range(0, BURST_SIZE)
+                .flatMap(i -> likeRepository.insert(new Likes(null, postId, nextUser(), LocalDateTime.now()))
+                        .flatMap(saved -> postRepository.incrementLikeCount(postId, 1))
+                        .onErrorResume(DuplicateKeyException.class, e -> Mono.empty()), BURST_SIZE)
+                .then()
+                .block();
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(BURST_SIZE)
+    public void writeBehind() {
+        Flux.range(0, BURST_SIZE)
+                .flatMap(i -> writeBehind.like(postId, nextUser()), BURST_SIZE)
+                .then()
+                .block();
+    }
+
+    private String nextUser() {
+        return "user-" + users.incrementAndGet();
+    }
+}
@@ -0,0 +1,78 @@
+package com.sheemab.socialmedia.Feed.System.benchmark;
+
+import com.sheemab.socialmedia.Feed.System.dto.PostResponseDto;
+import com.sheemab.socialmedia.Feed.System.dto.UserResponseDto;
+import com.sheemab.socialmedia.Feed.System.entity.Post;
+import com.sheemab.socialmedia.Feed.System.entity.User;
+import com.sheemab.socialmedia.Feed.System.mapper.PostMapper;
+import com.sheemab.socialmedia.Feed.System.mapper.UserMapper;
+import org.modelmapper.ModelMapper;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Entity -> DTO mapping per endpoint: the hand-written mappers vs. the ModelMapper they replaced.
+ * Post -> PostResponseDto is what getAllPosts / getPostById / createPost do per post,
+ * User -> UserResponseDto is what getFollowing / getFollowers / createUser do per user.
+ *
+ * ./gradlew jmh -PjmhIncludes=MappingBenchmark
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+public class MappingBenchmark {
+
+    @Param({"1", "100"})
+    public int batchSize;
+
+    private ModelMapper modelMapper;
+    private PostMapper postMapper;
+    private UserMapper userMapper;
+    private List<Post> posts;
+    private List<User> users;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        FeedFixtures fixtures = new FeedFixtures(42, 1_000);
+        modelMapper = new ModelMapper();
+        postMapper = new PostMapper();
+        userMapper = new UserMapper();
+        posts = fixtures.posts(batchSize, 10, 2);
+        users = fixtures.users(batchSize);
+
+        // ModelMapper builds its type maps lazily; do that outside the measurement
+        modelMapper.map(posts.get(0), PostResponseDto.class);
+        modelMapper.map(users.get(0), UserResponseDto.class);
+    }
+
+    @Benchmark
+    public void getAllPostsModelMapper(Blackhole blackhole) {
+        for (Post post : posts) {
+            blackhole.consume(modelMapper.map(post, PostResponseDto.class));
+        }
+    }
+
+    @Benchmark
+    public void getAllPostsPostMapper(Blackhole blackhole) {
+        for (Post post : posts) {
+            blackhole.consume(postMapper.toPostResponseDto(post));
+        }
+    }
+
+    @Benchmark
+    public void getFollowingModelMapper(Blackhole blackhole) {
+        for (User user : users) {
+            blackhole.consume(modelMapper.map(user, UserResponseDto.class));
+        }
+    }
+
+    @Benchmark
+    public void getFollowingUserMapper(Blackhole blackhole) {
+        for (User user : users) {
+            blackhole.consume(userMapper.toUserResponseDto(user));
+        }
+    }
+}
@@ -0,0 +1,83 @@
+package com.sheemab.socialmedia.Feed.System.benchmark;
+
+import com.sheemab.socialmedia.Feed.System.config.FeedProperties;
+import com.sheemab.socialmedia.Feed.System.dto.FeedCursor;
+import com.sheemab.socialmedia.Feed.System.entity.Post;
+import com.sheemab.socialmedia.Feed.System.service.FeedScorer;
+import com.sheemab.socialmedia.Feed.System.service.Impl.EngagementRecencyScorer;
+import com.sheemab.socialmedia.Feed.System.service.Impl.TopK;
+import com.sheemab.socialmedia.Feed.System.service.RankingContext;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+/**
+ * In-memory part of a RANKED feed read: scoring the candidate window and keeping the best page,
+ * with the bounded heap (TopK) vs. scoring + sorting every candidate. No Mongo or Redis needed.
+ *
+ * ./gradlew jmh -PjmhIncludes=RankingBenchmark
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+public class RankingBenchmark {
+
+    @Param({"100", "300", "1000"})
+    public int candidates;
+
+    @Param({"20"})
+    public int pageSize;
+
+    private List<Post> posts;
+    private FeedScorer scorer;
+    private RankingContext context;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        FeedFixtures fixtures = new FeedFixtures(42, 1_000);
+        posts = fixtures.posts(candidates, 0, 0);
+
+        // skewed engagement: most posts get a handful of likes, a few get thousands
+        Random random = new Random(7);
+        for (Post post : posts) {
+            post.setLikeCount((int) Math.pow(random.nextInt(100), 2));
+            post.setCommentCount(random.nextInt(50));
+        }
+
+        // a tenth of the authors follow the viewer back
+        Set<String> closeAuthorIds = posts.stream()
+                .map(Post::getUserId)
+                .filter(userId -> userId.hashCode() % 10 == 0)
+                .collect(Collectors.toSet());
+
+        scorer = new EngagementRecencyScorer(new FeedProperties());
+        context = new RankingContext("viewer", FeedFixtures.NOW, closeAuthorIds);
+    }
+
+    @Benchmark
+    public List<Post> topK() {
+        return TopK.select(posts, pageSize, post -> scorer.score(post, context), FeedCursor.NEWEST_FIRST);
+    }
+
+    private record Scored(Post post, double score) {
+    }
+
+    /**
+     * Baseline: score every candidate once, sort them all, keep the first page.
+     */
+    @Benchmark
+    public List<Post> sortAll() {
+        return posts.stream()
+                .map(post -> new Scored(post, scorer.score(post, context)))
+                .sorted(Comparator.comparingDouble(Scored::score).reversed()
+                        .thenComparing(Scored::post, FeedCursor.NEWEST_FIRST))
+                .limit(pageSize)
+                .map(Scored::post)
+                .toList();
+    }
+}
@@ -0,0 +1,332 @@
+package com.sheemab.socialmedia.Feed.System.loadtest;
+
+import com.mongodb.reactivestreams.client.MongoClient;
+import com.mongodb.reactivestreams.client.MongoClients;
+import com.sheemab.socialmedia.Feed.System.entity.Comments;
+import com.sheemab.socialmedia.Feed.System.entity.Follow;
+import com.sheemab.socialmedia.Feed.System.entity.Likes;
+import com.sheemab.socialmedia.Feed.System.entity.Post;
+import com.sheemab.socialmedia.Feed.System.entity.User;
+import org.bson.types.ObjectId;
+import org.springframework.data.mongodb.core.ReactiveMongoTemplate;
+import org.springframework.data.mongodb.core.index.IndexResolver;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.nio.ByteBuffer;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Seeds MongoDB with a synthetic social graph for load tests:
+ * <ul>
+ *   <li>follows: every user follows a Lomax-distributed number of accounts, picked by Zipf popularity,
+ *       so follower counts follow a power law (a few celebrities, a long tail)</li>
+ *   <li>posts: Lomax-distributed per user, spread over the last seed.span (30d)</li>
+ *   <li>likes / comments: Lomax-distributed per post, scaled by the author's follower count</li>
+ * </ul>
+ * Denormalized counters (followersCount, followingCount, likeCount, commentCount) match the generated documents.
+ * Same seed -> same graph and same counts; timestamps are relative to the run so the data looks recent.
+ *
+ * Everything is written with insertMany batches (seed.batch-size documents, seed.writers batches in flight),
+ * and the entity indexes are built once after the load instead of being maintained on every insert.
+ *
+ * Writes to the application database by default and refuses to touch non-empty collections
+ * unless seed.drop=true. Flush Redis (timelines, feed versions, caches) after a re-seed.
+ *
+ * ./gradlew seedGraph -Pseed.users=100000 -Pseed.drop=true
+ */
+public final class GraphSeeder {
+
+    private static final List<Class<?>> ENTITIES =
+            List.of(User.class, Follow.class, Post.class, Likes.class, Comments.class);
+
+    private final ReactiveMongoTemplate template;
+    private final Random random;
+    private final int users;
+    private final double zipfExponent;
+    private final double tailExponent;
+    private final double avgFollowing;
+    private final int maxFollowing;
+    private final double postsPerUser;
+    private final double likesPerPost;
+    private final double commentsPerPost;
+    private final int contentLength;
+    private final int batchSize;
+    private final int writers;
+    private final LocalDateTime now = LocalDateTime.now();
+    private final long spanSeconds;
+
+    private final String[] userIds;
+    private final int[] rankToUser;     // Zipf rank -> user index, shuffled so popularity is not ordered by id
+    private final int[] followersCount;
+    private final int[] followingCount;
+    private int sequence;                // ObjectId counter, generation is single-threaded
+
+    private final AtomicLong follows = new AtomicLong();
+    private final AtomicLong posts = new AtomicLong();
+    private final AtomicLong likes = new AtomicLong();
+    private final AtomicLong comments = new AtomicLong();
+
+    GraphSeeder(ReactiveMongoTemplate template, Settings settings) {
+        this.template = template;
+        this.random = new Random(settings.integer("seed", 42));
+        this.users = settings.integer("users", 10_000);
+        this.zipfExponent = settings.decimal("zipf-exponent", 1.0);
+        this.tailExponent = settings.decimal("tail-exponent", 2.0);
+        this.avgFollowing = settings.decimal("avg-following", 50);
+        this.maxFollowing = Math.min(settings.integer("max-following", 5_000), users / 2);
+        this.postsPerUser = settings.decimal("posts-per-user", 10);
+        this.likesPerPost = settings.decimal("likes-per-post", 5);
+        this.commentsPerPost = settings.decimal("comments-per-post", 2);
+        this.contentLength = settings.integer("content-length", 140);
+        this.batchSize = settings.integer("batch-size", 1_000);
+        this.writers = settings.integer("writers", 4);
+        this.spanSeconds = settings.duration("span", Duration.ofDays(30)).toSeconds();
+
+        this.userIds = new String[users];
+        this.rankToUser = new int[users];
+        this.followersCount = new int[users];
+        this.followingCount = new int[users];
+        LocalDateTime joined = now.minusSeconds(spanSeconds);
+        for (int i = 0; i < users; i++) {
+            userIds[i] = nextId(joined);
+            rankToUser[i] = i;
+        }
+        shuffle(rankToUser);
+    }
+
+    public static void main(String[] args) {
+        Settings settings = new Settings("seed.");
+        try (MongoClient client = MongoClients.create(settings.string("mongo-uri", "mongodb://localhost:27017"))) {
+            ReactiveMongoTemplate template = new ReactiveMongoTemplate(client, settings.string("database", "FeedSystem"));
+            new GraphSeeder(template, settings).run(settings.flag("drop", false));
+        }
+    }
+
+    void run(boolean drop) {
+        long start = System.nanoTime();
+
+        // 1. Start from empty collections (dropping them only when asked to)
+        if (drop) {
+            Flux.fromIterable(ENTITIES).concatMap(template::dropCollection).blockLast();
+        } else {
+            Long existing = Flux.fromIterable(ENTITIES).concatMap(template::estimatedCount).reduce(0L, Long::sum).block();
+            if (existing != null && existing > 0) {
+                throw new IllegalStateException("Target database already holds " + existing
+                        + " documents; rerun with -Pseed.drop=true to replace them");
+            }
+        }
+
+        // 2. Follow edges first: they decide the follower counts stored on users and the engagement of posts
+        PowerLaw.Zipf popularity = new PowerLaw.Zipf(users, zipfExponent);
+        Flux.range(0, users)
+                .concatMapIterable(follower -> followsOf(follower, popularity))
+                .buffer(batchSize)
+                .flatMap(batch -> template.insert(batch, Follow.class).count().doOnNext(follows::addAndGet), writers)
+                .blockLast();
+
+        // 3. Users, with the counters of the edges above
+        Flux.range(0, users)
+                .map(this::user)
+                .buffer(batchSize)
+                .flatMap(batch -> template.insert(batch, User.class).then(), writers)
+                .blockLast();
+
+        // 4. Posts with their likes and comments, one batch of posts at a time
+        double avgFollowers = Math.max(1, (double) follows.get() / users);
+        Flux.range(0, users)
+                .concatMapIterable(author -> postsOf(author, avgFollowers))
+                .buffer(batchSize)
+                .flatMap(this::insertPosts, writers)
+                .blockLast();
+
+        // 5. Build the indexes declared on the entities, once, now that the data is in
+        IndexResolver resolver = IndexResolver.create(template.getConverter().getMappingContext());
+        Flux.fromIterable(ENTITIES)
+                .concatMap(type -> Flux.fromIterable(resolver.resolveIndexFor(type))
+                        .concatMap(index -> template.indexOps(type).ensureIndex(index)))
+                .blockLast();
+
+        report(Duration.ofNanos(System.nanoTime() - start));
+    }
+
+    /**
+     * Lomax-distributed out-degree (at least 1); followees drawn by Zipf popularity, no self-follows or duplicates.
+     */
+    private List<Follow> followsOf(int follower, PowerLaw.Zipf popularity) {
+        int degree = Math.max(1, PowerLaw.lomax(random, avgFollowing, tailExponent, maxFollowing));
+        Set<Integer> followees = new HashSet<>();
+        // the Zipf head is sampled over and over; give up on a few edges rather than spin on a huge degree
+        for (int attempt = 0; followees.size() < degree && attempt < degree * 20; attempt++) {
+            int followee = rankToUser[popularity.sample(random)];
+            if (followee != follower) {
+                followees.add(followee);
+            }
+        }
+
+        List<Follow> edges = new ArrayList<>(followees.size());
+        for (int followee : followees) {
+            LocalDateTime followedAt = randomTime(now.minusSeconds(spanSeconds));
+            edges.add(Follow.builder()
+                    .id(nextId(followedAt))
+                    .followerId(userIds[follower])
+                    .followeeId(userIds[followee])
+                    .followedAt(followedAt)
+                    .build());
+            followersCount[followee]++;
+        }
+        followingCount[follower] = edges.size();
+        return edges;
+    }
+
+    private User user(int index) {
+        return User.builder()
+                .id(userIds[index])
+                .username("user_" + index)
+                .email("user_" + index + "@example.com")
+                .followersCount(followersCount[index])
+                .followingCount(followingCount[index])
+                .build();
+    }
+
+    /**
+     * One post with its likes and comments.
+     */
+    private record PostBundle(Post post, List<Likes> likes, List<Comments> comments) {
+    }
+
+    private List<PostBundle> postsOf(int author, double avgFollowers) {
+        int postCount = PowerLaw.lomax(random, postsPerUser, tailExponent, 10_000);
+        // popular authors get proportionally more engagement; the overall average stays close to the setting
+        double reach = (followersCount[author] + 1) / (avgFollowers + 1);
+
+        List<PostBundle> bundles = new ArrayList<>(postCount);
+        for (int i = 0; i < postCount; i++) {
+            LocalDateTime createdAt = randomTime(now.minusSeconds(spanSeconds));
+            String postId = nextId(createdAt);
+
+            // one like per (post, user): distinct likers, uniformly drawn
+            int likeCount = PowerLaw.lomax(random, likesPerPost * reach, tailExponent, users / 2);
+            Set<Integer> likers = new HashSet<>();
+            while (likers.size() < likeCount) {
+                likers.add(random.nextInt(users));
+            }
+            List<Likes> postLikes = new ArrayList<>(likeCount);
+            for (int liker : likers) {
+                LocalDateTime likedAt = randomTime(createdAt);
+                postLikes.add(Likes.builder()
+                        .likeId(nextId(likedAt))
+                        .postId(postId)
+                        .userId(userIds[liker])
+                        .likedAt(likedAt)
+                        .build());
+            }
+
+            int commentCount = PowerLaw.lomax(random, commentsPerPost * reach, tailExponent, 10_000);
+            List<Comments> postComments = new ArrayList<>(commentCount);
+            for (int c = 0; c < commentCount; c++) {
+                LocalDateTime commentedAt = randomTime(createdAt);
+                postComments.add(Comments.builder()
+                        .commentId(nextId(commentedAt))
+                        .postId(postId)
+                        .userId(userIds[random.nextInt(users)])
+                        .text(text(Math.max(1, contentLength / 2)))
+                        .commentedAt(commentedAt)
+                        .build());
+            }
+
+            bundles.add(new PostBundle(Post.builder()
+                    .id(postId)
+                    .userId(userIds[author])
+                    .content(text(contentLength))
+                    .createdAt(createdAt)
+                    .likeCount(likeCount)
+                    .commentCount(commentCount)
+                    .build(), postLikes, postComments));
+        }
+        return bundles;
+    }
+
+    private Mono<Void> insertPosts(List<PostBundle> batch) {
+        List<Post> batchPosts = batch.stream().map(PostBundle::post).toList();
+        List<Likes> batchLikes = batch.stream().flatMap(bundle -> bundle.likes().stream()).toList();
+        List<Comments> batchComments = batch.stream().flatMap(bundle -> bundle.comments().stream()).toList();
+
+        return Mono.when(
+                template.insert(batchPosts, Post.class).count().doOnNext(posts::addAndGet),
+                batchLikes.isEmpty() ? Mono.empty()
+                        : template.insert(batchLikes, Likes.class).count().doOnNext(likes::addAndGet),
+                batchComments.isEmpty() ? Mono.empty()
+                        : template.insert(batchComments, Comments.class).count().doOnNext(comments::addAndGet));
+    }
+
+    private void report(Duration elapsed) {
+        int[] sortedFollowers = followersCount.clone();
+        Arrays.sort(sortedFollowers);
+        long topOnePercent = 0;
+        for (int i = sortedFollowers.length - Math.max(1, users / 100); i < sortedFollowers.length; i++) {
+            topOnePercent += sortedFollowers[i];
+        }
+        long documents = users + follows.get() + posts.get() + likes.get() + comments.get();
+
+        System.out.printf("Seeded %,d users, %,d follows, %,d posts, %,d likes, %,d comments in %.1f s (%,.0f docs/s)%n",
+                users, follows.get(), posts.get(), likes.get(), comments.get(),
+                elapsed.toMillis() / 1000.0, documents * 1000.0 / Math.max(1, elapsed.toMillis()));
+        System.out.printf("Followers: median %,d, p99 %,d, max %,d; top 1%% of users hold %.1f%% of all follows%n",
+                sortedFollowers[users / 2], sortedFollowers[(int) (users * 0.99)], sortedFollowers[users - 1],
+                100.0 * topOnePercent / Math.max(1, follows.get()));
+    }
+
+    /**
+     * ObjectId carrying the given time, so _id order matches creation order like real inserts
+     * (keyset cursors and export ranges rely on it). The other 8 bytes come from the seeded Random
+     * and the counter, not from the machine/process, so the same seed gives the same ids.
+     */
+    private String nextId(LocalDateTime time) {
+        byte[] random5 = new byte[5];
+        random.nextBytes(random5);
+        int counter = sequence++ & 0xFFFFFF;
+
+        ByteBuffer bytes = ByteBuffer.allocate(12)
+                .putInt((int) time.atZone(ZoneId.systemDefault()).toEpochSecond())
+                .put(random5)
+                .put((byte) (counter >> 16))
+                .put((byte) (counter >> 8))
+                .put((byte) counter);
+        return new ObjectId(bytes.array()).toHexString();
+    }
+
+    /**
+     * Uniformly random time between from and now.
+     */
+    private LocalDateTime randomTime(LocalDateTime from) {
+        long seconds = Math.max(1, Duration.between(from, now).toSeconds());
+        return from.plusSeconds((long) (random.nextDouble() * seconds));
+    }
+
+    private void shuffle(int[] values) {
+        for (int i = values.length - 1; i > 0; i--) {
+            int j = random.nextInt(i + 1);
+            int swap = values[i];
+            values[i] = values[j];
+            values[j] = swap;
+        }
+    }
+
+    private String text(int length) {
+        StringBuilder text = new StringBuilder(length);
+        for (int i = 0; i < length; i++) {
+            text.append(i % 6 == 5 ? ' ' : (char) ('a' + random.nextInt(26)));
+        }
+        return text.toString();
+    }
+}
@@ -0,0 +1,74 @@
+package com.sheemab.socialmedia.Feed.System.loadtest;
+
+import java.util.Arrays;
+
+/**
+ * Latencies and outcomes of one endpoint. Every sample is kept (8 bytes each) so the percentiles are exact;
+ * a few minutes of load is a few million samples at most.
+ */
+final class LatencyRecorder {
+
+    private long[] latencies = new long[1024];
+    private int count;
+    private long clientErrors;   // 4xx
+    private long serverErrors;   // 5xx, including bulkhead rejections (503)
+    private long failures;       // no response: connection refused, reset, timeout
+
+    synchronized void record(long latencyNanos, int status) {
+        if (count == latencies.length) {
+            latencies = Arrays.copyOf(latencies, count * 2);
+        }
+        latencies[count++] = latencyNanos;
+        if (status >= 500) {
+            serverErrors++;
+        } else if (status >= 400) {
+            clientErrors++;
+        }
+    }
+
+    synchronized void recordFailure() {
+        failures++;
+    }
+
+    synchronized Summary summary() {
+        long[] sorted = Arrays.copyOf(latencies, count);
+        Arrays.sort(sorted);
+        return new Summary(sorted, clientErrors, serverErrors, failures);
+    }
+
+    /**
+     * Snapshot of a recorder, or of several merged together.
+     */
+    record Summary(long[] sorted, long clientErrors, long serverErrors, long failures) {
+
+        static Summary merge(Iterable<Summary> summaries) {
+            long[] all = new long[0];
+            long client = 0, server = 0, failed = 0;
+            for (Summary summary : summaries) {
+                int offset = all.length;
+                all = Arrays.copyOf(all, offset + summary.sorted().length);
+                System.arraycopy(summary.sorted(), 0, all, offset, summary.sorted().length);
+                client += summary.clientErrors();
+                server += summary.serverErrors();
+                failed += summary.failures();
+            }
+            Arrays.sort(all);
+            return new Summary(all, client, server, failed);
+        }
+
+        long requests() {
+            return sorted.length + failures;
+        }
+
+        /**
+         * Nearest-rank percentile in milliseconds (0 when nothing was recorded).
+         */
+        double percentileMillis(double percentile) {
+            if (sorted.length == 0) {
+                return 0;
+            }
+            int rank = (int) Math.ceil(percentile / 100 * sorted.length);
+            return sorted[Math.max(0, Math.min(sorted.length - 1, rank - 1))] / 1_000_000.0;
+        }
+    }
+}
@@ -0,0 +1,297 @@
+package com.sheemab.socialmedia.Feed.System.loadtest;
+
+import com.sheemab.socialmedia.Feed.System.dto.CommentRequestDto;
+import com.sheemab.socialmedia.Feed.System.dto.ExportPageDto;
+import com.sheemab.socialmedia.Feed.System.dto.ExportPartitionDto;
+import com.sheemab.socialmedia.Feed.System.dto.PostRequestDto;
+import com.sheemab.socialmedia.Feed.System.dto.PostResponseDto;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DataBufferUtils;
+import org.springframework.http.MediaType;
+import org.springframework.http.client.reactive.ReactorClientHttpConnector;
+import org.springframework.web.reactive.function.client.WebClient;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.netty.http.client.HttpClient;
+import reactor.netty.resources.ConnectionProvider;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Random;
+import java.util.Set;
+import java.util.function.BiFunction;
+
+/**
+ * Replays a weighted mix of API calls against a running instance and reports throughput and
+ * latency percentiles per endpoint.
+ *
+ * Targets (post ids and their authors) are sampled from /api/posts/export, one page per export range,
+ * so the driver works on any data set; seed one with GraphSeeder first.
+ *
+ * Two load models:
+ * <ul>
+ *   <li>closed loop (default): load.concurrency requests in flight, each one sent as soon as the previous returns</li>
+ *   <li>open loop (load.rate &gt; 0): requests are scheduled at a fixed rate and latency is measured from the
+ *       scheduled time, so a slow server shows up as queueing delay instead of silently lowering the load</li>
+ * </ul>
+ * Requests sent during load.warmup are not recorded.
+ *
+ * ./gradlew loadTest -Pload.duration=2m -Pload.concurrency=128
+ * ./gradlew loadTest -Pload.rate=2000 -Pload.mix=feed=80,post=20
+ */
+public final class LoadDriver {
+
+    private static final String DEFAULT_MIX =
+            "feed=50,feed-ranked=5,post=10,like-count=10,comments=10,followers=5,like=5,comment=3,create-post=2";
+
+    /**
+     * The endpoints the mix can draw from, by mix key.
+     */
+    enum Endpoint {
+        FEED("feed", (client, target) -> client.get()
+                .uri("/api/feed/{userId}?limit=20", target.userId())
+                .accept(MediaType.APPLICATION_JSON)),
+        FEED_RANKED("feed-ranked", (client, target) -> client.get()
+                .uri("/api/feed/{userId}?limit=20&order=RANKED", target.userId())
+                .accept(MediaType.APPLICATION_JSON)),
+        POST("post", (client, target) -> client.get()
+                .uri("/api/posts/{postId}", target.postId())),
+        LIKE_COUNT("like-count", (client, target) -> client.get()
+                .uri("/api/likes/{postId}/count", target.postId())),
+        COMMENTS("comments", (client, target) -> client.get()
+                .uri("/api/comments/{postId}", target.postId())),
+        FOLLOWERS("followers", (client, target) -> client.get()
+                .uri("/api/users/{userId}/followers?limit=20", target.userId())
+                .accept(MediaType.APPLICATION_JSON)),
+        LIKE("like", (client, target) -> client.post()
+                .uri("/api/likes/{postId}/users/{userId}", target.postId(), target.userId())),
+        COMMENT("comment", (client, target) -> client.post()
+                .uri("/api/comments/{postId}", target.postId())
+                .bodyValue(new CommentRequestDto("load test comment", target.userId()))),
+        CREATE_POST("create-post", (client, target) -> client.post()
+                .uri("/api/posts")
+                .bodyValue(new PostRequestDto(target.userId(), "load test post")));
+
+        private final String key;
+        private final BiFunction<WebClient, Target, WebClient.RequestHeadersSpec<?>> request;
+
+        Endpoint(String key, BiFunction<WebClient, Target, WebClient.RequestHeadersSpec<?>> request) {
+            this.key = key;
+            this.request = request;
+        }
+
+        static Endpoint byKey(String key) {
+            for (Endpoint endpoint : values()) {
+                if (endpoint.key.equals(key)) {
+                    return endpoint;
+                }
+            }
+            throw new IllegalArgumentException("Unknown endpoint in load.mix: " + key);
+        }
+    }
+
+    /**
+     * Who calls (viewer / liker / commenter / author) and which post, drawn independently.
+     */
+    record Target(String userId, String postId) {
+    }
+
+    /**
+     * One request, with the time it was meant to be sent (System.nanoTime()).
+     */
+    private record Call(Endpoint endpoint, Target target, long scheduledAt) {
+    }
+
+    private final WebClient client;
+    private final Random random;
+    private final int concurrency;
+    private final double rate;
+    private final Duration warmup;
+    private final Duration duration;
+    private final Duration timeout;
+    private final Settings settings;
+
+    private final Endpoint[] mixEndpoints;
+    private final int[] mixCumulative;   // cumulative weights, binary-searched on every draw
+    private final Map<Endpoint, LatencyRecorder> recorders = new EnumMap<>(Endpoint.class);
+
+    private List<String> postIds;
+    private List<String> userIds;
+    private long measureFrom;
+
+    LoadDriver(Settings settings) {
+        this.settings = settings;
+        this.random = new Random(settings.integer("seed", 42));
+        this.concurrency = settings.integer("concurrency", 64);
+        this.rate = settings.decimal("rate", 0);
+        this.warmup = settings.duration("warmup", Duration.ofSeconds(10));
+        this.duration = settings.duration("duration", Duration.ofSeconds(60));
+        this.timeout = settings.duration("timeout", Duration.ofSeconds(10));
+
+        // one connection per in-flight request, so the pool never queues behind the driver's own limit
+        HttpClient httpClient = HttpClient.create(ConnectionProvider.builder("load-driver")
+                .maxConnections(concurrency)
+                .build());
+        this.client = WebClient.builder()
+                .baseUrl(settings.string("base-url", "http://localhost:8080"))
+                .clientConnector(new ReactorClientHttpConnector(httpClient))
+                .build();
+
+        String[] entries = settings.string("mix", DEFAULT_MIX).split(",");
+        this.mixEndpoints = new Endpoint[entries.length];
+        this.mixCumulative = new int[entries.length];
+        int total = 0;
+        for (int i = 0; i < entries.length; i++) {
+            String[] entry = entries[i].trim().split("=");
+            mixEndpoints[i] = Endpoint.byKey(entry[0].trim());
+            total += entry.length > 1 ? Integer.parseInt(entry[1].trim()) : 1;
+            mixCumulative[i] = total;
+            recorders.put(mixEndpoints[i], new LatencyRecorder());
+        }
+    }
+
+    public static void main(String[] args) {
+        new LoadDriver(new Settings("load.")).run();
+    }
+
+    void run() {
+        // 1. Sample targets from the export ranges, spread over the whole posts collection
+        discoverTargets(settings.integer("partitions", 16), settings.integer("sample-posts", 2_000));
+        System.out.printf("Targets: %,d posts by %,d authors; %s, warm-up %s, measure %s%n",
+                postIds.size(), userIds.size(),
+                rate > 0 ? String.format("open loop at %,.0f req/s (max %d in flight)", rate, concurrency)
+                        : "closed loop with " + concurrency + " in flight",
+                warmup, duration);
+
+        // 2. Replay the mix
+        long start = System.nanoTime();
+        measureFrom = start + warmup.toNanos();
+        calls(start)
+                .flatMap(this::execute, concurrency)
+                .blockLast();
+        long end = System.nanoTime();
+
+        // 3. Per-endpoint and overall results
+        report(Duration.ofNanos(Math.max(1, end - measureFrom)));
+    }
+
+    private void discoverTargets(int partitions, int samplePosts) {
+        int perPartition = Math.max(1, samplePosts / partitions);
+        List<PostResponseDto> posts = client.get()
+                .uri("/api/posts/export/partitions?count={count}", partitions)
+                .retrieve()
+                .bodyToFlux(ExportPartitionDto.class)
+                .concatMap(partition -> client.get()
+                        .uri(builder -> builder.path("/api/posts/export")
+                                .queryParamIfPresent("from", Optional.ofNullable(partition.getFrom()))
+                                .queryParamIfPresent("to", Optional.ofNullable(partition.getTo()))
+                                .queryParam("limit", perPartition)
+                                .build())
+                        .retrieve()
+                        .bodyToMono(ExportPageDto.class)
+                        .flatMapIterable(ExportPageDto::getPosts))
+                .collectList()
+                .block();
+
+        if (posts == null || posts.isEmpty()) {
+            throw new IllegalStateException("No posts to load-test against; seed the database first (./gradlew seedGraph)");
+        }
+        Set<String> authors = new LinkedHashSet<>();
+        postIds = new ArrayList<>(posts.size());
+        for (PostResponseDto post : posts) {
+            postIds.add(post.getId());
+            authors.add(post.getUserId());
+        }
+        userIds = new ArrayList<>(authors);
+    }
+
+    /**
+     * Closed loop: a new call whenever a slot frees up, until the run time is over.
+     * Open loop: call k is due at start + k / rate, released on 1ms ticks; all calls of the run are
+     * sent even when the server falls behind, the backlog then shows up in the latencies.
+     */
+    private Flux<Call> calls(long start) {
+        Duration runTime = warmup.plus(duration);
+        if (rate <= 0) {
+            return Flux.<Call>generate(sink -> sink.next(nextCall(System.nanoTime())))
+                    .take(runTime);
+        }
+
+        double nanosPerCall = 1_000_000_000.0 / rate;
+        long[] issued = {0};
+        return Flux.interval(Duration.ofMillis(1))
+                .onBackpressureBuffer()
+                .take(runTime.toMillis())
+                .concatMapIterable(tick -> {
+                    long due = (long) (rate * (tick + 1) / 1000);
+                    List<Call> calls = new ArrayList<>();
+                    for (; issued[0] < due; issued[0]++) {
+                        calls.add(nextCall(start + (long) (issued[0] * nanosPerCall)));
+                    }
+                    return calls;
+                });
+    }
+
+    private Call nextCall(long scheduledAt) {
+        int draw = random.nextInt(mixCumulative[mixCumulative.length - 1]);
+        int index = 0;
+        while (mixCumulative[index] <= draw) {
+            index++;
+        }
+        Target target = new Target(
+                userIds.get(random.nextInt(userIds.size())),
+                postIds.get(random.nextInt(postIds.size())));
+        return new Call(mixEndpoints[index], target, scheduledAt);
+    }
+
+    private Mono<Void> execute(Call call) {
+        LatencyRecorder recorder = recorders.get(call.endpoint());
+        boolean measured = call.scheduledAt() >= measureFrom;
+
+        return call.endpoint().request.apply(client, call.target())
+                // read the whole body (latency includes it) without keeping it
+                .exchangeToMono(response -> response.bodyToFlux(DataBuffer.class)
+                        .doOnNext(DataBufferUtils::release)
+                        .then(Mono.fromSupplier(() -> response.statusCode().value())))
+                .timeout(timeout)
+                .doOnNext(status -> {
+                    if (measured) {
+                        recorder.record(System.nanoTime() - call.scheduledAt(), status);
+                    }
+                })
+                .onErrorResume(e -> {
+                    if (measured) {
+                        recorder.recordFailure();
+                    }
+                    return Mono.empty();
+                })
+                .then();
+    }
+
+    private void report(Duration window) {
+        double seconds = window.toNanos() / 1_000_000_000.0;
+        System.out.printf("%n%-12s %10s %9s %7s %7s %7s %9s %9s %9s %9s %9s%n",
+                "endpoint", "requests", "req/s", "4xx", "5xx", "failed", "p50 ms", "p90 ms", "p99 ms", "p99.9 ms", "max ms");
+
+        List<LatencyRecorder.Summary> summaries = new ArrayList<>();
+        for (Map.Entry<Endpoint, LatencyRecorder> entry : recorders.entrySet()) {
+            LatencyRecorder.Summary summary = entry.getValue().summary();
+            summaries.add(summary);
+            printRow(entry.getKey().key, summary, seconds);
+        }
+        printRow("all", LatencyRecorder.Summary.merge(summaries), seconds);
+    }
+
+    private static void printRow(String name, LatencyRecorder.Summary summary, double seconds) {
+        System.out.printf("%-12s %,10d %,9.1f %,7d %,7d %,7d %9.2f %9.2f %9.2f %9.2f %9.2f%n",
+                name, summary.requests(), summary.requests() / seconds,
+                summary.clientErrors(), summary.serverErrors(), summary.failures(),
+                summary.percentileMillis(50), summary.percentileMillis(90), summary.percentileMillis(99),
+                summary.percentileMillis(99.9), summary.percentileMillis(100));
+    }
+}
@@ -0,0 +1,56 @@
+package com.sheemab.socialmedia.Feed.System.loadtest;
+
+import java.util.Arrays;
+import java.util.Random;
+
+/**
+ * Heavy-tailed samplers for the synthetic graph: a few accounts get most of the followers,
+ * most posts get a handful of likes and a few get thousands.
+ */
+final class PowerLaw {
+
+    private PowerLaw() {
+    }
+
+    /**
+     * Zipf over ranks 0..n-1: P(rank k) ~ 1 / (k + 1)^exponent.
+     * Sampled by binary search over the precomputed CDF (n doubles).
+     */
+    static final class Zipf {
+
+        private final double[] cdf;
+
+        Zipf(int n, double exponent) {
+            cdf = new double[n];
+            double sum = 0;
+            for (int k = 0; k < n; k++) {
+                sum += 1 / Math.pow(k + 1, exponent);
+                cdf[k] = sum;
+            }
+            for (int k = 0; k < n; k++) {
+                cdf[k] /= sum;
+            }
+        }
+
+        int sample(Random random) {
+            int index = Arrays.binarySearch(cdf, random.nextDouble());
+            // not found -> (-(insertion point) - 1); the insertion point is the sampled rank
+            int rank = index >= 0 ? index : -index - 1;
+            return Math.min(rank, cdf.length - 1);
+        }
+    }
+
+    /**
+     * Lomax (Pareto type II, starts at 0) with the given mean and tail exponent (> 1), rounded and capped at max.
+     * The smaller the exponent, the heavier the tail.
+     */
+    static int lomax(Random random, double mean, double exponent, int max) {
+        if (mean <= 0) {
+            return 0;
+        }
+        double scale = mean * (exponent - 1);
+        double u = 1 - random.nextDouble(); // (0, 1]
+        double value = scale * (Math.pow(u, -1 / exponent) - 1);
+        return (int) Math.min(max, Math.round(value));
+    }
+}
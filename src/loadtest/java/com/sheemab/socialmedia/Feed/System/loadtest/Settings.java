@@ -0,0 +1,42 @@
+package com.sheemab.socialmedia.Feed.System.loadtest;
+
+import org.springframework.boot.convert.DurationStyle;
+
+import java.time.Duration;
+
+/**
+ * -D system properties under one prefix ("seed." / "load."), with defaults.
+ * The Gradle tasks forward matching -P project properties, so both work.
+ */
+final class Settings {
+
+    private final String prefix;
+
+    Settings(String prefix) {
+        this.prefix = prefix;
+    }
+
+    String string(String name, String defaultValue) {
+        return System.getProperty(prefix + name, defaultValue);
+    }
+
+    int integer(String name, int defaultValue) {
+        return Integer.parseInt(string(name, String.valueOf(defaultValue)));
+    }
+
+    double decimal(String name, double defaultValue) {
+        return Double.parseDouble(string(name, String.valueOf(defaultValue)));
+    }
+
+    boolean flag(String name, boolean defaultValue) {
+        return Boolean.parseBoolean(string(name, String.valueOf(defaultValue)));
+    }
+
+    /**
+     * Spring Boot duration syntax: "30s", "2m", "500ms" or ISO-8601.
+     */
+    Duration duration(String name, Duration defaultValue) {
+        String value = System.getProperty(prefix + name);
+        return value == null ? defaultValue : DurationStyle.detectAndParse(value);
+    }
+}
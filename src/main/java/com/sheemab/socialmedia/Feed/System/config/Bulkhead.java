@@ -0,0 +1,46 @@
+package com.sheemab.socialmedia.Feed.System.config;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * A fixed number of permits with no waiting line: a caller either gets a permit right away or is turned down.
+ * Meters: feed.bulkhead.in.flight (gauge) and feed.bulkhead.rejected (counter), both tagged with the name.
+ */
+public final class Bulkhead {
+
+    private final int maxConcurrent;
+    private final AtomicInteger inFlight = new AtomicInteger();
+    private final Counter rejected;
+
+    public Bulkhead(String name, int maxConcurrent, MeterRegistry meterRegistry) {
+        this.maxConcurrent = maxConcurrent;
+        Gauge.builder("feed.bulkhead.in.flight", inFlight, AtomicInteger::get)
+                .description("Requests holding a permit")
+                .tag("bulkhead", name)
+                .register(meterRegistry);
+        this.rejected = Counter.builder("feed.bulkhead.rejected")
+                .description("Requests turned down because every permit was taken")
+                .tag("bulkhead", name)
+                .register(meterRegistry);
+    }
+
+    /**
+     * @return true if a permit was taken; it must be given back with release()
+     */
+    public boolean tryAcquire() {
+        if (inFlight.incrementAndGet() > maxConcurrent) {
+            inFlight.decrementAndGet();
+            rejected.increment();
+            return false;
+        }
+        return true;
+    }
+
+    public void release() {
+        inFlight.decrementAndGet();
+    }
+}
@@ -0,0 +1,63 @@
+package com.sheemab.socialmedia.Feed.System.config;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.server.reactive.ServerHttpRequest;
+import org.springframework.stereotype.Component;
+import org.springframework.web.server.ServerWebExchange;
+import org.springframework.web.server.WebFilter;
+import org.springframework.web.server.WebFilterChain;
+import reactor.core.publisher.Mono;
+
+/**
+ * Separate bulkheads for feed reads and for writes, so a burst of one cannot take every
+ * Mongo/Redis connection from the other. A request that finds its bulkhead full gets
+ * 503 with Retry-After immediately instead of queueing until it times out.
+ * The permit is held until the response is complete, including streamed (NDJSON/SSE) pages.
+ * Live feed subscriptions are long-lived and bounded by their own buffers, so they are not counted.
+ */
+@Component
+public class BulkheadWebFilter implements WebFilter {
+
+    private static final String RETRY_AFTER_SECONDS = "1";
+
+    private final Bulkhead feedReads;
+    private final Bulkhead writes;
+
+    public BulkheadWebFilter(FeedProperties feedProperties, MeterRegistry meterRegistry) {
+        FeedProperties.Bulkheads settings = feedProperties.getBulkheads();
+        this.feedReads = new Bulkhead("feed-reads", settings.getFeedReads().getMaxConcurrent(), meterRegistry);
+        this.writes = new Bulkhead("writes", settings.getWrites().getMaxConcurrent(), meterRegistry);
+    }
+
+    @Override
+    public Mono<Void> filter(ServerWebExchange exchange, WebFilterChain chain) {
+        Bulkhead bulkhead = bulkheadFor(exchange.getRequest());
+        if (bulkhead == null) {
+            return chain.filter(exchange);
+        }
+
+        if (!bulkhead.tryAcquire()) {
+            exchange.getResponse().setStatusCode(HttpStatus.SERVICE_UNAVAILABLE);
+            exchange.getResponse().getHeaders().set(HttpHeaders.RETRY_AFTER, RETRY_AFTER_SECONDS);
+            return exchange.getResponse().setComplete();
+        }
+        return chain.filter(exchange)
+                .doFinally(signal -> bulkhead.release());
+    }
+
+    private Bulkhead bulkheadFor(ServerHttpRequest request) {
+        String path = request.getPath().pathWithinApplication().value();
+        if (!path.startsWith("/api/")) {
+            return null; // actuator, swagger
+        }
+
+        HttpMethod method = request.getMethod();
+        if (HttpMethod.GET.equals(method) || HttpMethod.HEAD.equals(method)) {
+            return path.startsWith("/api/feed/") && !path.endsWith("/live") ? feedReads : null;
+        }
+        return HttpMethod.OPTIONS.equals(method) ? null : writes;
+    }
+}
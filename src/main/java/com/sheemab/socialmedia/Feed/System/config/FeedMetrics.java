@@ -0,0 +1,86 @@
+package com.sheemab.socialmedia.Feed.System.config;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.SignalType;
+
+import java.util.function.Supplier;
+
+/**
+ * Meters of the feed pipeline:
+ * - feed.stage        timer per stage of a feed read (tag stage), from subscription to completion
+ * - feed.page.posts   posts per returned page
+ * - feed.post.likes   likes of each post shown in a feed
+ * Every timer also carries outcome = success / error / cancelled, so failures do not skew the latencies.
+ * Percentile histograms are switched on in application.yml (management.metrics.distribution).
+ */
+@Component
+@RequiredArgsConstructor
+public class FeedMetrics {
+
+    private final MeterRegistry meterRegistry;
+
+    public <T> Mono<T> timeStage(String stage, Mono<T> mono) {
+        return Mono.defer(() -> {
+            Timer.Sample sample = Timer.start(meterRegistry);
+            return mono.doFinally(signal -> sample.stop(stageTimer(stage, outcome(signal))));
+        });
+    }
+
+    public <T> Flux<T> timeStage(String stage, Flux<T> flux) {
+        return Flux.defer(() -> {
+            Timer.Sample sample = Timer.start(meterRegistry);
+            return flux.doFinally(signal -> sample.stop(stageTimer(stage, outcome(signal))));
+        });
+    }
+
+    /**
+     * Time an in-memory stage (ranking, mapping).
+     */
+    public <T> T timeStage(String stage, Supplier<T> work) {
+        Timer.Sample sample = Timer.start(meterRegistry);
+        String outcome = "error";
+        try {
+            T result = work.get();
+            outcome = "success";
+            return result;
+        } finally {
+            sample.stop(stageTimer(stage, outcome));
+        }
+    }
+
+    public void recordPageSize(int posts) {
+        DistributionSummary.builder("feed.page.posts")
+                .description("Posts per feed page")
+                .register(meterRegistry)
+                .record(posts);
+    }
+
+    public void recordLikes(int likes) {
+        DistributionSummary.builder("feed.post.likes")
+                .description("Likes of each post shown in a feed")
+                .register(meterRegistry)
+                .record(likes);
+    }
+
+    private Timer stageTimer(String stage, String outcome) {
+        return Timer.builder("feed.stage")
+                .description("Time spent in one stage of a feed read")
+                .tag("stage", stage)
+                .tag("outcome", outcome)
+                .register(meterRegistry);
+    }
+
+    static String outcome(SignalType signal) {
+        return switch (signal) {
+            case ON_COMPLETE -> "success";
+            case ON_ERROR -> "error";
+            default -> "cancelled";
+        };
+    }
+}
@@ -0,0 +1,247 @@
+package com.sheemab.socialmedia.Feed.System.config;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+/**
+ * Settings for how feeds are assembled, bound from the "feed" block in application.yml.
+ */
+@Data
+@ConfigurationProperties(prefix = "feed")
+public class FeedProperties {
+
+    /**
+     * PULL = query the posts of followed users on every read (original behaviour)
+     * PUSH = fan-out-on-write: post ids are pushed to follower timelines in Redis
+     * HYBRID = PUSH for regular accounts, PULL (merged at read time) for accounts with many followers
+     */
+    private Mode mode = Mode.PULL;
+
+    /**
+     * How posts of followed users are queried in PULL mode (and for the pulled part of HYBRID)
+     * IN_QUERY    = a single $in + sort query over all followed authors
+     * K_WAY_MERGE = one bounded, index-ordered query per author, lazily merged with a heap
+     */
+    private PullEngine pullEngine = PullEngine.IN_QUERY;
+
+    private Timeline timeline = new Timeline();
+
+    private Page page = new Page();
+
+    private Hybrid hybrid = new Hybrid();
+
+    private Summary summary = new Summary();
+
+    private Merge merge = new Merge(); // K_WAY_MERGE engine settings
+
+    private Usernames usernames = new Usernames();
+
+    private Streaming streaming = new Streaming(); // NDJSON / SSE endpoints
+
+    private Live live = new Live(); // live feed (new posts pushed over SSE)
+
+    private FollowingCache followingCache = new FollowingCache(); // who each user follows, for PULL reads
+
+    private LikeWrites likeWrites = new LikeWrites(); // write-behind for like/unlike bursts
+
+    private HotPosts hotPosts = new HotPosts(); // likers of very liked posts kept in Redis
+
+    private Ranking ranking = new Ranking(); // RANKED feed order
+
+    private Versions versions = new Versions(); // feed version stamps (ETag / 304)
+
+    private Export export = new Export(); // bulk posts export for analytics jobs
+
+    private Cleanup cleanup = new Cleanup(); // background removal of a deleted post's likes/comments
+
+    private Concurrency concurrency = new Concurrency(); // in-flight operations per reactive fan-out
+
+    private Bulkheads bulkheads = new Bulkheads(); // concurrent requests per endpoint group
+
+    private SingleFlight singleFlight = new SingleFlight(); // coalescing of identical concurrent reads
+
+    private Counters counters = new Counters(); // repair of Post.likeCount / Post.commentCount
+
+    private Locks locks = new Locks(); // cluster-wide locks of scheduled jobs and startup migrations
+
+    public enum Mode {
+        PULL,
+        PUSH,
+        HYBRID
+    }
+
+    public enum PullEngine {
+        IN_QUERY,
+        K_WAY_MERGE
+    }
+
+    /**
+     * When a buffered like/unlike is answered
+     * BUFFERED = as soon as it is queued (fastest; lost if the instance dies before the flush)
+     * FLUSHED  = once the bulk write containing it has completed
+     */
+    public enum Acknowledge {
+        BUFFERED,
+        FLUSHED
+    }
+
+    @Data
+    public static class Timeline {
+        private String keyPrefix = "timeline:"; // Redis key = prefix + userId
+        private int maxSize = 800;              // timelines are capped to the newest N post ids
+    }
+
+    @Data
+    public static class Page {
+        private int defaultLimit = 20; // used when the client sends no limit
+        private int maxLimit = 100;    // larger limits are clamped to this
+    }
+
+    @Data
+    public static class Hybrid {
+        private int followerThreshold = 10_000;                  // authors with at least this many followers are pulled
+        private String pulledAuthorsKey = "feed:pulled-authors"; // Redis set of authors that are not fanned out
+    }
+
+    @Data
+    public static class Summary {
+        private int previewSize = 3; // most recent likes/comments per post in the SUMMARY feed view
+    }
+
+    @Data
+    public static class Merge {
+        private int chunkSize = 5;    // posts fetched per author per round trip
+        private int concurrency = 32; // author streams opened at the same time
+    }
+
+    @Data
+    public static class Streaming {
+        private int batchSize = 5;   // items hydrated together (one $in query per batch); a batch is emitted as soon as it is ready
+        private int concurrency = 4; // batches hydrated at the same time; items are still emitted in page order
+    }
+
+    @Data
+    public static class Live {
+        private String channel = "feed:new-posts";                 // Redis pub/sub channel createPost() publishes on
+        private Duration heartbeat = Duration.ofSeconds(15);       // SSE comment sent on idle connections
+        private String followingChannel = "feed:following-changed"; // follows/unfollows: connections re-read, cached followee ids are dropped
+        private Duration followingRefresh = Duration.ofMinutes(10); // fallback re-read, in case a change message was lost
+        private int bufferSize = 256;                              // per connection; a lagging client loses its oldest posts
+    }
+
+    @Data
+    public static class FollowingCache {
+        private boolean enabled = true;
+        private long maxIds = 2_000_000;          // followee ids held in total, the least used sets go first
+        private Duration ttl = Duration.ofMinutes(1); // fallback expiry, in case a follow change message was lost
+    }
+
+    @Data
+    public static class LikeWrites {
+        private boolean enabled = false;                    // off = one insert/delete + $inc per request
+        private Duration window = Duration.ofMillis(100);   // operations are buffered at most this long
+        private int maxBatchSize = 1_000;                   // a full buffer is flushed before the window ends
+        private Acknowledge acknowledge = Acknowledge.FLUSHED;
+        private String writeConcern = "ACKNOWLEDGED";       // for the bulk writes, e.g. W1, MAJORITY
+        private int queueCapacity = 10_000;                 // operations waiting for a flush; beyond that -> 503
+        private Duration acknowledgeTimeout = Duration.ofSeconds(10); // FLUSHED requests wait window + this at most
+    }
+
+    @Data
+    public static class HotPosts {
+        private boolean enabled = true;
+        private int likeThreshold = 10_000;                    // posts with this many likes are promoted
+        private Duration ttl = Duration.ofHours(1);            // a promoted post is rebuilt from Mongo at least this often
+        private Duration warmupTimeout = Duration.ofMinutes(5); // a promotion that did not finish by then can be retried
+        private String keyPrefix = "hot-post:";
+    }
+
+    @Data
+    public static class Ranking {
+        private int candidateWindow = 300;               // newest candidates that are scored per request
+        private Duration halfLife = Duration.ofHours(6); // recency decay: a post's score halves every half-life
+        private double likeWeight = 1.0;                 // likes per hour
+        private double commentWeight = 3.0;              // comments per hour
+        private double closeAuthorBoost = 1.5;           // authors who follow the viewer back
+    }
+
+    @Data
+    public static class Versions {
+        private boolean enabled = true;
+        private String keyPrefix = "feed-version:";
+        private Duration engagementFlush = Duration.ofSeconds(5); // likes/comments reach follower stamps this late at most
+        private int flushBatchSize = 500;                          // changed posts handled per pass
+        private Duration etagPeriod = Duration.ofHours(1);         // ETags roll over this often; posts remember their viewers as long
+    }
+
+    @Data
+    public static class Export {
+        private int defaultLimit = 500;   // posts per export page when the client sends no limit
+        private int maxLimit = 2000;      // larger limits are clamped to this
+        private int maxPartitions = 64;   // most _id ranges one export can be split into
+        private int legacyLimit = 1000;   // GET /api/posts returns at most this many posts
+    }
+
+    @Data
+    public static class Cleanup {
+        private Duration interval = Duration.ofSeconds(10);    // pause between two cleanup runs
+        private int postsPerRun = 50;                          // deleted posts handled per run
+        private int batchSize = 500;                           // likes/comments/timelines removed per batch
+        private Duration batchPause = Duration.ofMillis(200);  // pause before every batch (rate limit)
+        private Duration abandonAfter = Duration.ofMinutes(10); // job of a post that still exists by then = failed delete, dropped
+    }
+
+    @Data
+    public static class Concurrency {
+        private int hydration = 16; // per-post likes/comments queries of one page in flight
+        private int fanOut = 64;    // follower writes (timelines, feed versions) in flight per post
+    }
+
+    @Data
+    public static class Bulkheads {
+        private BulkheadSettings feedReads = new BulkheadSettings(256); // GET /api/feed/** (live SSE connections excluded)
+        private BulkheadSettings writes = new BulkheadSettings(128);    // POST/PUT/PATCH/DELETE /api/**
+    }
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class BulkheadSettings {
+        private int maxConcurrent; // requests beyond this are rejected with 503 right away
+    }
+
+    @Data
+    public static class SingleFlight {
+        private boolean enabled = true;
+        private Duration cacheTtl = Duration.ofMillis(100); // a loaded result is still shared this long; 0 = in-flight only
+    }
+
+    @Data
+    public static class Counters {
+        private String reconcileCron = "0 0 3 * * *"; // nightly recount of every post
+        private int pageSize = 500;                   // posts read per _id page
+        private boolean backfillOnStartup = true;     // recount every post once, on the first instance that starts
+    }
+
+    @Data
+    public static class Locks {
+        private String keyPrefix = "lock:";
+        private Duration lease = Duration.ofMinutes(1);        // renewed while the job runs; freed this long after a crash
+        private Duration pollInterval = Duration.ofSeconds(5); // instances waiting for a one-time job re-check this often
+        private Duration startupTimeout = Duration.ofMinutes(5); // startup migrations (run or waited for) fail the startup after this
+    }
+
+    @Data
+    public static class Usernames {
+        private long localMaxSize = 100_000;                          // in-process entries, least recently used go first
+        private Duration localTtl = Duration.ofMinutes(5);
+        private String redisKeyPrefix = "username:";
+        private Duration redisTtl = Duration.ofHours(1);
+        private String invalidationChannel = "usernames:invalidate"; // renames are broadcast to every instance
+        private Duration evictAgainAfter = Duration.ofSeconds(2);     // second eviction, after lookups in flight during a rename
+    }
+}
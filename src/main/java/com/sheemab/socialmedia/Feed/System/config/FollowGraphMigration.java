@@ -0,0 +1,198 @@
+package com.sheemab.socialmedia.Feed.System.config;
+
+import com.mongodb.client.result.UpdateResult;
+import com.sheemab.socialmedia.Feed.System.entity.Follow;
+import com.sheemab.socialmedia.Feed.System.entity.User;
+import com.sheemab.socialmedia.Feed.System.service.IClusterLockService;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.bson.Document;
+import org.springframework.beans.factory.InitializingBean;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.ReactiveMongoTemplate;
+import org.springframework.data.mongodb.core.aggregation.Aggregation;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * One-time move of the follow graph from the embedded User.followers / User.following sets
+ * into the "follows" edge collection. Runs while the application context starts, so before the server
+ * accepts follows or feed reads, on one instance under a cluster lock; the others wait for it. A migration that
+ * fails or takes longer than locks.startup-timeout fails the startup. Its completion is recorded in Mongo,
+ * so later startups only read that marker.
+ * It only touches users that still have the old fields, so a rerun after a partial failure resumes.
+ * followersCount / followingCount are recounted from the edges afterwards, once, in the background.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class FollowGraphMigration implements InitializingBean {
+
+    private static final String FOLLOWING = "following";
+    private static final String FOLLOWERS = "followers";
+    private static final String FOLLOWERS_COUNT = "followersCount";
+    private static final String FOLLOWING_COUNT = "followingCount";
+    private static final String JOB = "follow-graph-migration";
+    private static final String RECOUNT_JOB = "follow-count-recount";
+    private static final String MIN_ID = "0".repeat(24);
+    private static final int RECOUNT_ATTEMPTS = 3;
+
+    private final ReactiveMongoTemplate mongoTemplate;
+    private final IClusterLockService clusterLockService;
+    private final FeedProperties feedProperties;
+
+    @Override
+    public void afterPropertiesSet() {
+        clusterLockService.runOnce(JOB, Mono.defer(this::migrate))
+                .timeout(feedProperties.getLocks().getStartupTimeout())
+                .doOnError(e -> log.error("Follow graph migration failed", e))
+                .block();
+    }
+
+    /**
+     * The recount reads every user, so it does not hold up the startup; counts read before it is done
+     * may be off for migrated users.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void recountFollowCounts() {
+        clusterLockService.runOnce(RECOUNT_JOB, Mono.defer(this::recountAll)
+                        .doOnNext(repaired -> log.info("Recounted the follow counters of {} users", repaired)))
+                .subscribe(null, e -> log.error("Follow counter recount failed; it is retried on the next startup", e));
+    }
+
+    private Mono<Long> migrate() {
+        Query legacyUsers = new Query(new Criteria().orOperator(
+                Criteria.where(FOLLOWING).exists(true),
+                Criteria.where(FOLLOWERS).exists(true)));
+
+        return mongoTemplate.find(legacyUsers, Document.class, mongoTemplate.getCollectionName(User.class))
+                // every edge appears in the follower's "following" set, so that side alone is migrated;
+                // "followers" is just the mirror image and is dropped
+                .concatMap(this::migrateUser)
+                .count()
+                .doOnNext(migrated -> log.info("Migrated follow graph of {} users to the follows collection", migrated));
+    }
+
+    private Mono<String> migrateUser(Document user) {
+        String userId = String.valueOf(user.get("_id"));
+        List<String> following = user.getList(FOLLOWING, String.class, List.of());
+
+        return Flux.fromIterable(following)
+                // upsert so a rerun after a partial failure does not trip the unique edge index
+                .concatMap(followeeId -> mongoTemplate.upsert(
+                        Query.query(Criteria.where("followerId").is(userId).and("followeeId").is(followeeId)),
+                        Update.update("followerId", userId)
+                                .set("followeeId", followeeId)
+                                .setOnInsert("followedAt", LocalDateTime.now()),
+                        Follow.class))
+                .then(mongoTemplate.updateFirst(
+                        Query.query(Criteria.where("_id").is(user.get("_id"))),
+                        new Update().unset(FOLLOWING).unset(FOLLOWERS),
+                        User.class))
+                .thenReturn(userId);
+    }
+
+    /**
+     * Recompute followersCount / followingCount of every user from the edges, one _id page of users at a time:
+     * two grouped counts per page instead of two count queries per user.
+     *
+     * @return number of users whose counters were changed
+     */
+    private Mono<Long> recountAll() {
+        return nextUsers(MIN_ID)
+                .expand(page -> page.size() < pageSize() ? Mono.empty() : nextUsers(page.get(page.size() - 1).getId()))
+                .concatMap(this::recountPage)
+                .reduce(0L, Long::sum);
+    }
+
+    private Mono<List<User>> nextUsers(String cursor) {
+        Query page = Query.query(Criteria.where("_id").gt(cursor))
+                .with(Sort.by(Sort.Direction.ASC, "_id"))
+                .limit(pageSize());
+        page.fields().include(FOLLOWERS_COUNT).include(FOLLOWING_COUNT);
+        return mongoTemplate.find(page, User.class).collectList();
+    }
+
+    private Mono<Long> recountPage(List<User> users) {
+        List<String> userIds = users.stream().map(User::getId).toList();
+
+        return Mono.zip(countEdges("followeeId", userIds), countEdges("followerId", userIds))
+                .flatMapMany(counts -> Flux.fromIterable(users)
+                        .concatMap(user -> {
+                            int followers = counts.getT1().getOrDefault(user.getId(), 0);
+                            int following = counts.getT2().getOrDefault(user.getId(), 0);
+                            if (followers == user.getFollowersCount() && following == user.getFollowingCount()) {
+                                return Mono.just(0L);
+                            }
+                            // a follow changed the counters since the page was read: count that user again
+                            return resetCounts(user, followers, following)
+                                    .flatMap(reset -> reset ? Mono.just(1L) : recountUser(user.getId()));
+                        }))
+                .reduce(0L, Long::sum);
+    }
+
+    /**
+     * Edges per user id, for the given users only (index prefix followerId / followeeId).
+     */
+    private Mono<Map<String, Integer>> countEdges(String field, List<String> userIds) {
+        Aggregation grouped = Aggregation.newAggregation(
+                Aggregation.match(Criteria.where(field).in(userIds)),
+                Aggregation.group(field).count().as("count"));
+
+        return mongoTemplate.aggregate(grouped, Follow.class, Document.class)
+                .collectMap(group -> group.getString("_id"), group -> ((Number) group.get("count")).intValue());
+    }
+
+    /**
+     * Recount one user on its own, retried while follows keep changing its counters underneath.
+     */
+    private Mono<Long> recountUser(String userId) {
+        return Mono.defer(() -> mongoTemplate.findById(userId, User.class)
+                        .flatMap(user -> Mono.zip(
+                                        mongoTemplate.count(Query.query(Criteria.where("followeeId").is(userId)), Follow.class),
+                                        mongoTemplate.count(Query.query(Criteria.where("followerId").is(userId)), Follow.class))
+                                .flatMap(counts -> resetCounts(user, counts.getT1().intValue(), counts.getT2().intValue())))
+                        // a deleted user needs no counters
+                        .defaultIfEmpty(true))
+                .repeat(RECOUNT_ATTEMPTS - 1)
+                .takeUntil(reset -> reset)
+                .last(false)
+                .map(reset -> {
+                    if (!reset) {
+                        log.warn("Follow counters of user {} kept changing during the recount, left as they are", userId);
+                    }
+                    return reset ? 1L : 0L;
+                });
+    }
+
+    /**
+     * Overwrite both counters, but only if nobody changed them since they were read ($inc of a concurrent follow);
+     * null also matches users written before the counters existed (read back as 0).
+     *
+     * @return false if the counters changed in the meantime
+     */
+    private Mono<Boolean> resetCounts(User user, int followers, int following) {
+        return mongoTemplate.updateFirst(
+                        Query.query(Criteria.where("_id").is(user.getId())
+                                .and(FOLLOWERS_COUNT).in(user.getFollowersCount(), null)
+                                .and(FOLLOWING_COUNT).in(user.getFollowingCount(), null)),
+                        Update.update(FOLLOWERS_COUNT, followers).set(FOLLOWING_COUNT, following),
+                        User.class)
+                .map(UpdateResult::getMatchedCount)
+                .map(matched -> matched > 0);
+    }
+
+    private int pageSize() {
+        return feedProperties.getCounters().getPageSize();
+    }
+}
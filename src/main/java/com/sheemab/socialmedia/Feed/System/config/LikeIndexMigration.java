@@ -0,0 +1,111 @@
+package com.sheemab.socialmedia.Feed.System.config;
+
+import com.mongodb.client.result.DeleteResult;
+import com.sheemab.socialmedia.Feed.System.entity.Likes;
+import com.sheemab.socialmedia.Feed.System.service.IClusterLockService;
+import com.sheemab.socialmedia.Feed.System.service.ICounterReconciliationService;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.bson.Document;
+import org.springframework.beans.factory.InitializingBean;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.ReactiveMongoTemplate;
+import org.springframework.data.mongodb.core.aggregation.Aggregation;
+import org.springframework.data.mongodb.core.aggregation.AggregationOptions;
+import org.springframework.data.mongodb.core.index.IndexResolver;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.util.List;
+
+/**
+ * One-time cleanup before the unique (postId, userId) index on likes can exist.
+ * Likes used to be saved without any uniqueness check, so a user may have liked a post several times;
+ * with such duplicates present, index creation at startup fails. This keeps the oldest like of each
+ * (postId, userId) pair, creates the declared Likes indexes and repairs the like counters.
+ * Runs while the application context starts, so before the server accepts requests: likes written
+ * while the unique index is missing could add new duplicates. Once the unique index is in place that is
+ * a single index listing, with no lock and no Redis. Otherwise one instance migrates under a cluster lock and
+ * the others wait for it; a migration that fails or takes longer than locks.startup-timeout fails the startup.
+ * The like counters are repaired in the background afterwards.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class LikeIndexMigration implements InitializingBean {
+
+    private static final String UNIQUE_INDEX = "post_user"; // see Likes
+    private static final String JOB = "like-index-migration";
+
+    private final ReactiveMongoTemplate mongoTemplate;
+    private final ICounterReconciliationService counterReconciliationService;
+    private final IClusterLockService clusterLockService;
+    private final FeedProperties feedProperties;
+
+    @Override
+    public void afterPropertiesSet() {
+        hasUniqueIndex()
+                .flatMap(present -> present
+                        ? Mono.<Void>empty()
+                        : clusterLockService.runOnce(JOB, Mono.defer(this::migrate)))
+                .timeout(feedProperties.getLocks().getStartupTimeout())
+                .doOnError(e -> log.error("Like index migration failed", e))
+                .block();
+    }
+
+    private Mono<Boolean> hasUniqueIndex() {
+        return mongoTemplate.indexOps(Likes.class).getIndexInfo()
+                .any(index -> UNIQUE_INDEX.equals(index.getName()));
+    }
+
+    private Mono<Long> migrate() {
+        // checked again under the lock: the index may have been created since
+        return hasUniqueIndex()
+                .filter(present -> !present)
+                .flatMap(missing -> removeDuplicates())
+                .flatMap(removed -> ensureIndexes().thenReturn(removed))
+                .doOnNext(removed -> {
+                    log.info("Removed {} duplicate likes and created the unique like index", removed);
+                    if (removed > 0) {
+                        // the removed duplicates were counted in Post.likeCount; not worth holding up the startup
+                        counterReconciliationService.reconcileCounters()
+                                .subscribe(null, e -> log.warn("Like counter repair after the migration failed; "
+                                        + "the nightly reconciliation repairs them", e));
+                    }
+                });
+    }
+
+    /**
+     * Group likes by (postId, userId) and delete every like but the oldest of each group.
+     */
+    private Mono<Long> removeDuplicates() {
+        Aggregation duplicates = Aggregation.newAggregation(
+                        Aggregation.sort(Sort.Direction.ASC, "likedAt", "_id"),
+                        Aggregation.group("postId", "userId").push("_id").as("ids").count().as("count"),
+                        Aggregation.match(Criteria.where("count").gt(1)))
+                .withOptions(AggregationOptions.builder().allowDiskUse(true).build());
+
+        return mongoTemplate.aggregate(duplicates, Likes.class, Document.class)
+                .concatMap(group -> {
+                    List<Object> ids = group.getList("ids", Object.class);
+                    // ids are in (likedAt, _id) order -> keep the first
+                    List<Object> extra = ids.subList(1, ids.size());
+                    return mongoTemplate.remove(Query.query(Criteria.where("_id").in(extra)), Likes.class)
+                            .map(DeleteResult::getDeletedCount);
+                })
+                .reduce(0L, Long::sum);
+    }
+
+    /**
+     * Create every index declared on Likes (the startup attempt failed if there were duplicates).
+     */
+    private Mono<Void> ensureIndexes() {
+        IndexResolver resolver = IndexResolver.create(mongoTemplate.getConverter().getMappingContext());
+        return Flux.fromIterable(resolver.resolveIndexFor(Likes.class))
+                .concatMap(index -> mongoTemplate.indexOps(Likes.class).ensureIndex(index))
+                .then();
+    }
+}
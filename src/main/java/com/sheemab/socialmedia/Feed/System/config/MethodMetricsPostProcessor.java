@@ -0,0 +1,149 @@
+package com.sheemab.socialmedia.Feed.System.config;
+
+import com.sheemab.socialmedia.Feed.System.FeedSystemApplication;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.aopalliance.intercept.MethodInterceptor;
+import org.aopalliance.intercept.MethodInvocation;
+import org.springframework.aop.framework.Advised;
+import org.springframework.aop.framework.ProxyFactory;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.core.annotation.AnnotatedElementUtils;
+import org.springframework.stereotype.Component;
+import org.springframework.stereotype.Repository;
+import org.springframework.stereotype.Service;
+import org.springframework.util.ClassUtils;
+import org.springframework.util.function.SingletonSupplier;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.lang.reflect.Modifier;
+import java.lang.reflect.Proxy;
+import java.util.Optional;
+import java.util.function.Supplier;
+
+/**
+ * Times every public method of this application's services and repositories:
+ * - feed.service     tags service, method, outcome
+ * - feed.repository  tags repository, method, outcome (Spring Data interfaces and the Redis repositories)
+ * Methods returning Mono/Flux are timed from subscription to completion (the actual I/O),
+ * everything else around the call.
+ */
+@Component
+public class MethodMetricsPostProcessor implements BeanPostProcessor {
+
+    private static final String BASE_PACKAGE = FeedSystemApplication.class.getPackageName();
+
+    // resolved on first use: a BeanPostProcessor must not pull the registry (and its dependencies) in early
+    private final Supplier<MeterRegistry> meterRegistry;
+
+    public MethodMetricsPostProcessor(ObjectProvider<MeterRegistry> meterRegistry) {
+        this.meterRegistry = SingletonSupplier.of(meterRegistry::getObject);
+    }
+
+    @Override
+    public Object postProcessAfterInitialization(Object bean, String beanName) {
+        Timing timing = timingFor(bean);
+        if (timing == null) {
+            return bean;
+        }
+
+        // already a proxy (Spring Data repositories, exception translation): add the timing as outermost advice
+        if (bean instanceof Advised advised && !advised.isFrozen()) {
+            advised.addAdvice(0, timing);
+            return bean;
+        }
+
+        // class proxy: controllers and services inject some of these by their concrete type
+        ProxyFactory proxyFactory = new ProxyFactory(bean);
+        proxyFactory.setProxyTargetClass(!Proxy.isProxyClass(bean.getClass()));
+        proxyFactory.addAdvice(timing);
+        return proxyFactory.getProxy();
+    }
+
+    /**
+     * The interceptor for a bean of this application, or null when the bean is not timed.
+     */
+    private Timing timingFor(Object bean) {
+        if (bean instanceof org.springframework.data.repository.Repository<?, ?>) {
+            return applicationInterface(bean)
+                    .map(repositoryInterface -> new Timing("feed.repository", "repository",
+                            repositoryInterface.getSimpleName()))
+                    .orElse(null);
+        }
+
+        Class<?> type = ClassUtils.getUserClass(bean);
+        if (!type.getPackageName().startsWith(BASE_PACKAGE) || Modifier.isFinal(type.getModifiers())) {
+            return null;
+        }
+        if (AnnotatedElementUtils.hasAnnotation(type, Service.class)) {
+            return new Timing("feed.service", "service", type.getSimpleName());
+        }
+        if (AnnotatedElementUtils.hasAnnotation(type, Repository.class)) {
+            return new Timing("feed.repository", "repository", type.getSimpleName());
+        }
+        return null;
+    }
+
+    private static Optional<Class<?>> applicationInterface(Object bean) {
+        return ClassUtils.getAllInterfacesAsSet(bean).stream()
+                .filter(candidate -> candidate.getPackageName().startsWith(BASE_PACKAGE))
+                .findFirst();
+    }
+
+    private final class Timing implements MethodInterceptor {
+
+        private final String metric;
+        private final String ownerTag;
+        private final String owner;
+
+        Timing(String metric, String ownerTag, String owner) {
+            this.metric = metric;
+            this.ownerTag = ownerTag;
+            this.owner = owner;
+        }
+
+        @Override
+        public Object invoke(MethodInvocation invocation) throws Throwable {
+            String method = invocation.getMethod().getName();
+            if (invocation.getMethod().getDeclaringClass() == Object.class) {
+                return invocation.proceed();
+            }
+
+            Timer.Sample sample = Timer.start(meterRegistry.get());
+            Object result;
+            try {
+                result = invocation.proceed();
+            } catch (Throwable e) {
+                sample.stop(timer(method, "error"));
+                throw e;
+            }
+
+            // reactive: the call only assembled the pipeline, time the subscription instead
+            if (result instanceof Mono<?> mono) {
+                return Mono.defer(() -> {
+                    Timer.Sample subscribed = Timer.start(meterRegistry.get());
+                    return mono.doFinally(signal -> subscribed.stop(timer(method, FeedMetrics.outcome(signal))));
+                });
+            }
+            if (result instanceof Flux<?> flux) {
+                return Flux.defer(() -> {
+                    Timer.Sample subscribed = Timer.start(meterRegistry.get());
+                    return flux.doFinally(signal -> subscribed.stop(timer(method, FeedMetrics.outcome(signal))));
+                });
+            }
+
+            sample.stop(timer(method, "success"));
+            return result;
+        }
+
+        private Timer timer(String method, String outcome) {
+            return Timer.builder(metric)
+                    .tag(ownerTag, owner)
+                    .tag("method", method)
+                    .tag("outcome", outcome)
+                    .register(meterRegistry.get());
+        }
+    }
+}
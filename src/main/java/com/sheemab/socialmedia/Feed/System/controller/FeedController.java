@@ -1,15 +1,32 @@
 package com.sheemab.socialmedia.Feed.System.controller;
 
 
+import com.sheemab.socialmedia.Feed.System.dto.FeedOrder;
+import com.sheemab.socialmedia.Feed.System.dto.FeedView;
 import com.sheemab.socialmedia.Feed.System.dto.PostResponseDto;
+import com.sheemab.socialmedia.Feed.System.dto.StreamPageDto;
+import com.sheemab.socialmedia.Feed.System.service.IFeedVersionService;
+import com.sheemab.socialmedia.Feed.System.service.ILiveFeedService;
 import com.sheemab.socialmedia.Feed.System.service.Impl.FeedService;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.Parameter;
+import io.swagger.v3.oas.annotations.responses.ApiResponse;
+import io.swagger.v3.oas.annotations.responses.ApiResponses;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import lombok.RequiredArgsConstructor;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.http.codec.ServerSentEvent;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.server.ServerWebExchange;
 import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.util.List;
+import java.util.function.Supplier;
 
 @RestController
 @RequestMapping("/api/feed")
@@ -17,17 +34,136 @@ import reactor.core.publisher.Flux;
 @Tag(name = "Feed", description = "Endpoints for fetching user feed")
 public class FeedController {
 
+    /**
+     * Response header carrying the opaque cursor of the next (older) page; absent on the last page.
+     */
+    public static final String NEXT_CURSOR_HEADER = "X-Next-Cursor";
+
     private final FeedService feedService;
+    private final ILiveFeedService liveFeedService;
+    private final IFeedVersionService feedVersionService;
 
     @Operation(
             summary = "Get user feed",
-            description = "Returns a list of posts from users followed by the given user."
+            description = "Returns one page of posts from users followed by the given user, newest first. "
+                    + "Pass the " + NEXT_CURSOR_HEADER + " response header back as 'cursor' to get the next page. "
+                    + "Chronological pages carry an ETag (the user's feed version): send it back as If-None-Match "
+                    + "to get 304 Not Modified while nothing in the feed has changed."
     )
+    @ApiResponses({
+            @ApiResponse(responseCode = "200", description = "Feed page"),
+            @ApiResponse(responseCode = "304", description = "Feed unchanged since the ETag sent in If-None-Match")
+    })
     @GetMapping(value = "/{userId}", produces = MediaType.APPLICATION_JSON_VALUE)
-    public Flux<PostResponseDto> getUserFeed(
+    public Mono<ResponseEntity<List<PostResponseDto>>> getUserFeed(
+            @Parameter(description = "ID of the user whose feed is to be fetched")
+            @PathVariable String userId,
+            @Parameter(description = "Maximum number of posts in the page")
+            @RequestParam(required = false) Integer limit,
+            @Parameter(description = "Opaque cursor returned by the previous page")
+            @RequestParam(required = false) String cursor,
+            @Parameter(description = "SUMMARY = counts + most recent likes/comments, FULL = every like and comment")
+            @RequestParam(defaultValue = "SUMMARY") FeedView view,
+            @Parameter(description = "CHRONOLOGICAL = newest first, RANKED = best scored recent posts (single page)")
+            @RequestParam(defaultValue = "CHRONOLOGICAL") FeedOrder order,
+            @Parameter(description = "Also tell for each post whether this user has liked it (likedByViewer)")
+            @RequestParam(defaultValue = "false") boolean viewerState,
+            ServerWebExchange exchange) {
+        return ifFeedChanged(userId, order, representation(view, viewerState, "json"), exchange, () ->
+                feedService.getUserFeed(userId, limit, cursor, view, order, viewerState)
+                        .map(page -> {
+                            ResponseEntity.BodyBuilder response = ResponseEntity.ok();
+                            if (page.getNextCursor() != null) {
+                                response.header(NEXT_CURSOR_HEADER, page.getNextCursor());
+                            }
+                            return response.body(page.getPosts());
+                        }));
+    }
+
+    @Operation(
+            summary = "Stream user feed",
+            description = "Same page as the JSON variant, but posts are written as soon as their small batch is hydrated: "
+                    + "one JSON object per line (application/x-ndjson) or one event per post (text/event-stream). "
+                    + "The " + NEXT_CURSOR_HEADER + " and ETag headers are set the same way."
+    )
+    @GetMapping(value = "/{userId}", produces = {MediaType.APPLICATION_NDJSON_VALUE, MediaType.TEXT_EVENT_STREAM_VALUE})
+    public Mono<ResponseEntity<Flux<PostResponseDto>>> streamUserFeed(
             @Parameter(description = "ID of the user whose feed is to be fetched")
+            @PathVariable String userId,
+            @Parameter(description = "Maximum number of posts in the page")
+            @RequestParam(required = false) Integer limit,
+            @Parameter(description = "Opaque cursor returned by the previous page")
+            @RequestParam(required = false) String cursor,
+            @Parameter(description = "SUMMARY = counts + most recent likes/comments, FULL = every like and comment")
+            @RequestParam(defaultValue = "SUMMARY") FeedView view,
+            @Parameter(description = "CHRONOLOGICAL = newest first, RANKED = best scored recent posts (single page)")
+            @RequestParam(defaultValue = "CHRONOLOGICAL") FeedOrder order,
+            @Parameter(description = "Also tell for each post whether this user has liked it (likedByViewer)")
+            @RequestParam(defaultValue = "false") boolean viewerState,
+            ServerWebExchange exchange) {
+        boolean events = exchange.getRequest().getHeaders().getAccept().stream()
+                .anyMatch(MediaType.TEXT_EVENT_STREAM::equalsTypeAndSubtype);
+        return ifFeedChanged(userId, order, representation(view, viewerState, events ? "sse" : "ndjson"), exchange, () ->
+                feedService.streamUserFeed(userId, limit, cursor, view, order, viewerState)
+                        .map(FeedController::toStreamResponse));
+    }
+
+    @Operation(
+            summary = "Subscribe to new posts",
+            description = "Server-sent events: one 'post' event (id = post id) for every new post of a followed user, "
+                    + "as it is created, plus a heartbeat comment on idle connections. Read the first page with "
+                    + "GET /api/feed/{userId} once, then keep this open instead of polling."
+    )
+    @GetMapping(value = "/{userId}/live", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public Flux<ServerSentEvent<PostResponseDto>> subscribeToFeed(
+            @Parameter(description = "ID of the user whose feed is to be followed")
             @PathVariable String userId) {
-        return feedService.getUserFeed(userId);
+        return liveFeedService.subscribe(userId);
+    }
+
+    /**
+     * Conditional GET on the user's feed version, checked before the feed is read:
+     * - If-None-Match matches the current version -> 304, the page is never loaded
+     * - otherwise the page is loaded and sent with the version as ETag
+     * The ETag also names the representation (view, viewer state, JSON or stream), which the same URL
+     * can be served in, so one never revalidates another.
+     * RANKED pages change as posts age, and feeds without a version (stamps disabled, Redis down)
+     * are always loaded and sent without an ETag.
+     */
+    private <T> Mono<ResponseEntity<T>> ifFeedChanged(String userId, FeedOrder order, String representation,
+                                                      ServerWebExchange exchange,
+                                                      Supplier<Mono<ResponseEntity<T>>> page) {
+        if (order == FeedOrder.RANKED) {
+            return page.get();
+        }
+
+        return feedVersionService.currentVersion(userId)
+                // weak: the same version may render slightly differently (e.g. a cached username)
+                .map(version -> "W/\"" + version + "-" + representation + "\"")
+                .flatMap(etag -> exchange.checkNotModified(etag)
+                        ? Mono.just(ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(etag).<T>build())
+                        : page.get().map(response -> ResponseEntity.status(response.getStatusCode())
+                                .headers(response.getHeaders())
+                                .eTag(etag)
+                                .varyBy(HttpHeaders.ACCEPT) // JSON and streams share the URL
+                                .cacheControl(CacheControl.noCache()) // clients may keep it, but must revalidate
+                                .body(response.getBody())))
+                .switchIfEmpty(Mono.defer(page));
     }
-}
 
+    private static String representation(FeedView view, boolean viewerState, String format) {
+        return view.name().toLowerCase() + (viewerState ? "-viewer" : "") + "-" + format;
+    }
+
+    /**
+     * 200 with the streamed items as body and the next cursor (if any) as header.
+     * Shared with the streaming user list endpoints.
+     */
+    static <T> ResponseEntity<Flux<T>> toStreamResponse(StreamPageDto<T> page) {
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok();
+        if (page.getNextCursor() != null) {
+            response.header(NEXT_CURSOR_HEADER, page.getNextCursor());
+        }
+        return response.body(page.getItems());
+    }
+}
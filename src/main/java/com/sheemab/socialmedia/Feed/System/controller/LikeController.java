@@ -12,6 +12,9 @@ import org.springframework.web.bind.annotation.*;
 import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 
+import java.util.List;
+import java.util.Map;
+
 @RestController
 @RequestMapping("/api/likes")
 @RequiredArgsConstructor
@@ -81,5 +84,19 @@ public class LikeController {
     ) {
         return likeService.hasUserLiked(postId, userId);
     }
+
+    @Operation(summary = "Check which of several posts a user has liked",
+            description = "One query for a whole feed page instead of one has-liked call per post")
+    @ApiResponses({
+            @ApiResponse(responseCode = "200", description = "postId -> true if the user has liked it"),
+            @ApiResponse(responseCode = "400", description = "Too many post ids")
+    })
+    @GetMapping("/users/{userId}/has-liked")
+    public Mono<Map<String, Boolean>> hasUserLikedPosts(
+            @PathVariable String userId,
+            @RequestParam List<String> postIds
+    ) {
+        return likeService.hasUserLikedPosts(userId, postIds);
+    }
 }
 
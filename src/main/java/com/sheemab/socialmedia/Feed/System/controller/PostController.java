@@ -1,20 +1,26 @@
 package com.sheemab.socialmedia.Feed.System.controller;
 
 import com.sheemab.socialmedia.Feed.System.dto.CommentResponseDto;
+import com.sheemab.socialmedia.Feed.System.dto.ExportPageDto;
+import com.sheemab.socialmedia.Feed.System.dto.ExportPartitionDto;
 import com.sheemab.socialmedia.Feed.System.dto.LikeResponseDto;
 import com.sheemab.socialmedia.Feed.System.dto.PostRequestDto;
 import com.sheemab.socialmedia.Feed.System.dto.PostResponseDto;
 import com.sheemab.socialmedia.Feed.System.service.IPostService;
 import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.Parameter;
 import io.swagger.v3.oas.annotations.responses.ApiResponse;
 import io.swagger.v3.oas.annotations.responses.ApiResponses;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import lombok.RequiredArgsConstructor;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 
+import java.util.List;
+
 @RestController
 @RequestMapping("/api/posts")
 @RequiredArgsConstructor
@@ -45,13 +51,48 @@ public class PostController {
                 .map(ResponseEntity::ok);
     }
 
-    @Operation(summary = "Get all posts")
+    @Operation(summary = "Get all posts",
+            deprecated = true,
+            description = "Returns the oldest feed.export.legacy-limit posts only; use /api/posts/export to read "
+                    + "every post. application/json returns one array; application/x-ndjson and text/event-stream "
+                    + "write each post as soon as it is read from the database")
     @ApiResponse(responseCode = "200", description = "Posts retrieved successfully")
-    @GetMapping
+    @GetMapping(produces = {MediaType.APPLICATION_JSON_VALUE, MediaType.APPLICATION_NDJSON_VALUE, MediaType.TEXT_EVENT_STREAM_VALUE})
     public Flux<PostResponseDto> getAllPosts() {
         return postService.getAllPosts();
     }
 
+    @Operation(summary = "Split the posts export into _id ranges",
+            description = "Returns adjacent ranges covering every post; read each one with /api/posts/export, "
+                    + "in parallel if you like")
+    @ApiResponse(responseCode = "200", description = "Export ranges")
+    @GetMapping("/export/partitions")
+    public Mono<List<ExportPartitionDto>> getExportPartitions(
+            @Parameter(description = "Wanted number of ranges (capped by feed.export.max-partitions)")
+            @RequestParam(defaultValue = "1") int count) {
+        return postService.getExportPartitions(count);
+    }
+
+    @Operation(summary = "Export one page of posts",
+            description = "Posts of the [from, to) _id range in _id order. Pass nextCursor back as 'cursor' "
+                    + "for the next page; store it to resume an interrupted export.")
+    @ApiResponses({
+            @ApiResponse(responseCode = "200", description = "Export page"),
+            @ApiResponse(responseCode = "400", description = "Invalid range or cursor")
+    })
+    @GetMapping("/export")
+    public Mono<ExportPageDto> exportPosts(
+            @Parameter(description = "First id of the range (inclusive); the whole collection when omitted")
+            @RequestParam(required = false) String from,
+            @Parameter(description = "End of the range (exclusive)")
+            @RequestParam(required = false) String to,
+            @Parameter(description = "nextCursor of the previous page")
+            @RequestParam(required = false) String cursor,
+            @Parameter(description = "Maximum number of posts in the page")
+            @RequestParam(required = false) Integer limit) {
+        return postService.exportPosts(from, to, cursor, limit);
+    }
+
     @Operation(summary = "Delete a post by ID")
     @ApiResponses({
             @ApiResponse(responseCode = "204", description = "Post deleted successfully"),
@@ -1,5 +1,6 @@
 package com.sheemab.socialmedia.Feed.System.controller;
 
+import com.sheemab.socialmedia.Feed.System.dto.UserPageDto;
 import com.sheemab.socialmedia.Feed.System.dto.UserRequestDto;
 import com.sheemab.socialmedia.Feed.System.dto.UserResponseDto;
 import com.sheemab.socialmedia.Feed.System.service.Impl.UserService;
@@ -9,11 +10,14 @@ import io.swagger.v3.oas.annotations.responses.ApiResponse;
 import io.swagger.v3.oas.annotations.responses.ApiResponses;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import lombok.RequiredArgsConstructor;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 
+import java.util.List;
+
 @RestController
 @RequestMapping("/api/users")
 @RequiredArgsConstructor
@@ -25,7 +29,8 @@ public class UserController {
     @Operation(summary = "Create a new user")
     @ApiResponses({
             @ApiResponse(responseCode = "200", description = "User created successfully"),
-            @ApiResponse(responseCode = "409", description = "User already exists")
+            @ApiResponse(responseCode = "400", description = "Username is blank or too long"),
+            @ApiResponse(responseCode = "409", description = "User already exists or username taken")
     })
     @PostMapping
     public Mono<ResponseEntity<UserResponseDto>> createUser(
@@ -34,6 +39,21 @@ public class UserController {
                 .map(ResponseEntity::ok);
     }
 
+    @Operation(summary = "Change a user's username")
+    @ApiResponses({
+            @ApiResponse(responseCode = "200", description = "Username updated successfully"),
+            @ApiResponse(responseCode = "400", description = "Username is blank or too long"),
+            @ApiResponse(responseCode = "404", description = "User not found"),
+            @ApiResponse(responseCode = "409", description = "Username taken")
+    })
+    @PutMapping("/{userId}/username")
+    public Mono<ResponseEntity<UserResponseDto>> updateUsername(
+            @PathVariable String userId,
+            @RequestParam @Parameter(description = "New username") String username) {
+        return userService.updateUsername(userId, username)
+                .map(ResponseEntity::ok);
+    }
+
     @Operation(summary = "Follow a user")
     @ApiResponses({
             @ApiResponse(responseCode = "200", description = "Followed successfully"),
@@ -60,22 +80,64 @@ public class UserController {
                 .thenReturn(ResponseEntity.ok().build());
     }
 
-    @Operation(summary = "Get following of this user")
+    @Operation(summary = "Get following of this user",
+            description = "One page, most recent follows first. Pass the " + FeedController.NEXT_CURSOR_HEADER
+                    + " response header back as 'cursor' to get the next page.")
     @ApiResponses({
             @ApiResponse(responseCode = "200", description = "List of following users")
     })
-    @GetMapping("/{userId}/following")
-    public Flux<UserResponseDto> getFollowing(@PathVariable String userId) {
-        return userService.getFollowing(userId);
+    @GetMapping(value = "/{userId}/following", produces = MediaType.APPLICATION_JSON_VALUE)
+    public Mono<ResponseEntity<List<UserResponseDto>>> getFollowing(
+            @PathVariable String userId,
+            @RequestParam(required = false) @Parameter(description = "Maximum number of users in the page") Integer limit,
+            @RequestParam(required = false) @Parameter(description = "Opaque cursor returned by the previous page") String cursor) {
+        return userService.getFollowing(userId, limit, cursor)
+                .map(UserController::toResponse);
     }
 
-    @Operation(summary = "Get followers of this user")
+    @Operation(summary = "Get followers of this user",
+            description = "One page, most recent followers first. Pass the " + FeedController.NEXT_CURSOR_HEADER
+                    + " response header back as 'cursor' to get the next page.")
     @ApiResponses({
             @ApiResponse(responseCode = "200", description = "List of followers")
     })
-    @GetMapping("/{userId}/followers")
-    public Flux<UserResponseDto> getFollowers(@PathVariable String userId) {
-        return userService.getFollowers(userId);
+    @GetMapping(value = "/{userId}/followers", produces = MediaType.APPLICATION_JSON_VALUE)
+    public Mono<ResponseEntity<List<UserResponseDto>>> getFollowers(
+            @PathVariable String userId,
+            @RequestParam(required = false) @Parameter(description = "Maximum number of users in the page") Integer limit,
+            @RequestParam(required = false) @Parameter(description = "Opaque cursor returned by the previous page") String cursor) {
+        return userService.getFollowers(userId, limit, cursor)
+                .map(UserController::toResponse);
+    }
+
+    @Operation(summary = "Stream following of this user",
+            description = "Same page as the JSON variant, one user per line (application/x-ndjson) "
+                    + "or per event (text/event-stream), written as soon as it is loaded.")
+    @ApiResponses({
+            @ApiResponse(responseCode = "200", description = "Stream of following users")
+    })
+    @GetMapping(value = "/{userId}/following", produces = {MediaType.APPLICATION_NDJSON_VALUE, MediaType.TEXT_EVENT_STREAM_VALUE})
+    public Mono<ResponseEntity<Flux<UserResponseDto>>> streamFollowing(
+            @PathVariable String userId,
+            @RequestParam(required = false) @Parameter(description = "Maximum number of users in the page") Integer limit,
+            @RequestParam(required = false) @Parameter(description = "Opaque cursor returned by the previous page") String cursor) {
+        return userService.streamFollowing(userId, limit, cursor)
+                .map(FeedController::toStreamResponse);
+    }
+
+    @Operation(summary = "Stream followers of this user",
+            description = "Same page as the JSON variant, one user per line (application/x-ndjson) "
+                    + "or per event (text/event-stream), written as soon as it is loaded.")
+    @ApiResponses({
+            @ApiResponse(responseCode = "200", description = "Stream of followers")
+    })
+    @GetMapping(value = "/{userId}/followers", produces = {MediaType.APPLICATION_NDJSON_VALUE, MediaType.TEXT_EVENT_STREAM_VALUE})
+    public Mono<ResponseEntity<Flux<UserResponseDto>>> streamFollowers(
+            @PathVariable String userId,
+            @RequestParam(required = false) @Parameter(description = "Maximum number of users in the page") Integer limit,
+            @RequestParam(required = false) @Parameter(description = "Opaque cursor returned by the previous page") String cursor) {
+        return userService.streamFollowers(userId, limit, cursor)
+                .map(FeedController::toStreamResponse);
     }
 
     @Operation(summary = "Get count of followers")
@@ -95,5 +157,12 @@ public class UserController {
     public Mono<Integer> getFollowingCount(@PathVariable String userId) {
         return userService.getFollowingCount(userId);
     }
-}
 
+    private static ResponseEntity<List<UserResponseDto>> toResponse(UserPageDto page) {
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok();
+        if (page.getNextCursor() != null) {
+            response.header(FeedController.NEXT_CURSOR_HEADER, page.getNextCursor());
+        }
+        return response.body(page.getUsers());
+    }
+}
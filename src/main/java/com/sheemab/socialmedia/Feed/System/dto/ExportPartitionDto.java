@@ -0,0 +1,20 @@
+package com.sheemab.socialmedia.Feed.System.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * One _id range of the posts export. Ranges are adjacent and cover every possible id,
+ * so posts created after the split still land in the last one.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class ExportPartitionDto {
+    private int partition;
+    private String from; // inclusive
+    private String to;   // exclusive
+}
@@ -0,0 +1,52 @@
+package com.sheemab.socialmedia.Feed.System.dto;
+
+import com.sheemab.socialmedia.Feed.System.entity.Post;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.nio.charset.StandardCharsets;
+import java.time.DateTimeException;
+import java.time.LocalDateTime;
+import java.util.Base64;
+import java.util.Comparator;
+
+/**
+ * Keyset position inside a feed: the (createdAt, id) of the last post the client has seen.
+ * Clients only ever see the opaque base64 form produced by {@link #encode()}.
+ */
+public record FeedCursor(LocalDateTime createdAt, String id) {
+
+    /**
+     * Feed order = keyset order: createdAt desc, then id desc.
+     */
+    public static final Comparator<Post> NEWEST_FIRST =
+            Comparator.comparing(Post::getCreatedAt).thenComparing(Post::getId).reversed();
+
+    private static final char SEPARATOR = '|';
+
+    public static FeedCursor of(Post post) {
+        return new FeedCursor(post.getCreatedAt(), post.getId());
+    }
+
+    public String encode() {
+        String raw = createdAt.toString() + SEPARATOR + id;
+        return Base64.getUrlEncoder().withoutPadding()
+                .encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Decode a cursor received from a client.
+     * Anything that was not produced by encode() is rejected with 400 Bad Request.
+     */
+    public static FeedCursor decode(String cursor) {
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            int separator = raw.lastIndexOf(SEPARATOR);
+            return new FeedCursor(
+                    LocalDateTime.parse(raw.substring(0, separator)),
+                    raw.substring(separator + 1));
+        } catch (IllegalArgumentException | DateTimeException | IndexOutOfBoundsException e) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Invalid feed cursor");
+        }
+    }
+}
@@ -0,0 +1,11 @@
+package com.sheemab.socialmedia.Feed.System.dto;
+
+/**
+ * Order of the posts in a feed page.
+ * CHRONOLOGICAL = newest first, paginated with a cursor
+ * RANKED        = best scored posts among the newest feed.ranking.candidate-window candidates; a single page
+ */
+public enum FeedOrder {
+    CHRONOLOGICAL,
+    RANKED
+}
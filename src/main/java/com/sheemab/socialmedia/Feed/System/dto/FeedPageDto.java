@@ -0,0 +1,17 @@
+package com.sheemab.socialmedia.Feed.System.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class FeedPageDto {
+    private List<PostResponseDto> posts;
+    private String nextCursor; // null when there are no older posts
+}
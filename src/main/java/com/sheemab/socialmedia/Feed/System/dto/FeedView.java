@@ -0,0 +1,11 @@
+package com.sheemab.socialmedia.Feed.System.dto;
+
+/**
+ * How much of each post's engagement the feed carries.
+ * SUMMARY = counts + the few most recent likes and comments (feed.summary.preview-size)
+ * FULL    = counts + every like and comment
+ */
+public enum FeedView {
+    SUMMARY,
+    FULL
+}
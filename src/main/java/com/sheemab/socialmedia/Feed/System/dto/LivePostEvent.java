@@ -0,0 +1,16 @@
+package com.sheemab.socialmedia.Feed.System.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * A newly created post, as published on the live feed channel.
+ * post.id is used as SSE event id, post.userId is the author.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class LivePostEvent {
+    private PostResponseDto post;
+}
@@ -1,5 +1,6 @@
 package com.sheemab.socialmedia.Feed.System.dto;
 
+import com.fasterxml.jackson.annotation.JsonInclude;
 import lombok.AllArgsConstructor;
 import lombok.Data;
 import lombok.NoArgsConstructor;
@@ -13,6 +14,7 @@ import java.util.List;
 @NoArgsConstructor
 @Data
 public class PostResponseDto {
+    private String id;       // post id (viewer-state lookups, likes, comments)
     private String userId;   // who created this post
     private String content;  // text, image URL etc
     private LocalDateTime createdAt;
@@ -20,4 +22,8 @@ public class PostResponseDto {
     private List<CommentResponseDto> comments ;   // number of comments
     private int likeCount;
     private int commentCount;
+
+    // only set when the viewer state was asked for; left out of the JSON otherwise
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    private Boolean likedByViewer;
 }
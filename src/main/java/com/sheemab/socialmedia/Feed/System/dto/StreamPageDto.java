@@ -0,0 +1,16 @@
+package com.sheemab.socialmedia.Feed.System.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import reactor.core.publisher.Flux;
+
+/**
+ * One page whose items are emitted as they are hydrated (NDJSON / SSE endpoints).
+ * The page boundaries are known before the first item, so the next cursor can still go into a header.
+ */
+@Data
+@AllArgsConstructor
+public class StreamPageDto<T> {
+    private Flux<T> items;
+    private String nextCursor; // null on the last page
+}
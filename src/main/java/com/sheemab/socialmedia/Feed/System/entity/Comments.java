@@ -2,6 +2,7 @@ package com.sheemab.socialmedia.Feed.System.entity;
 
 import lombok.*;
 import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.index.CompoundIndex;
 import org.springframework.data.mongodb.core.mapping.Document;
 
 import java.time.LocalDateTime;
@@ -11,6 +12,8 @@ import java.time.LocalDateTime;
 @NoArgsConstructor
 @AllArgsConstructor
 @Document(collection = "comments")
+// comments of a post, most recent first; also serves counts and $in lookups by postId
+@CompoundIndex(name = "post_commented_at", def = "{ 'postId': 1, 'commentedAt': -1 }")
 public class Comments {
 
     @Id
@@ -0,0 +1,27 @@
+package com.sheemab.socialmedia.Feed.System.entity;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+import java.time.LocalDateTime;
+
+/**
+ * A one-time job (migration, backfill) that has completed, so no instance runs it again.
+ * Kept next to the data it changed: flushing Redis (locks, caches) must not make a migration run twice.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@Document(collection = "completed_jobs")
+public class CompletedJob {
+
+    @Id
+    private String name;            // the job's lock name
+
+    private LocalDateTime completedAt;
+}
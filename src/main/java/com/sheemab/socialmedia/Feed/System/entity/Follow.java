@@ -0,0 +1,39 @@
+package com.sheemab.socialmedia.Feed.System.entity;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.index.CompoundIndex;
+import org.springframework.data.mongodb.core.index.CompoundIndexes;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+import java.time.LocalDateTime;
+
+/**
+ * One edge of the follow graph: followerId follows followeeId.
+ * Kept out of the User document so loading a user never pulls in its follower/following ids.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@Document(collection = "follows")
+@CompoundIndexes({
+        // one edge per pair; also serves "does A follow B" lookups
+        @CompoundIndex(name = "follower_followee", def = "{ 'followerId': 1, 'followeeId': 1 }", unique = true),
+        // "who does A follow", newest first (paginated by _id)
+        @CompoundIndex(name = "follower_id", def = "{ 'followerId': 1, '_id': -1 }"),
+        // "who follows B", newest first (paginated by _id) and fan-out
+        @CompoundIndex(name = "followee_id", def = "{ 'followeeId': 1, '_id': -1 }")
+})
+public class Follow {
+
+    @Id
+    private String id;
+
+    private String followerId;      // who follows
+    private String followeeId;      // who is followed
+    private LocalDateTime followedAt;
+}
@@ -6,6 +6,8 @@ import lombok.Data;
 import lombok.NoArgsConstructor;
 import org.springframework.data.annotation.CreatedDate;
 import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.index.CompoundIndex;
+import org.springframework.data.mongodb.core.index.CompoundIndexes;
 import org.springframework.data.mongodb.core.mapping.Document;
 
 import java.time.LocalDateTime;
@@ -15,6 +17,12 @@ import java.time.LocalDateTime;
 @NoArgsConstructor
 @AllArgsConstructor
 @Document(collection = "likes")
+@CompoundIndexes({
+        // one like per user and post; also serves all "likes of a post" lookups
+        @CompoundIndex(name = "post_user", def = "{ 'postId': 1, 'userId': 1 }", unique = true),
+        // most recent likes of a post (feed summary preview)
+        @CompoundIndex(name = "post_liked_at", def = "{ 'postId': 1, 'likedAt': -1 }")
+})
 public class Likes {
     @Id
     private String likeId;        // Unique ID for the like (Mongo will auto-generate if null)
@@ -6,6 +6,7 @@ import lombok.Data;
 import lombok.NoArgsConstructor;
 import org.springframework.data.annotation.CreatedDate;
 import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.index.CompoundIndex;
 import org.springframework.data.mongodb.core.mapping.Document;
 
 import java.time.LocalDateTime;
@@ -16,6 +17,8 @@ import java.util.List;
 @Builder
 @Data
 @Document(collection = "posts")
+// feed queries: posts of one or more authors, newest first, keyset on (createdAt, _id)
+@CompoundIndex(name = "user_created", def = "{ 'userId': 1, 'createdAt': -1, '_id': -1 }")
 public class Post {
 
     @Id
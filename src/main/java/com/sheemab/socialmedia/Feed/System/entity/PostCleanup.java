@@ -0,0 +1,31 @@
+package com.sheemab.socialmedia.Feed.System.entity;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.index.Indexed;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+import java.time.LocalDateTime;
+
+/**
+ * A deleted post whose likes, comments and timeline entries still have to be removed.
+ * Written before the post is deleted and removed once the cleanup is done, so a crash
+ * in between only means the cleanup runs again.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@Document(collection = "post_cleanups")
+public class PostCleanup {
+    @Id
+    private String postId;          // the deleted post
+
+    private String authorId;        // whose followers' timelines may still list the post
+
+    @Indexed                        // oldest jobs first
+    private LocalDateTime deletedAt;
+}
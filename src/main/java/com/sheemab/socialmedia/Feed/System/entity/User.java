@@ -3,11 +3,9 @@ package com.sheemab.socialmedia.Feed.System.entity;
 import jdk.jfr.DataAmount;
 import lombok.*;
 import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.index.Indexed;
 import org.springframework.data.mongodb.core.mapping.Document;
 
-import java.util.HashSet;
-import java.util.Set;
-
 @Document(collection = "users")
 @AllArgsConstructor
 @NoArgsConstructor
@@ -17,31 +15,13 @@ public class User {
 
     @Id
     private String id;
+    @Indexed(unique = true, sparse = true) // one user per username (sign-up and rename); sparse: older users may have none
     private String username;
+    @Indexed // existsByEmail() on every sign-up
     private String email;
 
-    @Builder.Default
-    private Set<String> followers = new HashSet<>();
-
-    @Builder.Default
-    private Set<String> following = new HashSet<>();
-    //By default, Lombok ignores these initial values when building the object, unless you explicitly tell it to keep them.
-
-
-    // --- helper methods ---
-    public void follow(String userId) {
-        following.add(userId);
-    }
-
-    public void addFollower(String userId) {
-        followers.add(userId);
-    }
-
-    public void unfollow(String userId) {
-        following.remove(userId);
-    }
-
-    public void removeFollower(String userId) {
-       followers.remove(userId);
-    }
+    // The follow graph itself lives in the "follows" collection (see Follow);
+    // only its sizes are kept here, updated atomically with $inc.
+    private int followersCount;
+    private int followingCount;
 }
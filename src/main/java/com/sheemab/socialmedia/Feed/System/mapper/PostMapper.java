@@ -0,0 +1,61 @@
+package com.sheemab.socialmedia.Feed.System.mapper;
+
+import com.sheemab.socialmedia.Feed.System.dto.CommentResponseDto;
+import com.sheemab.socialmedia.Feed.System.dto.LikeResponseDto;
+import com.sheemab.socialmedia.Feed.System.dto.PostResponseDto;
+import com.sheemab.socialmedia.Feed.System.entity.Comments;
+import com.sheemab.socialmedia.Feed.System.entity.Likes;
+import com.sheemab.socialmedia.Feed.System.entity.Post;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Post -> PostResponseDto without reflection.
+ * Produces exactly what ModelMapper produced for these types (see MapperEquivalenceTest):
+ * embedded likes/comments keep their dates, but get no username (the entities only carry a userId).
+ */
+@Component
+public class PostMapper {
+
+    public PostResponseDto toPostResponseDto(Post post) {
+        PostResponseDto dto = new PostResponseDto();
+        dto.setId(post.getId());
+        dto.setUserId(post.getUserId());
+        dto.setContent(post.getContent());
+        dto.setCreatedAt(post.getCreatedAt());
+        dto.setLikes(toLikeResponseDtos(post.getLikes()));
+        dto.setComments(toCommentResponseDtos(post.getComments()));
+        dto.setLikeCount(post.getLikeCount());
+        dto.setCommentCount(post.getCommentCount());
+        return dto;
+    }
+
+    private List<LikeResponseDto> toLikeResponseDtos(List<Likes> likes) {
+        if (likes == null) {
+            return null;
+        }
+        List<LikeResponseDto> dtos = new ArrayList<>(likes.size());
+        for (Likes like : likes) {
+            LikeResponseDto dto = new LikeResponseDto();
+            dto.setLikedAt(like.getLikedAt());
+            dtos.add(dto);
+        }
+        return dtos;
+    }
+
+    private List<CommentResponseDto> toCommentResponseDtos(List<Comments> comments) {
+        if (comments == null) {
+            return null;
+        }
+        List<CommentResponseDto> dtos = new ArrayList<>(comments.size());
+        for (Comments comment : comments) {
+            CommentResponseDto dto = new CommentResponseDto();
+            dto.setText(comment.getText());
+            dto.setCommentedAt(comment.getCommentedAt());
+            dtos.add(dto);
+        }
+        return dtos;
+    }
+}
@@ -0,0 +1,16 @@
+package com.sheemab.socialmedia.Feed.System.mapper;
+
+import com.sheemab.socialmedia.Feed.System.dto.UserResponseDto;
+import com.sheemab.socialmedia.Feed.System.entity.User;
+import org.springframework.stereotype.Component;
+
+/**
+ * User -> UserResponseDto without reflection.
+ */
+@Component
+public class UserMapper {
+
+    public UserResponseDto toUserResponseDto(User user) {
+        return new UserResponseDto(user.getId(), user.getUsername());
+    }
+}
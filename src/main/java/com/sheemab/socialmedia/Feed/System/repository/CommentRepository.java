@@ -1,16 +1,33 @@
 package com.sheemab.socialmedia.Feed.System.repository;
 
 import com.sheemab.socialmedia.Feed.System.entity.Comments;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.mongodb.repository.Query;
 import org.springframework.data.mongodb.repository.ReactiveMongoRepository;
 import org.springframework.stereotype.Repository;
 import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 
+import java.util.Collection;
+
 @Repository
 public interface CommentRepository extends ReactiveMongoRepository<Comments, String> {
     Flux<Comments> findByPostIdOrderByCommentedAtDesc(String postId);
 
+    // most recent comments of a post, bounded by the pageable (feed summary preview)
+    Flux<Comments> findByPostIdOrderByCommentedAtDesc(String postId, Pageable pageable);
+
     Mono<Long> countByPostId(String postId);
 
+    // returns the number of deleted comments so the post counter can be decremented by exactly that
+    Mono<Long> deleteByCommentId(String commentId);
+
     Flux<Comments> findByPostId(String postId);
+
+    // ids only, one batch of the comments of a deleted post (cleanup)
+    @Query(value = "{ 'postId': ?0 }", fields = "{ '_id': 1 }")
+    Flux<Comments> findIdsByPostId(String postId, Pageable pageable);
+
+    // comments of several posts in one $in query (feed page hydration)
+    Flux<Comments> findByPostIdIn(Collection<String> postIds);
 }
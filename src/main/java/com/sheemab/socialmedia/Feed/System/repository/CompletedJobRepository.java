@@ -0,0 +1,9 @@
+package com.sheemab.socialmedia.Feed.System.repository;
+
+import com.sheemab.socialmedia.Feed.System.entity.CompletedJob;
+import org.springframework.data.mongodb.repository.ReactiveMongoRepository;
+import org.springframework.stereotype.Repository;
+
+@Repository
+public interface CompletedJobRepository extends ReactiveMongoRepository<CompletedJob, String> {
+}
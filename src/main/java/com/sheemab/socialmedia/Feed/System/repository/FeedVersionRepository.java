@@ -0,0 +1,136 @@
+package com.sheemab.socialmedia.Feed.System.repository;
+
+import com.sheemab.socialmedia.Feed.System.config.FeedProperties;
+import lombok.RequiredArgsConstructor;
+import org.springframework.data.redis.core.ReactiveStringRedisTemplate;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.stereotype.Repository;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Redis side of the feed version stamps: one counter per user, bumped whenever something in that
+ * user's feed may have changed, plus a set of posts whose likes/comments changed since the last flush.
+ * A missing counter starts at the current time in milliseconds, so a counter lost with Redis data
+ * never comes back with a value an old client still holds.
+ * Every post also remembers the viewers that were served a page containing it, so an engagement change
+ * only bumps the viewers that can actually hold it.
+ */
+@Repository
+@RequiredArgsConstructor
+public class FeedVersionRepository {
+
+    // INCR, except that a missing key starts at ARGV[1] instead of 1
+    private static final RedisScript<Long> BUMP = RedisScript.of("""
+            if redis.call('EXISTS', KEYS[1]) == 1 then
+                return redis.call('INCR', KEYS[1])
+            end
+            redis.call('SET', KEYS[1], ARGV[1])
+            return tonumber(ARGV[1])
+            """, Long.class);
+
+    // KEYS[1] = viewer's version, then (viewers set, recently-changed marker) per post; ARGV = viewer, ttl, now
+    // A post that changed while the page was being read may have been flushed before the viewer was added:
+    // bump the viewer right away then, the page it is about to get may already be outdated.
+    private static final RedisScript<Long> REGISTER = RedisScript.of("""
+            local changed = false
+            for i = 2, #KEYS, 2 do
+                redis.call('SADD', KEYS[i], ARGV[1])
+                redis.call('EXPIRE', KEYS[i], ARGV[2])
+                if redis.call('EXISTS', KEYS[i + 1]) == 1 then
+                    changed = true
+                end
+            end
+            if changed then
+                if redis.call('EXISTS', KEYS[1]) == 1 then
+                    redis.call('INCR', KEYS[1])
+                else
+                    redis.call('SET', KEYS[1], ARGV[3])
+                end
+            end
+            return 0
+            """, Long.class);
+
+    // longer than any page read takes from selecting its posts to registering its viewer
+    private static final Duration RECENT_CHANGE = Duration.ofSeconds(30);
+
+    private final ReactiveStringRedisTemplate redisTemplate;
+    private final FeedProperties feedProperties;
+
+    /**
+     * The current stamp of a user's feed, created if the user has none yet.
+     */
+    public Mono<String> current(String userId) {
+        String key = versionKey(userId);
+        return redisTemplate.opsForValue().get(key)
+                .switchIfEmpty(redisTemplate.opsForValue()
+                        .setIfAbsent(key, String.valueOf(System.currentTimeMillis()))
+                        // lost the race to another request -> read what it wrote
+                        .then(redisTemplate.opsForValue().get(key)));
+    }
+
+    public Mono<Void> bump(String userId) {
+        return redisTemplate.execute(BUMP, List.of(versionKey(userId)), List.of(String.valueOf(System.currentTimeMillis())))
+                .then();
+    }
+
+    public Mono<Void> markPostChanged(String postId) {
+        return redisTemplate.opsForSet().add(changedPostsKey(), postId).then();
+    }
+
+    /**
+     * Remove and return up to count changed posts.
+     */
+    public Flux<String> popChangedPosts(int count) {
+        return redisTemplate.opsForSet().pop(changedPostsKey(), count);
+    }
+
+    /**
+     * Remember that viewerId was served a page with these posts, for ttl.
+     */
+    public Mono<Void> registerViewer(String viewerId, List<String> postIds, Duration ttl) {
+        List<String> keys = new ArrayList<>(1 + 2 * postIds.size());
+        keys.add(versionKey(viewerId));
+        for (String postId : postIds) {
+            keys.add(viewersKey(postId));
+            keys.add(recentChangeKey(postId));
+        }
+        return redisTemplate.execute(REGISTER, keys,
+                        List.of(viewerId, String.valueOf(ttl.toSeconds()), String.valueOf(System.currentTimeMillis())))
+                .then();
+    }
+
+    /**
+     * Set before the viewers of a changed post are popped, see REGISTER.
+     */
+    public Mono<Void> markRecentlyChanged(String postId) {
+        return redisTemplate.opsForValue().set(recentChangeKey(postId), "1", RECENT_CHANGE).then();
+    }
+
+    /**
+     * Remove and return up to count viewers of a post.
+     */
+    public Flux<String> popViewers(String postId, int count) {
+        return redisTemplate.opsForSet().pop(viewersKey(postId), count);
+    }
+
+    private String viewersKey(String postId) {
+        return feedProperties.getVersions().getKeyPrefix() + "viewers:" + postId;
+    }
+
+    private String recentChangeKey(String postId) {
+        return feedProperties.getVersions().getKeyPrefix() + "changed:" + postId;
+    }
+
+    private String versionKey(String userId) {
+        return feedProperties.getVersions().getKeyPrefix() + userId;
+    }
+
+    private String changedPostsKey() {
+        return feedProperties.getVersions().getKeyPrefix() + "changed-posts";
+    }
+}
@@ -0,0 +1,42 @@
+package com.sheemab.socialmedia.Feed.System.repository;
+
+import com.sheemab.socialmedia.Feed.System.entity.Follow;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.mongodb.repository.Query;
+import org.springframework.data.mongodb.repository.ReactiveMongoRepository;
+import org.springframework.stereotype.Repository;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.util.Collection;
+
+@Repository
+public interface FollowRepository extends ReactiveMongoRepository<Follow, String> {
+
+    // every account a user follows (pull feed); only followeeId is loaded
+    @Query(value = "{ 'followerId': ?0 }", fields = "{ 'followeeId': 1 }")
+    Flux<Follow> findByFollowerId(String followerId);
+
+    // every follower of an account (fan-out); only followerId is loaded
+    @Query(value = "{ 'followeeId': ?0 }", fields = "{ 'followerId': 1 }")
+    Flux<Follow> findByFolloweeId(String followeeId);
+
+    // which of the given accounts a user follows
+    Flux<Follow> findByFollowerIdAndFolloweeIdIn(String followerId, Collection<String> followeeIds);
+
+    // which of the given accounts follow a user back (ranked feed author affinity)
+    Flux<Follow> findByFolloweeIdAndFollowerIdIn(String followeeId, Collection<String> followerIds);
+
+    // paginated following list, newest edges first; the last edge id is the cursor
+    Flux<Follow> findByFollowerIdOrderByIdDesc(String followerId, Pageable pageable);
+
+    Flux<Follow> findByFollowerIdAndIdLessThanOrderByIdDesc(String followerId, String id, Pageable pageable);
+
+    // paginated followers list, newest edges first
+    Flux<Follow> findByFolloweeIdOrderByIdDesc(String followeeId, Pageable pageable);
+
+    Flux<Follow> findByFolloweeIdAndIdLessThanOrderByIdDesc(String followeeId, String id, Pageable pageable);
+
+    // returns the number of deleted edges so the counters are only decremented when an edge existed
+    Mono<Long> deleteByFollowerIdAndFolloweeId(String followerId, String followeeId);
+}
@@ -0,0 +1,174 @@
+package com.sheemab.socialmedia.Feed.System.repository;
+
+import com.sheemab.socialmedia.Feed.System.config.FeedProperties;
+import lombok.RequiredArgsConstructor;
+import org.springframework.data.redis.core.ReactiveStringRedisTemplate;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.stereotype.Repository;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.util.Collection;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Redis side of the hot-post tier: for each promoted post, a set of the userIds that liked it
+ * plus a marker key saying whether that set is complete.
+ * Marker "warming:<token>" = the set is being filled from Mongo (writes go in, reads do not trust it yet),
+ * marker "ready"           = the set mirrors the likes collection and can answer reads.
+ * While warming, unlikes are also recorded as tombstones: the Mongo scan may have read the like before it
+ * was deleted and add it back, so the tombstones are removed from the set when it is marked ready.
+ * All keys expire, so a post leaves the tier on its own and is rebuilt from Mongo if it is still hot.
+ */
+@Repository
+@RequiredArgsConstructor
+public class HotPostRepository {
+
+    private static final String WARMING = "warming:";
+    private static final String READY = "ready";
+
+    // KEYS: marker, likers, tombstones; ARGV: userId, likers ttl (ms). Returns 0 when the post is not in the tier.
+    private static final RedisScript<Long> ADD_LIKER = RedisScript.of("""
+            local marker = redis.call('GET', KEYS[1])
+            if not marker then
+                return 0
+            end
+            redis.call('SADD', KEYS[2], ARGV[1])
+            if marker ~= 'ready' then
+                redis.call('SREM', KEYS[3], ARGV[1])
+                redis.call('PEXPIRE', KEYS[2], ARGV[2])
+            end
+            return 1
+            """, Long.class);
+
+    // KEYS: marker, likers, tombstones; ARGV: userId, tombstones ttl (ms)
+    private static final RedisScript<Long> REMOVE_LIKER = RedisScript.of("""
+            local marker = redis.call('GET', KEYS[1])
+            if not marker then
+                return 0
+            end
+            redis.call('SREM', KEYS[2], ARGV[1])
+            if marker ~= 'ready' then
+                redis.call('SADD', KEYS[3], ARGV[1])
+                redis.call('PEXPIRE', KEYS[3], ARGV[2])
+            end
+            return 1
+            """, Long.class);
+
+    // KEYS: marker, likers, tombstones; ARGV: warming token, marker ttl (ms), likers ttl (ms)
+    // compare-and-set: a promotion that was demoted (or timed out and claimed again) cannot mark the set ready
+    private static final RedisScript<Long> MARK_READY = RedisScript.of("""
+            if redis.call('GET', KEYS[1]) ~= ARGV[1] then
+                return 0
+            end
+            local unliked = redis.call('SMEMBERS', KEYS[3])
+            for i = 1, #unliked, 1000 do
+                redis.call('SREM', KEYS[2], unpack(unliked, i, math.min(i + 999, #unliked)))
+            end
+            redis.call('DEL', KEYS[3])
+            redis.call('PEXPIRE', KEYS[2], ARGV[3])
+            redis.call('SET', KEYS[1], 'ready', 'PX', ARGV[2])
+            return 1
+            """, Long.class);
+
+    // the likers set outlives its marker, so a "ready" marker never points at an expired set
+    private static final Duration LIKERS_GRACE = Duration.ofMinutes(1);
+
+    private final ReactiveStringRedisTemplate redisTemplate;
+    private final FeedProperties feedProperties;
+
+    /**
+     * Claim the promotion of a post. Only one caller (across all instances) gets a token, which it needs
+     * to mark the set ready. Empty likers and tombstone sets are started so leftovers of an earlier promotion
+     * do not leak in.
+     */
+    public Mono<String> startWarming(String postId) {
+        String token = WARMING + UUID.randomUUID();
+        return redisTemplate.opsForValue()
+                .setIfAbsent(markerKey(postId), token, settings().getWarmupTimeout())
+                .filter(Boolean::booleanValue)
+                .flatMap(claimed -> redisTemplate.delete(likersKey(postId), tombstonesKey(postId)).thenReturn(token));
+    }
+
+    public Mono<Void> addLikers(String postId, Collection<String> userIds) {
+        return redisTemplate.opsForSet().add(likersKey(postId), userIds.toArray(String[]::new))
+                .then(redisTemplate.expire(likersKey(postId), likersTtl()))
+                .then();
+    }
+
+    /**
+     * Apply the tombstones and mark the set ready, if this promotion still owns the marker.
+     *
+     * @return false if the promotion was superseded (demoted, or timed out and claimed again)
+     */
+    public Mono<Boolean> markReady(String postId, String token) {
+        return redisTemplate.execute(MARK_READY, keys(postId), List.of(token,
+                        String.valueOf(settings().getTtl().toMillis()),
+                        String.valueOf(likersTtl().toMillis())))
+                .next()
+                .map(marked -> marked == 1);
+    }
+
+    public Mono<Boolean> isReady(String postId) {
+        return redisTemplate.opsForValue().get(markerKey(postId))
+                .map(READY::equals)
+                .defaultIfEmpty(false);
+    }
+
+    /**
+     * Mirror a like, only while the post is in the tier (warming or ready); checked and written atomically.
+     */
+    public Mono<Void> addLiker(String postId, String userId) {
+        return redisTemplate.execute(ADD_LIKER, keys(postId), List.of(userId, String.valueOf(likersTtl().toMillis())))
+                .then();
+    }
+
+    /**
+     * Mirror an unlike; while warming it is also kept as a tombstone until the set is marked ready.
+     */
+    public Mono<Void> removeLiker(String postId, String userId) {
+        return redisTemplate.execute(REMOVE_LIKER, keys(postId),
+                        List.of(userId, String.valueOf(settings().getWarmupTimeout().toMillis())))
+                .then();
+    }
+
+    public Mono<Boolean> isLiker(String postId, String userId) {
+        return redisTemplate.opsForSet().isMember(likersKey(postId), userId);
+    }
+
+    public Mono<Long> likerCount(String postId) {
+        return redisTemplate.opsForSet().size(likersKey(postId));
+    }
+
+    /**
+     * Take a post out of the tier; reads go back to Mongo until it is promoted again.
+     */
+    public Mono<Void> demote(String postId) {
+        return redisTemplate.delete(markerKey(postId), likersKey(postId), tombstonesKey(postId)).then();
+    }
+
+    private Duration likersTtl() {
+        return settings().getTtl().plus(LIKERS_GRACE);
+    }
+
+    private List<String> keys(String postId) {
+        return List.of(markerKey(postId), likersKey(postId), tombstonesKey(postId));
+    }
+
+    private FeedProperties.HotPosts settings() {
+        return feedProperties.getHotPosts();
+    }
+
+    private String markerKey(String postId) {
+        return settings().getKeyPrefix() + postId;
+    }
+
+    private String likersKey(String postId) {
+        return settings().getKeyPrefix() + postId + ":likers";
+    }
+
+    private String tombstonesKey(String postId) {
+        return settings().getKeyPrefix() + postId + ":unliked";
+    }
+}
@@ -1,17 +1,42 @@
 package com.sheemab.socialmedia.Feed.System.repository;
 
 import com.sheemab.socialmedia.Feed.System.entity.Likes;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.mongodb.repository.Query;
 import org.springframework.data.mongodb.repository.ReactiveMongoRepository;
 import org.springframework.stereotype.Repository;
 import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 
+import java.util.Collection;
+
 @Repository
 public interface LikeRepository extends ReactiveMongoRepository<Likes, String> {
     Mono<Likes> findByPostIdAndUserId(String postId, String userId);
 
     Flux<Likes> findByPostId(String postId);
 
+    // likes of several posts in one $in query (feed page hydration)
+    Flux<Likes> findByPostIdIn(Collection<String> postIds);
+
     Mono<Integer> countByPostId(String postId);
 
+    // which of the given posts a user has liked (viewer state); only postId is read, straight from the index
+    @Query(value = "{ 'userId': ?0, 'postId': { $in: ?1 } }", fields = "{ 'postId': 1, '_id': 0 }")
+    Flux<Likes> findLikedPosts(String userId, Collection<String> postIds);
+
+    // every liker of a post (hot-post promotion); only userId is read, straight from the index
+    @Query(value = "{ 'postId': ?0 }", fields = "{ 'userId': 1, '_id': 0 }")
+    Flux<Likes> findLikersByPostId(String postId);
+
+    // most recent likes of a post, bounded by the pageable (feed summary preview)
+    Flux<Likes> findByPostIdOrderByLikedAtDesc(String postId, Pageable pageable);
+
+    // returns the number of deleted likes so the post counter can be decremented by exactly that
+    Mono<Long> deleteByPostIdAndUserId(String postId, String userId);
+
+    // ids only, one batch of the likes of a deleted post (cleanup)
+    @Query(value = "{ 'postId': ?0 }", fields = "{ '_id': 1 }")
+    Flux<Likes> findIdsByPostId(String postId, Pageable pageable);
+
 }
@@ -0,0 +1,68 @@
+package com.sheemab.socialmedia.Feed.System.repository;
+
+import com.sheemab.socialmedia.Feed.System.config.FeedProperties;
+import lombok.RequiredArgsConstructor;
+import org.springframework.data.redis.core.ReactiveStringRedisTemplate;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.stereotype.Repository;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Redis side of the cluster-wide job locks: one key per lock holding the holder's token (SET NX + expiry).
+ * The lock expires on its own, so an instance that dies while holding it blocks the job for one lease at most.
+ */
+@Repository
+@RequiredArgsConstructor
+public class LockRepository {
+
+    // only the holder (same token) may extend or release a lock; it may have expired and been taken since
+    private static final RedisScript<Long> EXTEND = RedisScript.of("""
+            if redis.call('GET', KEYS[1]) == ARGV[1] then
+                return redis.call('PEXPIRE', KEYS[1], ARGV[2])
+            end
+            return 0
+            """, Long.class);
+
+    private static final RedisScript<Long> RELEASE = RedisScript.of("""
+            if redis.call('GET', KEYS[1]) == ARGV[1] then
+                return redis.call('DEL', KEYS[1])
+            end
+            return 0
+            """, Long.class);
+
+    private final ReactiveStringRedisTemplate redisTemplate;
+    private final FeedProperties feedProperties;
+
+    /**
+     * Take the lock if nobody holds it.
+     *
+     * @return the token proving ownership, empty if another holder has the lock
+     */
+    public Mono<String> tryAcquire(String name, Duration lease) {
+        String token = UUID.randomUUID().toString();
+        return redisTemplate.opsForValue().setIfAbsent(lockKey(name), token, lease)
+                .filter(Boolean::booleanValue)
+                .map(acquired -> token);
+    }
+
+    /**
+     * @return false if the lock is no longer held with this token
+     */
+    public Mono<Boolean> extend(String name, String token, Duration lease) {
+        return redisTemplate.execute(EXTEND, List.of(lockKey(name)), List.of(token, String.valueOf(lease.toMillis())))
+                .next()
+                .map(extended -> extended == 1);
+    }
+
+    public Mono<Void> release(String name, String token) {
+        return redisTemplate.execute(RELEASE, List.of(lockKey(name)), List.of(token)).then();
+    }
+
+    private String lockKey(String name) {
+        return feedProperties.getLocks().getKeyPrefix() + name;
+    }
+}
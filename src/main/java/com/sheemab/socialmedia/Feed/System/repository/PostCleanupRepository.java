@@ -0,0 +1,23 @@
+package com.sheemab.socialmedia.Feed.System.repository;
+
+import com.sheemab.socialmedia.Feed.System.entity.PostCleanup;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.mongodb.repository.ReactiveMongoRepository;
+import org.springframework.stereotype.Repository;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.time.LocalDateTime;
+
+@Repository
+public interface PostCleanupRepository extends ReactiveMongoRepository<PostCleanup, String> {
+
+    // pending cleanups, oldest deletion first
+    Flux<PostCleanup> findByOrderByDeletedAtAsc(Pageable pageable);
+
+    // keyset: the pending cleanups deleted after the last job of the previous page
+    Flux<PostCleanup> findByDeletedAtAfterOrderByDeletedAtAsc(LocalDateTime deletedAt, Pageable pageable);
+
+    // drop a job only as it was read: a retried delete of the post records it again with a new deletedAt
+    Mono<Long> deleteByPostIdAndDeletedAt(String postId, LocalDateTime deletedAt);
+}
@@ -1,12 +1,74 @@
 package com.sheemab.socialmedia.Feed.System.repository;
 
 import com.sheemab.socialmedia.Feed.System.entity.Post;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.mongodb.repository.Query;
+import org.springframework.data.mongodb.repository.ReadPreference;
 import org.springframework.data.mongodb.repository.ReactiveMongoRepository;
+import org.springframework.data.mongodb.repository.Update;
 import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
 
+import java.time.LocalDateTime;
 import java.util.Set;
 
 public interface PostRepository extends ReactiveMongoRepository<Post, String> {
-    // fetch all posts for given users (followers)
-    Flux<Post> findByUserIdInOrderByCreatedAtDesc(Set<String> userIds);
+    // first page of posts for given users (followers), newest first; (createdAt, id) is the keyset
+    Flux<Post> findByUserIdInOrderByCreatedAtDescIdDesc(Set<String> userIds, Pageable pageable);
+
+    // next page: posts strictly older than the (createdAt, id) cursor, same order as above
+    @Query(value = "{ 'userId': { $in: ?0 }, $or: [ { 'createdAt': { $lt: ?1 } }, { 'createdAt': ?1, '_id': { $lt: ?2 } } ] }",
+            sort = "{ 'createdAt': -1, '_id': -1 }")
+    Flux<Post> findByUserIdInBefore(Set<String> userIds, LocalDateTime createdAt, String id, Pageable pageable);
+
+    // one author's posts, newest first (k-way merge engine reads one bounded stream per author)
+    Flux<Post> findByUserIdOrderByCreatedAtDescIdDesc(String userId, Pageable pageable);
+
+    @Query(value = "{ 'userId': ?0, $or: [ { 'createdAt': { $lt: ?1 } }, { 'createdAt': ?1, '_id': { $lt: ?2 } } ] }",
+            sort = "{ 'createdAt': -1, '_id': -1 }")
+    Flux<Post> findByUserIdBefore(String userId, LocalDateTime createdAt, String id, Pageable pageable);
+
+    // bounded read of the whole collection (legacy GET /api/posts)
+    Flux<Post> findAllBy(Pageable pageable);
+
+    // oldest / newest post, to split the export into _id ranges (_id index, ids only)
+    @Query(value = "{}", fields = "{ '_id': 1 }", sort = "{ '_id': 1 }")
+    Flux<Post> findOldestIds(Pageable pageable);
+
+    @Query(value = "{}", fields = "{ '_id': 1 }", sort = "{ '_id': -1 }")
+    Flux<Post> findNewestIds(Pageable pageable);
+
+    // export pages: one short, _id-ordered query per page instead of one cursor over the collection;
+    // read from a secondary when there is one, to keep analytics off the primary
+    @ReadPreference("secondaryPreferred")
+    @Query(value = "{ '_id': { $gte: ?0, $lt: ?1 } }", sort = "{ '_id': 1 }")
+    Flux<Post> findExportPage(String from, String to, Pageable pageable);
+
+    @ReadPreference("secondaryPreferred")
+    @Query(value = "{ '_id': { $gt: ?0, $lt: ?1 } }", sort = "{ '_id': 1 }")
+    Flux<Post> findExportPageAfter(String cursor, String to, Pageable pageable);
+
+    // only the denormalized counters of a post (projection, no content)
+    @Query(value = "{ '_id': ?0 }", fields = "{ 'likeCount': 1, 'commentCount': 1 }")
+    Mono<Post> findCountersById(String postId);
+
+    // counter reconciliation: the counters of the posts after an _id, one short _id-ordered query per page
+    @Query(value = "{ '_id': { $gt: ?0 } }", fields = "{ 'likeCount': 1, 'commentCount': 1 }", sort = "{ '_id': 1 }")
+    Flux<Post> findCountersAfter(String cursor, Pageable pageable);
+
+    // atomic $inc, safe under concurrent likes/unlikes; returns the number of posts updated (0 or 1)
+    @Query("{ '_id': ?0 }")
+    @Update("{ '$inc': { 'likeCount': ?1 } }")
+    Mono<Long> incrementLikeCount(String postId, int delta);
+
+    @Query("{ '_id': ?0 }")
+    @Update("{ '$inc': { 'commentCount': ?1 } }")
+    Mono<Long> incrementCommentCount(String postId, int delta);
+
+    // reconcile: overwrite both counters, but only if nobody changed them since they were read;
+    // null also matches posts written before the counters existed (read back as 0)
+    @Query("{ '_id': ?0, 'likeCount': { $in: [?1, null] }, 'commentCount': { $in: [?2, null] } }")
+    @Update("{ '$set': { 'likeCount': ?3, 'commentCount': ?4 } }")
+    Mono<Long> resetCounters(String postId, int expectedLikeCount, int expectedCommentCount,
+                             int likeCount, int commentCount);
 }
@@ -0,0 +1,99 @@
+package com.sheemab.socialmedia.Feed.System.repository;
+
+import com.sheemab.socialmedia.Feed.System.config.FeedProperties;
+import com.sheemab.socialmedia.Feed.System.dto.FeedCursor;
+import lombok.RequiredArgsConstructor;
+import org.springframework.data.domain.Range;
+import org.springframework.data.redis.connection.Limit;
+import org.springframework.data.redis.core.ReactiveStringRedisTemplate;
+import org.springframework.stereotype.Repository;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.Comparator;
+
+/**
+ * Materialized home timelines stored in Redis.
+ * Each user has one sorted set: member = postId, score = post creation time (epoch millis),
+ * so the newest posts are at the top and the set can be capped cheaply by rank.
+ */
+@Repository
+@RequiredArgsConstructor
+public class TimelineRepository {
+
+    private final ReactiveStringRedisTemplate redisTemplate;
+    private final FeedProperties feedProperties;
+
+    /**
+     * Add a post to a user's timeline and trim it back to the configured max size.
+     */
+    public Mono<Void> push(String userId, String postId, LocalDateTime createdAt) {
+        String key = key(userId);
+        long maxSize = feedProperties.getTimeline().getMaxSize();
+
+        return redisTemplate.opsForZSet().add(key, postId, score(createdAt))
+                // ZREMRANGEBYRANK key 0 -(max+1) -> drop everything older than the newest max entries
+                .then(redisTemplate.opsForZSet().removeRange(key, Range.closed(0L, -(maxSize + 1))))
+                .then();
+    }
+
+    /**
+     * Read one page of post ids from a user's timeline, newest first.
+     * With a cursor, only entries strictly older than (createdAt, id) are returned:
+     * first the entries sharing the cursor's score with a smaller id, then everything with a lower score.
+     * Equal-length ObjectId strings compare like the ids themselves, so this matches the Mongo keyset order.
+     */
+    public Flux<String> readPage(String userId, FeedCursor after, int count) {
+        String key = key(userId);
+
+        if (after == null) {
+            return redisTemplate.opsForZSet().reverseRange(key, Range.closed(0L, count - 1L));
+        }
+
+        double score = score(after.createdAt());
+
+        Flux<String> sameInstant = redisTemplate.opsForZSet().rangeByScore(key, Range.closed(score, score))
+                .filter(postId -> postId.compareTo(after.id()) < 0)
+                .sort(Comparator.reverseOrder());
+
+        Flux<String> older = redisTemplate.opsForZSet().reverseRangeByScore(key,
+                Range.of(Range.Bound.unbounded(), Range.Bound.exclusive(score)),
+                Limit.limit().count(count));
+
+        return sameInstant.concatWith(older).take(count);
+    }
+
+    /**
+     * Drop a deleted post from a user's timeline.
+     */
+    public Mono<Void> remove(String userId, String postId) {
+        return redisTemplate.opsForZSet().remove(key(userId), postId).then();
+    }
+
+    /**
+     * Remember that an author is served by pull (hybrid mode). The set is sticky:
+     * an author that drops below the threshold again is pushed and pulled, and the read side de-duplicates.
+     */
+    public Mono<Void> addPulledAuthor(String authorId) {
+        return redisTemplate.opsForSet()
+                .add(feedProperties.getHybrid().getPulledAuthorsKey(), authorId)
+                .then();
+    }
+
+    /**
+     * All authors whose posts are pulled at read time instead of pushed.
+     */
+    public Flux<String> pulledAuthors() {
+        return redisTemplate.opsForSet().members(feedProperties.getHybrid().getPulledAuthorsKey());
+    }
+
+    private String key(String userId) {
+        return feedProperties.getTimeline().getKeyPrefix() + userId;
+    }
+
+    private static double score(LocalDateTime createdAt) {
+        return createdAt.toInstant(ZoneOffset.UTC).toEpochMilli();
+    }
+}
@@ -1,7 +1,9 @@
 package com.sheemab.socialmedia.Feed.System.repository;
 
 import com.sheemab.socialmedia.Feed.System.entity.User;
+import org.springframework.data.mongodb.repository.Query;
 import org.springframework.data.mongodb.repository.ReactiveMongoRepository;
+import org.springframework.data.mongodb.repository.Update;
 import org.springframework.stereotype.Repository;
 import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
@@ -11,7 +13,18 @@ import reactor.core.publisher.Mono;
 public interface UserRepository extends ReactiveMongoRepository<User, String> {
 
     Mono<Boolean> existsByEmail(String email);
+    Mono<Boolean> existsByUsername(String username);
+    Mono<Boolean> existsByUsernameAndIdNot(String username, String userId);
     Mono<User> findById(String userId);
     Flux<User> findAllById(Iterable<String> userIds);
 
+    // follow graph sizes, kept in sync with the "follows" collection by atomic $inc
+    @Query("{ '_id': ?0 }")
+    @Update("{ '$inc': { 'followersCount': ?1 } }")
+    Mono<Long> incrementFollowersCount(String userId, int delta);
+
+    @Query("{ '_id': ?0 }")
+    @Update("{ '$inc': { 'followingCount': ?1 } }")
+    Mono<Long> incrementFollowingCount(String userId, int delta);
+
 }
@@ -0,0 +1,15 @@
+package com.sheemab.socialmedia.Feed.System.service;
+
+import com.sheemab.socialmedia.Feed.System.entity.Post;
+
+/**
+ * Scores a candidate post for the ranked feed; higher is better.
+ * Called once per candidate per request, so implementations must not do I/O:
+ * anything beyond the post goes into the RankingContext up front.
+ * Replace the default (EngagementRecencyScorer) by declaring a @Primary bean of this type.
+ */
+@FunctionalInterface
+public interface FeedScorer {
+
+    double score(Post post, RankingContext context);
+}
@@ -0,0 +1,19 @@
+package com.sheemab.socialmedia.Feed.System.service;
+
+import reactor.core.publisher.Mono;
+
+public interface IClusterLockService {
+
+    /**
+     * Run the job only if no other instance is running a job under the same lock name.
+     *
+     * @return the job's result, empty if the lock is held elsewhere
+     */
+    <T> Mono<T> runExclusively(String name, Mono<T> job);
+
+    /**
+     * Run a job once across all instances and restarts (its completion is recorded in Mongo).
+     * Completes when the job has completed, here or on whichever instance got the lock first.
+     */
+    Mono<Void> runOnce(String name, Mono<?> job);
+}
@@ -0,0 +1,8 @@
+package com.sheemab.socialmedia.Feed.System.service;
+
+import reactor.core.publisher.Mono;
+
+public interface ICounterReconciliationService {
+
+    Mono<Long> reconcileCounters();
+}
@@ -1,8 +1,16 @@
 package com.sheemab.socialmedia.Feed.System.service;
 
+import com.sheemab.socialmedia.Feed.System.dto.FeedOrder;
+import com.sheemab.socialmedia.Feed.System.dto.FeedPageDto;
+import com.sheemab.socialmedia.Feed.System.dto.FeedView;
 import com.sheemab.socialmedia.Feed.System.dto.PostResponseDto;
-import reactor.core.publisher.Flux;
+import com.sheemab.socialmedia.Feed.System.dto.StreamPageDto;
+import reactor.core.publisher.Mono;
 
 public interface IFeedService {
-    Flux<PostResponseDto> getUserFeed(String userId);
+    Mono<FeedPageDto> getUserFeed(String userId, Integer limit, String cursor, FeedView view, FeedOrder order,
+                                  boolean viewerState);
+
+    Mono<StreamPageDto<PostResponseDto>> streamUserFeed(String userId, Integer limit, String cursor, FeedView view,
+                                                        FeedOrder order, boolean viewerState);
 }
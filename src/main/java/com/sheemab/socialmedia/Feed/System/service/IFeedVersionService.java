@@ -0,0 +1,20 @@
+package com.sheemab.socialmedia.Feed.System.service;
+
+import reactor.core.publisher.Mono;
+
+import java.util.List;
+
+public interface IFeedVersionService {
+
+    Mono<String> currentVersion(String userId);
+
+    void postsChanged(String authorId);
+
+    Mono<Void> pageServed(String viewerId, List<String> postIds);
+
+    Mono<Void> engagementChanged(String postId, String userId);
+
+    Mono<Void> followingChanged(String userId);
+
+    Mono<Long> flushEngagement();
+}
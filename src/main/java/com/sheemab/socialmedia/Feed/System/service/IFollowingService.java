@@ -0,0 +1,12 @@
+package com.sheemab.socialmedia.Feed.System.service;
+
+import reactor.core.publisher.Mono;
+
+import java.util.Set;
+
+public interface IFollowingService {
+
+    Mono<Set<String>> followeeIds(String userId);
+
+    void evict(String userId);
+}
@@ -0,0 +1,18 @@
+package com.sheemab.socialmedia.Feed.System.service;
+
+import reactor.core.publisher.Mono;
+
+public interface IHotPostService {
+
+    Mono<Boolean> hasLiked(String postId, String userId);
+
+    Mono<Integer> likeCount(String postId);
+
+    void promoteIfHot(String postId, int likeCount);
+
+    Mono<Void> onLike(String postId, String userId);
+
+    Mono<Void> onUnlike(String postId, String userId);
+
+    Mono<Void> onWriteFailed(String postId);
+}
@@ -4,6 +4,9 @@ import com.sheemab.socialmedia.Feed.System.dto.LikeResponseDto;
 import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 
+import java.util.List;
+import java.util.Map;
+
 public interface ILikeService {
     Mono<LikeResponseDto> addLike(String postId, String userId);
 
@@ -14,4 +17,6 @@ public interface ILikeService {
     Mono<Integer> countLikes(String postId);
 
     Mono<Boolean> hasUserLiked(String postId, String userId);
+
+    Mono<Map<String, Boolean>> hasUserLikedPosts(String userId, List<String> postIds);
 }
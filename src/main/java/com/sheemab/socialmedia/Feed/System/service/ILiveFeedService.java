@@ -0,0 +1,16 @@
+package com.sheemab.socialmedia.Feed.System.service;
+
+import com.sheemab.socialmedia.Feed.System.dto.PostResponseDto;
+import com.sheemab.socialmedia.Feed.System.entity.Post;
+import org.springframework.http.codec.ServerSentEvent;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+public interface ILiveFeedService {
+
+    Mono<Void> publish(Post post);
+
+    Flux<ServerSentEvent<PostResponseDto>> subscribe(String userId);
+
+    Mono<Void> followingChanged(String followerId);
+}
@@ -0,0 +1,11 @@
+package com.sheemab.socialmedia.Feed.System.service;
+
+import com.sheemab.socialmedia.Feed.System.entity.Post;
+import reactor.core.publisher.Mono;
+
+public interface IPostCleanupService {
+
+    Mono<Void> enqueue(Post post);
+
+    Mono<Long> runCleanups();
+}
@@ -1,12 +1,16 @@
 package com.sheemab.socialmedia.Feed.System.service;
 
 import com.sheemab.socialmedia.Feed.System.dto.CommentResponseDto;
+import com.sheemab.socialmedia.Feed.System.dto.ExportPageDto;
+import com.sheemab.socialmedia.Feed.System.dto.ExportPartitionDto;
 import com.sheemab.socialmedia.Feed.System.dto.LikeResponseDto;
 import com.sheemab.socialmedia.Feed.System.dto.PostRequestDto;
 import com.sheemab.socialmedia.Feed.System.dto.PostResponseDto;
 import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 
+import java.util.List;
+
 public interface IPostService {
     Mono<PostResponseDto> createPost(PostRequestDto postRequestDto);
 
@@ -14,6 +18,10 @@ public interface IPostService {
 
     Flux<PostResponseDto> getAllPosts();
 
+    Mono<List<ExportPartitionDto>> getExportPartitions(int count);
+
+    Mono<ExportPageDto> exportPosts(String from, String to, String cursor, Integer limit);
+
     Mono<Void> deletePost(String postId);
 
     Mono<Integer> getLikeCount(String postId);
@@ -0,0 +1,9 @@
+package com.sheemab.socialmedia.Feed.System.service;
+
+import com.sheemab.socialmedia.Feed.System.entity.Post;
+import reactor.core.publisher.Mono;
+
+public interface ITimelineService {
+
+    Mono<Void> fanOut(Post post);
+}
@@ -1,23 +1,28 @@
 package com.sheemab.socialmedia.Feed.System.service;
 
+import com.sheemab.socialmedia.Feed.System.dto.StreamPageDto;
+import com.sheemab.socialmedia.Feed.System.dto.UserPageDto;
 import com.sheemab.socialmedia.Feed.System.dto.UserRequestDto;
 import com.sheemab.socialmedia.Feed.System.dto.UserResponseDto;
-import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 
-import java.util.Set;
-
 public interface IUserService {
 
     Mono<UserResponseDto> createUser(UserRequestDto userRequestDto);
 
+    Mono<UserResponseDto> updateUsername(String userId, String username);
+
     Mono<Void> follow(String followerId, String followeeId);
 
     Mono<Void> unfollow(String followerId, String followeeId);
 
-    Flux<UserResponseDto> getFollowing(String userId);
+    Mono<UserPageDto> getFollowing(String userId, Integer limit, String cursor);
+
+    Mono<UserPageDto> getFollowers(String userId, Integer limit, String cursor);
+
+    Mono<StreamPageDto<UserResponseDto>> streamFollowing(String userId, Integer limit, String cursor);
 
-    Flux<UserResponseDto> getFollowers(String userId);
+    Mono<StreamPageDto<UserResponseDto>> streamFollowers(String userId, Integer limit, String cursor);
 
     Mono<Integer> getFollowersCount(String userId);
 
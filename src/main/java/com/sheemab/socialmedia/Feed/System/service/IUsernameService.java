@@ -0,0 +1,13 @@
+package com.sheemab.socialmedia.Feed.System.service;
+
+import reactor.core.publisher.Mono;
+
+import java.util.Collection;
+import java.util.Map;
+
+public interface IUsernameService {
+
+    Mono<Map<String, String>> getUsernames(Collection<String> userIds);
+
+    Mono<Void> evict(String userId);
+}
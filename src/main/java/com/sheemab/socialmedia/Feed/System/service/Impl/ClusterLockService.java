@@ -0,0 +1,79 @@
+package com.sheemab.socialmedia.Feed.System.service.Impl;
+
+import com.sheemab.socialmedia.Feed.System.config.FeedProperties;
+import com.sheemab.socialmedia.Feed.System.entity.CompletedJob;
+import com.sheemab.socialmedia.Feed.System.repository.CompletedJobRepository;
+import com.sheemab.socialmedia.Feed.System.repository.LockRepository;
+import com.sheemab.socialmedia.Feed.System.service.IClusterLockService;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+import reactor.core.Disposable;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+
+/**
+ * Keeps scheduled jobs and startup migrations from running on every instance at once.
+ * A lock is leased for a short time and renewed while its job runs, so a long job keeps it
+ * but a crashed instance releases it after one lease.
+ * Jobs are passed as cold Monos (Mono.defer) and only subscribed by the instance holding the lock.
+ * One-time jobs are marked as completed in Mongo (CompletedJob), so once they are done,
+ * checking them needs neither Redis nor a lock, and flushing Redis does not run them again.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class ClusterLockService implements IClusterLockService {
+
+    private final LockRepository lockRepository;
+    private final CompletedJobRepository completedJobRepository;
+    private final FeedProperties feedProperties;
+
+    @Override
+    public <T> Mono<T> runExclusively(String name, Mono<T> job) {
+        Duration lease = settings().getLease();
+
+        return Mono.usingWhen(
+                lockRepository.tryAcquire(name, lease),
+                token -> {
+                    // renew at a third of the lease, so one slow renewal does not lose the lock
+                    Disposable renewal = Flux.interval(lease.dividedBy(3))
+                            .concatMap(tick -> lockRepository.extend(name, token, lease))
+                            .filter(held -> !held)
+                            .subscribe(lost -> log.warn("Lock {} expired while its job was running", name),
+                                    e -> log.warn("Could not renew lock {}", name, e));
+                    return job.doFinally(signal -> renewal.dispose());
+                },
+                token -> lockRepository.release(name, token));
+    }
+
+    @Override
+    public Mono<Void> runOnce(String name, Mono<?> job) {
+        // checked again under the lock: the previous holder may have finished in the meantime
+        Mono<Boolean> runIfNotDone = completedJobRepository.existsById(name)
+                .flatMap(done -> done
+                        ? Mono.just(true)
+                        : job.then(completedJobRepository.save(CompletedJob.builder()
+                                        .name(name)
+                                        .completedAt(LocalDateTime.now())
+                                        .build()))
+                        .doOnSuccess(v -> log.info("One-time job {} completed", name))
+                        .thenReturn(true));
+
+        return completedJobRepository.existsById(name)
+                .flatMap(done -> done
+                        ? Mono.just(true)
+                        : runExclusively(name, runIfNotDone).defaultIfEmpty(false))
+                // another instance is running it: wait for its marker (or for its lock to expire)
+                .flatMap(finished -> finished
+                        ? Mono.<Void>empty()
+                        : Mono.delay(settings().getPollInterval()).then(Mono.defer(() -> runOnce(name, job))));
+    }
+
+    private FeedProperties.Locks settings() {
+        return feedProperties.getLocks();
+    }
+}
@@ -8,24 +8,30 @@ import com.sheemab.socialmedia.Feed.System.entity.User;
 import com.sheemab.socialmedia.Feed.System.repository.CommentRepository;
 import com.sheemab.socialmedia.Feed.System.repository.PostRepository;
 import com.sheemab.socialmedia.Feed.System.repository.UserRepository;
+import com.sheemab.socialmedia.Feed.System.service.IFeedVersionService;
 import com.sheemab.socialmedia.Feed.System.service.ICommentService;
+import com.sheemab.socialmedia.Feed.System.service.IUsernameService;
 import lombok.RequiredArgsConstructor;
-import org.modelmapper.ModelMapper;
 import org.springframework.stereotype.Service;
 import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 
 import java.time.LocalDateTime;
+import java.util.List;
 
 
 @Service
 @RequiredArgsConstructor
 public class CommentService implements ICommentService {
 
+    private static final String COMMENTS_BY_POST = "comments-by-post"; // coalesced getCommentsByPost() reads
+
     private final CommentRepository commentRepository;
     private final PostRepository postRepository;
     private final UserRepository userRepository;
-    private final ModelMapper modelMapper;
+    private final IFeedVersionService feedVersionService; // feed version stamps (ETag)
+    private final RequestCoalescer requestCoalescer;      // shares identical concurrent reads
+    private final IUsernameService usernameService;
 
     /**
      * Add a new comment to a post
@@ -60,8 +66,11 @@ public class CommentService implements ICommentService {
                     comment.setCommentedAt(LocalDateTime.now());// timestamp when comment is created
                     comment.setPostId(postId);                 // link to post
 
-                    // Step 5: Save the comment to DB
+                    // Step 5: Save the comment to DB and bump the post's commentCount atomically ($inc)
                     return commentRepository.save(comment)
+                            .flatMap(saved -> postRepository.incrementCommentCount(postId, 1).thenReturn(saved))
+                            .doOnNext(saved -> requestCoalescer.invalidate(COMMENTS_BY_POST, postId))
+                            .flatMap(saved -> feedVersionService.engagementChanged(postId, dto.getUserId()).thenReturn(saved))
                             // Step 6: After saving, map the saved entity to a DTO for response
                             .map(saved -> new CommentResponseDto(
                                     user.getUsername(),        // take username from User
@@ -75,32 +84,43 @@ public class CommentService implements ICommentService {
      * Fetch all comments for a given post, sorted by time (latest first)
      * Flow:
      * 1. Get all comments for post (Flux<Comments>)
-     * 2. For each comment, fetch user info
-     * 3. Build CommentResponseDto for each
+     * 2. Resolve the usernames of all commenters in one batch (username cache)
+     * 3. Build CommentResponseDto for each, keeping the latest-first order
+     * Concurrent requests for the same post share one load of the whole list.
      */
     @Override
     public Flux<CommentResponseDto> getCommentsByPost(String postId) {
+        return requestCoalescer.coalesce(COMMENTS_BY_POST, postId, () -> loadComments(postId))
+                .flatMapIterable(comments -> comments);
+    }
+
+    private Mono<List<CommentResponseDto>> loadComments(String postId) {
         return commentRepository.findByPostIdOrderByCommentedAtDesc(postId) // Flux<Comments>
-                .flatMap(comment -> // flatMapMany is not needed since findByPostId already returns Flux
-                        userRepository.findById(comment.getUserId()) // get user for each comment
-                                .map(user -> { // map -> just transforming data
+                .collectList()
+                .flatMap(comments -> usernameService.getUsernames(
+                                comments.stream().map(Comments::getUserId).toList())
+                        .map(usernames -> comments.stream()
+                                // comments of users that no longer exist are skipped
+                                .filter(comment -> usernames.containsKey(comment.getUserId()))
+                                .map(comment -> { // map -> just transforming data
                                     CommentResponseDto dto = new CommentResponseDto();
-                                    dto.setUsername(user.getUsername());
+                                    dto.setUsername(usernames.get(comment.getUserId()));
                                     dto.setText(comment.getText());
                                     dto.setCommentedAt(comment.getCommentedAt());
                                     return dto;
                                 })
-                );
+                                .toList()));
     }
 
     /**
      * Get total number of comments on a post
-     * Mono<Long> -> map to Mono<Integer>
+     * Reads the denormalized Post.commentCount instead of counting comment documents.
      */
     @Override
     public Mono<Integer> getCommentCount(String postId) {
-        return commentRepository.countByPostId(postId) // Mono<Long>
-                .map(Long::intValue); // map -> transform Long to Integer
+        return postRepository.findCountersById(postId) // Mono<Post> with only the counters loaded
+                .map(Post::getCommentCount)
+                .defaultIfEmpty(0); // unknown post -> no comments
     }
 
     /**
@@ -115,9 +135,16 @@ public class CommentService implements ICommentService {
                     if (!comment.getUserId().equals(userId)) {
                         return Mono.error(new RuntimeException("You can only delete your own comments!"));
                     }
-                    // Delete the comment
-                    return commentRepository.delete(comment);
-                });
+                    // Delete the comment and decrement the post's commentCount by what was actually deleted
+                    // (and bump the feed versions only if something was deleted: a concurrent delete already did)
+                    return commentRepository.deleteByCommentId(commentId)
+                            .filter(deleted -> deleted > 0)
+                            .flatMap(deleted -> postRepository.incrementCommentCount(
+                                            comment.getPostId(), -deleted.intValue())
+                                    .doOnSuccess(updated -> requestCoalescer.invalidate(COMMENTS_BY_POST, comment.getPostId()))
+                                    .then(feedVersionService.engagementChanged(comment.getPostId(), userId)));
+                })
+                .then();
     }
 }
 
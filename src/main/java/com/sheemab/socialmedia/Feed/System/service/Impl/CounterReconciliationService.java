@@ -0,0 +1,109 @@
+package com.sheemab.socialmedia.Feed.System.service.Impl;
+
+import com.sheemab.socialmedia.Feed.System.config.FeedProperties;
+import com.sheemab.socialmedia.Feed.System.entity.Post;
+import com.sheemab.socialmedia.Feed.System.repository.CommentRepository;
+import com.sheemab.socialmedia.Feed.System.repository.LikeRepository;
+import com.sheemab.socialmedia.Feed.System.repository.PostRepository;
+import com.sheemab.socialmedia.Feed.System.service.IClusterLockService;
+import com.sheemab.socialmedia.Feed.System.service.ICounterReconciliationService;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.util.List;
+
+/**
+ * Repairs drift between Post.likeCount / Post.commentCount and the actual likes/comments documents
+ * (e.g. a like saved but the $inc lost because the app died in between).
+ * Runs nightly, and once at startup to fill the counters of posts written before they existed.
+ * Either run holds a cluster-wide lock, so only one instance recounts at a time.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class CounterReconciliationService implements ICounterReconciliationService {
+
+    // how many posts are recounted at the same time
+    private static final int CONCURRENCY = 8;
+
+    private static final String MIN_ID = "0".repeat(24);
+    private static final String RECONCILE_LOCK = "counter-reconciliation";
+    private static final String BACKFILL_JOB = "counter-backfill";
+
+    private final PostRepository postRepository;
+    private final LikeRepository likeRepository;
+    private final CommentRepository commentRepository;
+    private final IClusterLockService clusterLockService;
+    private final FeedProperties feedProperties;
+
+    /**
+     * Recount likes and comments of every post and fix the stored counters that are off.
+     * Each fix is a conditional update: if a like/comment changed the counter while we were counting,
+     * the update does not match and the post is simply left for the next run.
+     *
+     * @return number of posts whose counters were repaired, empty if another instance is already reconciling
+     */
+    @Override
+    @Scheduled(cron = "${feed.counters.reconcile-cron:0 0 3 * * *}")
+    public Mono<Long> reconcileCounters() {
+        return clusterLockService.runExclusively(RECONCILE_LOCK, Mono.defer(this::reconcileAll))
+                .doOnNext(repaired -> log.info("Counter reconciliation repaired {} posts", repaired));
+    }
+
+    /**
+     * One-time backfill, in the background so startup is not held up; reads fall back to 0 until it is done.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void backfillCounters() {
+        if (!feedProperties.getCounters().isBackfillOnStartup()) {
+            return;
+        }
+        clusterLockService.runOnce(BACKFILL_JOB, Mono.defer(this::reconcileAll)
+                        .doOnNext(repaired -> log.info("Counter backfill repaired {} posts", repaired)))
+                .subscribe(null, e -> log.error("Counter backfill failed; it is retried on the next startup", e));
+    }
+
+    /**
+     * Walk the posts in _id order, one page per query, instead of holding one cursor over the whole collection.
+     */
+    private Mono<Long> reconcileAll() {
+        return nextPage(MIN_ID)
+                .expand(page -> page.size() < pageSize() ? Mono.empty() : nextPage(page.get(page.size() - 1).getId()))
+                .concatMap(page -> Flux.fromIterable(page).flatMap(this::reconcile, CONCURRENCY))
+                .reduce(0L, Long::sum);
+    }
+
+    private Mono<List<Post>> nextPage(String cursor) {
+        return postRepository.findCountersAfter(cursor, PageRequest.of(0, pageSize())).collectList();
+    }
+
+    private int pageSize() {
+        return feedProperties.getCounters().getPageSize();
+    }
+
+    private Mono<Long> reconcile(Post post) {
+        Mono<Integer> likes = likeRepository.countByPostId(post.getId());
+        Mono<Integer> comments = commentRepository.countByPostId(post.getId()).map(Long::intValue);
+
+        return Mono.zip(likes, comments)
+                .flatMap(tuple -> {
+                    int likeCount = tuple.getT1();
+                    int commentCount = tuple.getT2();
+
+                    // Nothing to repair
+                    if (likeCount == post.getLikeCount() && commentCount == post.getCommentCount()) {
+                        return Mono.just(0L);
+                    }
+
+                    return postRepository.resetCounters(post.getId(),
+                            post.getLikeCount(), post.getCommentCount(), likeCount, commentCount);
+                });
+    }
+}
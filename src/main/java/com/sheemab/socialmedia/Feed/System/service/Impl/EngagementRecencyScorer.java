@@ -0,0 +1,42 @@
+package com.sheemab.socialmedia.Feed.System.service.Impl;
+
+import com.sheemab.socialmedia.Feed.System.config.FeedProperties;
+import com.sheemab.socialmedia.Feed.System.entity.Post;
+import com.sheemab.socialmedia.Feed.System.service.FeedScorer;
+import com.sheemab.socialmedia.Feed.System.service.RankingContext;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+
+/**
+ * Default ranking: (1 + engagement velocity) * recency decay * author affinity.
+ * - velocity = weighted likes + comments per hour of age (from the denormalized Post counters)
+ * - decay    = halves every feed.ranking.half-life
+ * - affinity = feed.ranking.close-author-boost when the author follows the viewer back, 1 otherwise
+ */
+@Component
+@RequiredArgsConstructor
+public class EngagementRecencyScorer implements FeedScorer {
+
+    private static final double MILLIS_PER_HOUR = 3_600_000d;
+
+    private final FeedProperties feedProperties;
+
+    @Override
+    public double score(Post post, RankingContext context) {
+        FeedProperties.Ranking ranking = feedProperties.getRanking();
+
+        double ageHours = Math.max(0, Duration.between(post.getCreatedAt(), context.now()).toMillis()) / MILLIS_PER_HOUR;
+
+        // at least one hour, so a post a few seconds old with one like does not beat everything else
+        double velocity = (ranking.getLikeWeight() * post.getLikeCount()
+                + ranking.getCommentWeight() * post.getCommentCount()) / Math.max(ageHours, 1);
+
+        double decay = Math.pow(0.5, ageHours / (ranking.getHalfLife().toMillis() / MILLIS_PER_HOUR));
+
+        double affinity = context.closeAuthorIds().contains(post.getUserId()) ? ranking.getCloseAuthorBoost() : 1;
+
+        return (1 + velocity) * decay * affinity;
+    }
+}
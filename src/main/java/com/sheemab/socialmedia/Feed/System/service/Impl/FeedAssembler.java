@@ -0,0 +1,110 @@
+package com.sheemab.socialmedia.Feed.System.service.Impl;
+
+import com.sheemab.socialmedia.Feed.System.dto.CommentResponseDto;
+import com.sheemab.socialmedia.Feed.System.dto.FeedCursor;
+import com.sheemab.socialmedia.Feed.System.dto.LikeResponseDto;
+import com.sheemab.socialmedia.Feed.System.dto.PostResponseDto;
+import com.sheemab.socialmedia.Feed.System.entity.Comments;
+import com.sheemab.socialmedia.Feed.System.entity.Likes;
+import com.sheemab.socialmedia.Feed.System.entity.Post;
+
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * The in-memory part of feed assembly: merging candidate lists and building DTOs from
+ * already-fetched posts, likes, comments and usernames. No I/O, so it can be benchmarked on its own.
+ */
+public final class FeedAssembler {
+
+    private FeedAssembler() {
+    }
+
+    /**
+     * Merge two newest-first lists into one, dropping duplicates by post id.
+     * An account that crossed the threshold has older posts in timelines and newer ones pulled,
+     * and the timeline top-up may pull the same posts again, hence the de-duplication.
+     */
+    public static List<Post> merge(List<Post> pushed, List<Post> pulled, int count) {
+        Map<String, Post> byId = new LinkedHashMap<>();
+        pushed.forEach(post -> byId.putIfAbsent(post.getId(), post));
+        pulled.forEach(post -> byId.putIfAbsent(post.getId(), post));
+
+        return byId.values().stream()
+                .sorted(FeedCursor.NEWEST_FIRST)
+                .limit(count)
+                .toList();
+    }
+
+    /**
+     * Every userId that appears in the likes or comments of a page.
+     */
+    public static Set<String> userIds(Map<String, Collection<Likes>> likesByPost,
+                                      Map<String, Collection<Comments>> commentsByPost) {
+        Set<String> userIds = new HashSet<>();
+        likesByPost.values().forEach(likes -> likes.forEach(like -> userIds.add(like.getUserId())));
+        commentsByPost.values().forEach(comments -> comments.forEach(comment -> userIds.add(comment.getUserId())));
+        return userIds;
+    }
+
+    /**
+     * Build the DTOs of a whole page, in page order.
+     */
+    public static List<PostResponseDto> assemble(List<Post> posts,
+                                                 Map<String, Collection<Likes>> likesByPost,
+                                                 Map<String, Collection<Comments>> commentsByPost,
+                                                 Map<String, String> userIdToUsernameMap) {
+        return posts.stream()
+                .map(post -> toPostResponseDto(post,
+                        likesByPost.getOrDefault(post.getId(), List.of()),
+                        commentsByPost.getOrDefault(post.getId(), List.of()),
+                        userIdToUsernameMap))
+                .toList();
+    }
+
+    /**
+     * Build the PostResponseDto of one post from already-fetched likes, comments and usernames.
+     */
+    public static PostResponseDto toPostResponseDto(Post post,
+                                                     Collection<Likes> likes,
+                                                     Collection<Comments> comments,
+                                                     Map<String, String> userIdToUsernameMap) {
+
+        // Step 9a: Build LikeResponseDto list
+        List<LikeResponseDto> likeDtos = likes.stream().map(like -> {
+            LikeResponseDto dto = new LikeResponseDto();
+            dto.setUsername(userIdToUsernameMap.getOrDefault(
+                    like.getUserId(), "Unknown"));
+            dto.setLikedAt(like.getLikedAt());
+            return dto;
+        }).collect(Collectors.toList());
+
+        // Step 9b: Build CommentResponseDto list
+        List<CommentResponseDto> commentDtos = comments.stream().map(comment -> {
+            CommentResponseDto dto = new CommentResponseDto();
+            dto.setUsername(userIdToUsernameMap.getOrDefault(
+                    comment.getUserId(), "Unknown"));
+            dto.setText(comment.getText());
+            dto.setCommentedAt(comment.getCommentedAt());
+            return dto;
+        }).collect(Collectors.toList());
+
+        // Step 10: Build the final PostResponseDto
+        PostResponseDto dto = new PostResponseDto();
+        dto.setId(post.getId());                     // Post id
+        dto.setUserId(post.getUserId());             // Creator of the post
+        dto.setContent(post.getContent());           // Post content
+        dto.setCreatedAt(post.getCreatedAt());       // Post creation time
+        dto.setLikes(likeDtos);                      // Likes with usernames (all, or the most recent in SUMMARY)
+        dto.setComments(commentDtos);                // Comments with usernames (all, or the most recent in SUMMARY)
+        dto.setLikeCount(post.getLikeCount());       // Like count (denormalized counter)
+        dto.setCommentCount(post.getCommentCount()); // Comment count (denormalized counter)
+
+        return dto;
+    }
+}
@@ -1,23 +1,44 @@
 package com.sheemab.socialmedia.Feed.System.service.Impl;
 
-import com.sheemab.socialmedia.Feed.System.dto.CommentResponseDto;
-import com.sheemab.socialmedia.Feed.System.dto.LikeResponseDto;
+import com.sheemab.socialmedia.Feed.System.config.FeedMetrics;
+import com.sheemab.socialmedia.Feed.System.config.FeedProperties;
+import com.sheemab.socialmedia.Feed.System.dto.FeedCursor;
+import com.sheemab.socialmedia.Feed.System.dto.FeedOrder;
+import com.sheemab.socialmedia.Feed.System.dto.FeedPageDto;
+import com.sheemab.socialmedia.Feed.System.dto.FeedView;
 import com.sheemab.socialmedia.Feed.System.dto.PostResponseDto;
+import com.sheemab.socialmedia.Feed.System.dto.StreamPageDto;
 import com.sheemab.socialmedia.Feed.System.entity.Comments;
+import com.sheemab.socialmedia.Feed.System.entity.Follow;
 import com.sheemab.socialmedia.Feed.System.entity.Likes;
+import com.sheemab.socialmedia.Feed.System.entity.Post;
 import com.sheemab.socialmedia.Feed.System.entity.User;
 import com.sheemab.socialmedia.Feed.System.repository.CommentRepository;
+import com.sheemab.socialmedia.Feed.System.repository.FollowRepository;
 import com.sheemab.socialmedia.Feed.System.repository.LikeRepository;
 import com.sheemab.socialmedia.Feed.System.repository.PostRepository;
+import com.sheemab.socialmedia.Feed.System.repository.TimelineRepository;
 import com.sheemab.socialmedia.Feed.System.repository.UserRepository;
+import com.sheemab.socialmedia.Feed.System.service.FeedScorer;
 import com.sheemab.socialmedia.Feed.System.service.IFeedService;
+import com.sheemab.socialmedia.Feed.System.service.IFeedVersionService;
+import com.sheemab.socialmedia.Feed.System.service.IFollowingService;
+import com.sheemab.socialmedia.Feed.System.service.IUsernameService;
+import com.sheemab.socialmedia.Feed.System.service.RankingContext;
 import lombok.RequiredArgsConstructor;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.http.HttpStatus;
 import org.springframework.stereotype.Service;
+import org.springframework.web.server.ResponseStatusException;
 import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 
-import java.util.HashSet;
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
 import java.util.Set;
 import java.util.stream.Collectors;
 
@@ -29,97 +50,374 @@ public class FeedService implements IFeedService {
     private final UserRepository userRepository;
     private final LikeRepository likeRepository;
     private final CommentRepository commentRepository;
+    private final TimelineRepository timelineRepository;
+    private final FeedProperties feedProperties;
+    private final KWayMergeFeedEngine kWayMergeFeedEngine;
+    private final IUsernameService usernameService;
+    private final FollowRepository followRepository;
+    private final FeedScorer feedScorer; // RANKED order
+    private final FeedMetrics feedMetrics; // stage timers, page/likes distributions
+    private final IFeedVersionService feedVersionService; // pages remember their viewer (ETag bumps)
+    private final IFollowingService followingService; // followee ids of PULL reads
 
+    /**
+     * Fetch one page of the user's feed, newest first.
+     * Pages are keyed on (createdAt, id) of the last post returned, so the cost of a page
+     * depends on the page size only, not on how much history the followed users have.
+     * With viewerState, each post also says whether the user has liked it (one indexed query per page).
+     * RANKED order returns the best scored posts of the newest candidates instead, as a single page.
+     */
+    @Override
+    public Mono<FeedPageDto> getUserFeed(String userId, Integer limit, String cursor, FeedView view, FeedOrder order,
+                                         boolean viewerState) {
+        return selectPage(userId, limit, cursor, order)
+                .flatMap(page -> registerViewer(userId, order, page))
 
-    public Flux<PostResponseDto> getUserFeed(String userId) {
+                // Step 4: Fetch likes and comments for the whole page, and build the PostResponseDtos
+                // (together with the viewer's likes, if asked for)
+                .doOnNext(page -> recordPage(page.posts()))
+                .flatMap(page -> Mono.zip(
+                                toPostResponseDtos(page.posts(), view),
+                                likedByViewer(userId, page.posts(), viewerState))
+                        .map(tuple -> new FeedPageDto(
+                                tuple.getT1().stream()
+                                        .map(dto -> withViewerState(dto, tuple.getT2(), viewerState))
+                                        .toList(),
+                                page.nextCursor())));
+    }
+
+    /**
+     * Same page as getUserFeed(), but the posts are hydrated in small batches (streaming batch-size posts,
+     * the same $in queries as a whole page) and each batch is emitted as soon as it is ready (still in page order),
+     * so the first post does not wait for the likes/comments of the last one.
+     * The page itself is selected up front, which is why the next cursor is available before any post.
+     */
+    @Override
+    public Mono<StreamPageDto<PostResponseDto>> streamUserFeed(String userId, Integer limit, String cursor, FeedView view,
+                                                               FeedOrder order, boolean viewerState) {
+        FeedProperties.Streaming streaming = feedProperties.getStreaming();
+        return selectPage(userId, limit, cursor, order)
+                .flatMap(page -> registerViewer(userId, order, page))
+                .doOnNext(page -> recordPage(page.posts()))
+                .flatMap(page -> likedByViewer(userId, page.posts(), viewerState)
+                        .map(liked -> new StreamPageDto<>(
+                                // flatMapSequential(): up to 'concurrency' batches in flight, emitted in the original order
+                                Flux.fromIterable(page.posts())
+                                        .buffer(Math.max(streaming.getBatchSize(), 1))
+                                        .flatMapSequential(batch -> toPostResponseDtos(batch, view), streaming.getConcurrency())
+                                        .flatMapIterable(dtos -> dtos)
+                                        .map(dto -> withViewerState(dto, liked, viewerState)),
+                                page.nextCursor())));
+    }
+
+    /**
+     * Ids of the posts in the page that the viewer has liked; empty when the viewer state was not asked for.
+     */
+    private Mono<Set<String>> likedByViewer(String viewerId, List<Post> posts, boolean viewerState) {
+        if (!viewerState || posts.isEmpty()) {
+            return Mono.just(Set.of());
+        }
+        List<String> postIds = posts.stream().map(Post::getId).toList();
+        return feedMetrics.timeStage("viewer_state", likeRepository.findLikedPosts(viewerId, postIds)
+                .map(Likes::getPostId)
+                .collect(Collectors.toSet()));
+    }
+
+    /**
+     * Chronological pages can be revalidated with their ETag: register the viewer with the page's posts
+     * before the page is hydrated, so a like/comment on one of them changes the viewer's feed version.
+     */
+    private Mono<PageSelection> registerViewer(String viewerId, FeedOrder order, PageSelection page) {
+        if (order == FeedOrder.RANKED) {
+            return Mono.just(page);
+        }
+        return feedVersionService.pageServed(viewerId, page.posts().stream().map(Post::getId).toList())
+                .thenReturn(page);
+    }
+
+    private void recordPage(List<Post> posts) {
+        feedMetrics.recordPageSize(posts.size());
+        posts.forEach(post -> feedMetrics.recordLikes(post.getLikeCount()));
+    }
+
+    private static PostResponseDto withViewerState(PostResponseDto dto, Set<String> liked, boolean viewerState) {
+        if (viewerState) {
+            dto.setLikedByViewer(liked.contains(dto.getId()));
+        }
+        return dto;
+    }
+
+    /**
+     * The posts of one feed page plus the cursor of the next page (null on the last page).
+     */
+    private record PageSelection(List<Post> posts, String nextCursor) {
+    }
+
+    /**
+     * Steps 1-3 of a feed read: find the user, load the candidate posts and cut the page.
+     */
+    private Mono<PageSelection> selectPage(String userId, Integer limit, String cursor, FeedOrder order) {
+        int pageSize = pageSize(limit);
+
+        if (order == FeedOrder.RANKED) {
+            return rankedPage(userId, pageSize, cursor);
+        }
+
+        // Fetch one extra post: if it shows up, there is a next page
+        int fetchSize = pageSize + 1;
+
+        // Mono.fromCallable() so an invalid cursor becomes an error signal instead of a thrown exception
+        Mono<Optional<FeedCursor>> afterMono = Mono.fromCallable(() ->
+                Optional.ofNullable(cursor).map(FeedCursor::decode));
 
         // Step 1: Find the user by ID (Mono<User>)
-        return userRepository.findById(userId)
+        return Mono.zip(afterMono, findUser(userId))
+
+                // Step 2: Load the candidate posts, newest first
+                .flatMap(tuple -> feedMetrics.timeStage("post_query",
+                        candidates(tuple.getT2(), tuple.getT1().orElse(null), fetchSize).collectList()))
+
+                // Step 3: Cut the page and remember where the next one starts
+                .map(posts -> {
+                    boolean hasMore = posts.size() > pageSize;
+                    List<Post> page = hasMore ? posts.subList(0, pageSize) : posts;
+                    String nextCursor = hasMore ? FeedCursor.of(page.get(page.size() - 1)).encode() : null;
+                    return new PageSelection(page, nextCursor);
+                });
+    }
+
+    /**
+     * RANKED order: score the newest candidate-window posts and keep the best pageSize with a bounded heap
+     * (TopK), so the candidates are never sorted as a whole. Scores change as posts age and collect likes,
+     * so there is no stable position to continue from: a ranked feed is a single page.
+     */
+    private Mono<PageSelection> rankedPage(String userId, int pageSize, String cursor) {
+        if (cursor != null) {
+            return Mono.error(new ResponseStatusException(HttpStatus.BAD_REQUEST, "The ranked feed has a single page"));
+        }
 
+        int candidateWindow = feedProperties.getRanking().getCandidateWindow();
+
+        return findUser(userId)
+                .flatMap(user -> feedMetrics.timeStage("post_query",
+                        candidates(user, null, candidateWindow).collectList()))
+                .flatMap(posts -> closeAuthors(userId, posts)
+                        .map(closeAuthorIds -> feedMetrics.timeStage("ranking", () -> {
+                            RankingContext context = new RankingContext(userId, LocalDateTime.now(), closeAuthorIds);
+                            List<Post> top = TopK.select(posts, pageSize,
+                                    post -> feedScorer.score(post, context), FeedCursor.NEWEST_FIRST);
+                            return new PageSelection(top, null);
+                        })));
+    }
+
+    /**
+     * Authors among the candidates who follow the viewer back (one indexed edge query).
+     */
+    private Mono<Set<String>> closeAuthors(String viewerId, List<Post> posts) {
+        Set<String> authorIds = posts.stream().map(Post::getUserId).collect(Collectors.toSet());
+        if (authorIds.isEmpty()) {
+            return Mono.just(Set.of());
+        }
+        return followRepository.findByFolloweeIdAndFollowerIdIn(viewerId, authorIds)
+                .map(Follow::getFollowerId)
+                .collect(Collectors.toSet());
+    }
+
+    private Mono<User> findUser(String userId) {
+        return feedMetrics.timeStage("user_fetch", userRepository.findById(userId)
                 // If no user is found, throw an error
-                .switchIfEmpty(Mono.error(new RuntimeException("User not found: " + userId)))
+                .switchIfEmpty(Mono.error(new RuntimeException("User not found: " + userId))));
+    }
+
+    /**
+     * Up to count candidate posts after the cursor, newest first, from the source of the configured mode:
+     * PUSH   -> read the user's materialized timeline from Redis
+     * HYBRID -> timeline merged with the posts of followed high-follower accounts
+     * PULL   -> query the posts of every followed user
+     */
+    private Flux<Post> candidates(User user, FeedCursor after, int count) {
+        return switch (feedProperties.getMode()) {
+            case PUSH -> timelinePosts(user, after, count);
+            case HYBRID -> hybridPosts(user, after, count);
+            case PULL -> followedPosts(user, after, count);
+        };
+    }
+
+    /**
+     * Clamp the requested page size to [1, max-limit]; no limit -> default-limit.
+     */
+    private int pageSize(Integer limit) {
+        FeedProperties.Page page = feedProperties.getPage();
+        if (limit == null) {
+            return page.getDefaultLimit();
+        }
+        return Math.max(1, Math.min(limit, page.getMaxLimit()));
+    }
+
+    /**
+     * Pull mode: fetch up to {@code count} posts created by users the current user follows,
+     * ordered by creation time descending and starting after the cursor (if any).
+     */
+    private Flux<Post> followedPosts(User user, FeedCursor after, int count) {
+        // Get the set of user IDs that this user is following (cached, evicted on follow/unfollow)
+        return followingService.followeeIds(user.getId())
+                .flatMapMany(followingIds -> postsBy(followingIds, after, count));
+    }
+
+    /**
+     * Keyset query over the posts of the given authors.
+     * IN_QUERY   -> one $in + sort query (Mongo sorts the union of all authors' posts)
+     * K_WAY_MERGE -> one bounded, index-ordered stream per author, merged with a heap
+     */
+    private Flux<Post> postsBy(Set<String> authorIds, FeedCursor after, int count) {
+        // If there are no authors (e.g. the user follows no one), return an empty feed
+        if (authorIds == null || authorIds.isEmpty()) {
+            return Flux.empty();
+        }
 
-                // Step 2: Once we get the user, move to processing their feed
-                .flatMapMany(user -> {
+        if (feedProperties.getPullEngine() == FeedProperties.PullEngine.K_WAY_MERGE) {
+            return kWayMergeFeedEngine.merge(authorIds, after, count);
+        }
 
-                    // Get the list of user IDs that this user is following
-                    Set<String> followingIds = user.getFollowing();
+        PageRequest limit = PageRequest.of(0, count);
+        return after == null
+                ? postRepository.findByUserIdInOrderByCreatedAtDescIdDesc(authorIds, limit)
+                : postRepository.findByUserIdInBefore(authorIds, after.createdAt(), after.id(), limit);
+    }
 
-                    // If the user follows no one, return an empty feed
-                    if (followingIds == null || followingIds.isEmpty()) {
-                        return Flux.empty();
+    /**
+     * Push mode: read one page of post ids from this user's timeline and load those posts.
+     * When that gives fewer than count posts the page is topped up from the pull query, starting right after
+     * the last loaded post: the timeline ran out (it is capped, and may be cold after a Redis flush or a mode switch)
+     * or still lists posts that were deleted and not cleaned up yet. Counting loaded posts, not ids, keeps such
+     * a page from coming back short, which would end the feed early (no next cursor).
+     */
+    private Flux<Post> timelinePosts(User user, FeedCursor after, int count) {
+        return timelineRepository.readPage(user.getId(), after, count)
+                .collectList()
+                .flatMap(postIds -> findAllInOrder(postIds).collectList())
+                .flatMapMany(posts -> {
+                    if (posts.size() >= count) {
+                        return Flux.fromIterable(posts);
                     }
+                    FeedCursor resumeAfter = posts.isEmpty()
+                            ? after
+                            : FeedCursor.of(posts.get(posts.size() - 1));
+                    return Flux.fromIterable(posts)
+                            .concatWith(followedPosts(user, resumeAfter, count - posts.size()));
+                });
+    }
+
+    /**
+     * Hybrid mode: posts of regular accounts come from the user's timeline (they were pushed on write),
+     * posts of followed high-follower accounts are pulled here and merged in.
+     * Both sides use the same keyset, so merging two newest-first pages gives a correct newest-first page.
+     */
+    private Flux<Post> hybridPosts(User user, FeedCursor after, int count) {
+        Mono<List<Post>> pushedMono = timelinePosts(user, after, count).collectList();
+
+        Mono<List<Post>> pulledMono = timelineRepository.pulledAuthors()
+                .collectList()
+                // only the high-follower accounts this user actually follows (one indexed edge lookup)
+                .flatMap(pulledAuthors -> followRepository.findByFollowerIdAndFolloweeIdIn(user.getId(), pulledAuthors)
+                        .map(Follow::getFolloweeId)
+                        .collect(Collectors.toSet()))
+                .flatMap(authorIds -> postsBy(authorIds, after, count).collectList());
+
+        return Mono.zip(pushedMono, pulledMono)
+                .flatMapIterable(tuple -> FeedAssembler.merge(tuple.getT1(), tuple.getT2(), count));
+    }
+
+    /**
+     * Load posts by id, keeping the order of the given ids.
+     * findAllById() does not keep any order; ids of posts deleted in the meantime are skipped.
+     */
+    private Flux<Post> findAllInOrder(List<String> postIds) {
+        if (postIds.isEmpty()) {
+            return Flux.empty();
+        }
+        return postRepository.findAllById(postIds)
+                .collectMap(Post::getId)
+                .flatMapIterable(postsById -> postIds.stream()
+                        .map(postsById::get)
+                        .filter(Objects::nonNull)
+                        .toList());
+    }
 
-                    // Step 3: Fetch all posts created by users the current user follows
-                    // Ordered by creation time descending
-                    return postRepository.findByUserIdInOrderByCreatedAtDesc(followingIds)
-
-                            // For each post, fetch likes and comments, and build the full PostResponseDto
-                            .flatMap(post -> {
-
-                                // Step 4a: Fetch all likes for the post as a list (Mono<List<Likes>>)
-                                Mono<List<Likes>> likesMono = likeRepository.findByPostId(post.getId()).collectList();
-
-                                // Step 4b: Fetch all comments for the post as a list (Mono<List<Comments>>)
-                                Mono<List<Comments>> commentsMono = commentRepository.findByPostId(post.getId()).collectList();
-
-                                // Step 5: Combine both likes and comments using Mono.zip
-                                return Mono.zip(likesMono, commentsMono)
-
-                                        // Once both likes and comments are available...
-                                        .flatMap(tuple -> {
-                                            List<Likes> likes = tuple.getT1();       // List of Likes for this post
-                                            List<Comments> comments = tuple.getT2(); // List of Comments for this post
-
-                                            // Step 6: Collect all userIds from likes and comments into a Set
-                                            Set<String> userIds = new HashSet<>();
-                                            likes.forEach(like -> userIds.add(like.getUserId()));
-                                            comments.forEach(comment -> userIds.add(comment.getUserId()));
-
-                                            // Step 7: Fetch all users involved in likes/comments in a single DB call
-                                            return userRepository.findAllById(userIds)
-
-                                                    // Step 8: Convert result to a Map<userId, username> for easy lookup
-                                                    .collectMap(User::getId, User::getUsername)
-
-                                                    // Step 9: Map likes/comments using the userId → username map
-                                                    .map(userIdToUsernameMap -> {
-
-                                                        // Step 9a: Build LikeResponseDto list
-                                                        List<LikeResponseDto> likeDtos = likes.stream().map(like -> {
-                                                            LikeResponseDto dto = new LikeResponseDto();
-                                                            dto.setUsername(userIdToUsernameMap.getOrDefault(
-                                                                    like.getUserId(), "Unknown"));
-                                                            dto.setLikedAt(like.getLikedAt());
-                                                            return dto;
-                                                        }).collect(Collectors.toList());
-
-                                                        // Step 9b: Build CommentResponseDto list
-                                                        List<CommentResponseDto> commentDtos = comments.stream().map(comment -> {
-                                                            CommentResponseDto dto = new CommentResponseDto();
-                                                            dto.setUsername(userIdToUsernameMap.getOrDefault(
-                                                                    comment.getUserId(), "Unknown"));
-                                                            dto.setText(comment.getText());
-                                                            dto.setCommentedAt(comment.getCommentedAt());
-                                                            return dto;
-                                                        }).collect(Collectors.toList());
-
-                                                        // Step 10: Build the final PostResponseDto
-                                                        PostResponseDto dto = new PostResponseDto();
-                                                        dto.setUserId(post.getUserId());             // Creator of the post
-                                                        dto.setContent(post.getContent());           // Post content
-                                                        dto.setCreatedAt(post.getCreatedAt());       // Post creation time
-                                                        dto.setLikes(likeDtos);                      // All likes with usernames
-                                                        dto.setComments(commentDtos);                // All comments with usernames
-                                                        dto.setLikeCount(likeDtos.size());           // Like count
-                                                        dto.setCommentCount(commentDtos.size());     // Comment count
-
-                                                        // Emit the completed DTO
-                                                        return dto;
-                                                    });
-                                        });
-                            });
+    /**
+     * Hydrate a whole page of posts with their likes and comments.
+     * FULL: one $in query for likes and one for comments covering the whole page.
+     * SUMMARY: per post, an index-ordered query limited to the preview size, so a viral post
+     * costs the same as any other. Either way all usernames are resolved in one batch.
+     */
+    private Mono<List<PostResponseDto>> toPostResponseDtos(List<Post> posts, FeedView view) {
+        if (posts.isEmpty()) {
+            return Mono.just(List.of());
+        }
+
+        List<String> postIds = posts.stream().map(Post::getId).toList();
+
+        // Step 4a: Fetch the likes of every post in the page, grouped by postId
+        Mono<Map<String, Collection<Likes>>> likesMono = view == FeedView.FULL
+                ? likeRepository.findByPostIdIn(postIds).collectMultimap(Likes::getPostId)
+                : recentLikes(postIds);
+
+        // Step 4b: Fetch the comments of every post in the page, grouped by postId
+        Mono<Map<String, Collection<Comments>>> commentsMono = view == FeedView.FULL
+                ? commentRepository.findByPostIdIn(postIds).collectMultimap(Comments::getPostId)
+                : recentComments(postIds);
+
+        // Step 5: Combine both likes and comments using Mono.zip
+        return feedMetrics.timeStage("hydration", Mono.zip(likesMono, commentsMono))
+
+                // Once both likes and comments are available...
+                .flatMap(tuple -> {
+                    Map<String, Collection<Likes>> likesByPost = tuple.getT1();
+                    Map<String, Collection<Comments>> commentsByPost = tuple.getT2();
+
+                    // Step 6: Collect all userIds from likes and comments of the whole page into a Set
+                    Set<String> userIds = FeedAssembler.userIds(likesByPost, commentsByPost);
+
+                    // Step 7 + 8: Resolve all users involved in likes/comments to a Map<userId, username>
+                    // (cached; only ids missing from both cache tiers go to the DB, in one call)
+                    return feedMetrics.timeStage("usernames", usernameService.getUsernames(userIds))
+
+                            // Step 9: Assemble the DTOs in memory, keeping the page order
+                            .map(userIdToUsernameMap -> feedMetrics.timeStage("mapping", () ->
+                                    FeedAssembler.assemble(posts, likesByPost, commentsByPost, userIdToUsernameMap)));
                 });
     }
 
+    /**
+     * The preview-size most recent likes of each post, grouped by postId.
+     */
+    private Mono<Map<String, Collection<Likes>>> recentLikes(List<String> postIds) {
+        int previewSize = feedProperties.getSummary().getPreviewSize();
+        if (previewSize <= 0) {
+            return Mono.just(Map.of());
+        }
+
+        PageRequest preview = PageRequest.of(0, previewSize);
+        return Flux.fromIterable(postIds)
+                .flatMap(postId -> likeRepository.findByPostIdOrderByLikedAtDesc(postId, preview),
+                        feedProperties.getConcurrency().getHydration())
+                .collectMultimap(Likes::getPostId);
+    }
+
+    /**
+     * The preview-size most recent comments of each post, grouped by postId.
+     */
+    private Mono<Map<String, Collection<Comments>>> recentComments(List<String> postIds) {
+        int previewSize = feedProperties.getSummary().getPreviewSize();
+        if (previewSize <= 0) {
+            return Mono.just(Map.of());
+        }
+
+        PageRequest preview = PageRequest.of(0, previewSize);
+        return Flux.fromIterable(postIds)
+                .flatMap(postId -> commentRepository.findByPostIdOrderByCommentedAtDesc(postId, preview),
+                        feedProperties.getConcurrency().getHydration())
+                .collectMultimap(Comments::getPostId);
+    }
+
 }
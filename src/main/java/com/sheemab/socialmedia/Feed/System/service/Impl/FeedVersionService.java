@@ -0,0 +1,171 @@
+package com.sheemab.socialmedia.Feed.System.service.Impl;
+
+import com.sheemab.socialmedia.Feed.System.config.FeedProperties;
+import com.sheemab.socialmedia.Feed.System.repository.FeedVersionRepository;
+import com.sheemab.socialmedia.Feed.System.repository.FollowRepository;
+import com.sheemab.socialmedia.Feed.System.service.IFeedVersionService;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.util.List;
+
+/**
+ * Per-user feed version stamps. A stamp changes whenever the user's feed may have changed:
+ * - a followed author posted or deleted a post  -> stamps of the author's followers, right away
+ * - a post got/lost a like or comment           -> stamps of the viewers that were served the post, batched every engagement-flush
+ * - the user followed/unfollowed someone, or liked/commented -> the user's own stamp, right away
+ * Stamps roll over every etag-period, which bounds how long a post has to remember its viewers.
+ * Stamp errors never fail the write that caused them; the worst case is a 200 where a 304 would have done.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class FeedVersionService implements IFeedVersionService {
+
+    private final FeedVersionRepository feedVersionRepository;
+    private final FollowRepository followRepository;
+    private final FeedProperties feedProperties;
+
+    /**
+     * The current stamp of the user's feed (counter and etag-period number);
+     * empty when stamps are disabled or Redis is unavailable.
+     */
+    @Override
+    public Mono<String> currentVersion(String userId) {
+        if (!isEnabled()) {
+            return Mono.empty();
+        }
+        long period = System.currentTimeMillis() / feedProperties.getVersions().getEtagPeriod().toMillis();
+        return feedVersionRepository.current(userId)
+                .map(version -> version + "." + period)
+                .onErrorResume(e -> {
+                    log.warn("Could not read the feed version of {}", userId, e);
+                    return Mono.empty();
+                });
+    }
+
+    /**
+     * Fire-and-forget: one bump per follower of the author, like a timeline fan-out,
+     * so the caller does not wait for large follower lists.
+     */
+    @Override
+    public void postsChanged(String authorId) {
+        if (!isEnabled()) {
+            return;
+        }
+        bumpFollowers(authorId)
+                .subscribe(null, e -> log.warn("Could not bump the feed versions of the followers of {}", authorId, e));
+    }
+
+    /**
+     * The viewer is about to get a page with these posts: later likes/comments on them bump the viewer.
+     * Called once the posts of the page are selected, before the page is sent.
+     * Registered for two etag-periods: a page served late in one period stays covered until the period is
+     * over (its ETag changes with the next one), with margin for clocks of other instances.
+     */
+    @Override
+    public Mono<Void> pageServed(String viewerId, List<String> postIds) {
+        if (!isEnabled() || postIds.isEmpty()) {
+            return Mono.empty();
+        }
+        Duration ttl = feedProperties.getVersions().getEtagPeriod().multipliedBy(2);
+        return feedVersionRepository.registerViewer(viewerId, postIds, ttl)
+                .onErrorResume(e -> {
+                    log.warn("Could not register the feed page of {}", viewerId, e);
+                    return Mono.empty();
+                });
+    }
+
+    /**
+     * A like/comment by userId on postId. The post is only recorded here; the viewers that were served it
+     * are bumped by flushEngagement(), once per flush however many likes the post got in between.
+     * Callers record the change once it is written, so a page read after the bump sees it.
+     * The acting user's own stamp is bumped right away (their likedByViewer flags changed).
+     */
+    @Override
+    public Mono<Void> engagementChanged(String postId, String userId) {
+        if (!isEnabled()) {
+            return Mono.empty();
+        }
+        return feedVersionRepository.markPostChanged(postId)
+                .then(feedVersionRepository.bump(userId))
+                .onErrorResume(e -> {
+                    log.warn("Could not record the engagement change of post {}", postId, e);
+                    return Mono.empty();
+                });
+    }
+
+    @Override
+    public Mono<Void> followingChanged(String userId) {
+        if (!isEnabled()) {
+            return Mono.empty();
+        }
+        return feedVersionRepository.bump(userId)
+                .onErrorResume(e -> {
+                    log.warn("Could not bump the feed version of {}", userId, e);
+                    return Mono.empty();
+                });
+    }
+
+    /**
+     * Bump the viewers of every post changed since the last run (not all followers of its author:
+     * for a large account most of them never had the post on a page).
+     * Works in batches of flush-batch-size until the changed set is empty.
+     *
+     * @return number of changed posts handled
+     */
+    @Override
+    @Scheduled(fixedDelayString = "${feed.versions.engagement-flush:5s}")
+    public Mono<Long> flushEngagement() {
+        if (!isEnabled()) {
+            return Mono.just(0L);
+        }
+        int batchSize = feedProperties.getVersions().getFlushBatchSize();
+
+        return Mono.defer(() -> flushBatch(batchSize))
+                .repeat()
+                // a short batch means the set is drained
+                .takeUntil(flushed -> flushed < batchSize)
+                .reduce(0L, Long::sum)
+                .onErrorResume(e -> {
+                    log.warn("Feed version engagement flush failed", e);
+                    return Mono.just(0L);
+                });
+    }
+
+    private Mono<Long> flushBatch(int batchSize) {
+        return feedVersionRepository.popChangedPosts(batchSize)
+                .concatMap(postId -> bumpViewers(postId, batchSize))
+                .count();
+    }
+
+    /**
+     * Pop and bump the registered viewers of one post, batchSize at a time.
+     * The post is marked as recently changed first, so a viewer registered concurrently is bumped either here
+     * or by the registration itself.
+     */
+    private Mono<String> bumpViewers(String postId, int batchSize) {
+        return feedVersionRepository.markRecentlyChanged(postId)
+                .thenMany(Mono.defer(() -> feedVersionRepository.popViewers(postId, batchSize).collectList())
+                        .repeat()
+                        .takeUntil(viewers -> viewers.size() < batchSize)
+                        .flatMapIterable(viewers -> viewers))
+                .flatMap(feedVersionRepository::bump, feedProperties.getConcurrency().getFanOut())
+                .then(Mono.just(postId));
+    }
+
+    private Mono<Void> bumpFollowers(String authorId) {
+        return followRepository.findByFolloweeId(authorId)
+                .flatMap(edge -> feedVersionRepository.bump(edge.getFollowerId()),
+                        feedProperties.getConcurrency().getFanOut())
+                .then();
+    }
+
+    private boolean isEnabled() {
+        return feedProperties.getVersions().isEnabled();
+    }
+}
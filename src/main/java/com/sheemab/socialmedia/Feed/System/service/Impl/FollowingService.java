@@ -0,0 +1,122 @@
+package com.sheemab.socialmedia.Feed.System.service.Impl;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.sheemab.socialmedia.Feed.System.config.FeedProperties;
+import com.sheemab.socialmedia.Feed.System.entity.Follow;
+import com.sheemab.socialmedia.Feed.System.repository.FollowRepository;
+import com.sheemab.socialmedia.Feed.System.service.IFollowingService;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.redis.core.ReactiveStringRedisTemplate;
+import org.springframework.stereotype.Service;
+import reactor.core.Disposable;
+import reactor.core.publisher.Mono;
+import reactor.util.retry.Retry;
+
+import java.time.Duration;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Collectors;
+
+/**
+ * Ids of the users each user follows, for PULL feed reads: the followee set is loaded once and reused
+ * by the following reads instead of being read from the follows collection on every page.
+ * Bounded by the total number of ids held (a user following thousands of accounts weighs that much) and by a ttl.
+ * Follows/unfollows evict the follower's set here and on every other instance, through the same
+ * Redis channel that tells live feed connections to re-read who they follow.
+ */
+@Slf4j
+@Service
+public class FollowingService implements IFollowingService {
+
+    private final FollowRepository followRepository;
+    private final ReactiveStringRedisTemplate redisTemplate;
+    private final FeedProperties.FollowingCache settings;
+    private final String changesChannel;
+    private final Cache<String, Set<String>> cache;
+
+    // bumped on every eviction: a set loaded while one happened may already be stale and is not kept
+    private final AtomicLong evictions = new AtomicLong();
+
+    private Disposable invalidationSubscription;
+
+    public FollowingService(FollowRepository followRepository,
+                            ReactiveStringRedisTemplate redisTemplate,
+                            FeedProperties feedProperties,
+                            MeterRegistry meterRegistry) {
+        this.followRepository = followRepository;
+        this.redisTemplate = redisTemplate;
+        this.settings = feedProperties.getFollowingCache();
+        this.changesChannel = feedProperties.getLive().getFollowingChannel();
+        this.cache = Caffeine.newBuilder()
+                .maximumWeight(settings.getMaxIds())
+                .weigher((String userId, Set<String> followeeIds) -> followeeIds.size() + 1)
+                .expireAfterWrite(settings.getTtl())
+                .recordStats()
+                .build();
+
+        CaffeineCacheMetrics.monitor(meterRegistry, cache, "following");
+    }
+
+    /**
+     * Who the user follows: from the cache, or one indexed read of the user's follow edges.
+     */
+    @Override
+    public Mono<Set<String>> followeeIds(String userId) {
+        if (!settings.isEnabled()) {
+            return load(userId);
+        }
+        return Mono.defer(() -> {
+            Set<String> cached = cache.getIfPresent(userId);
+            if (cached != null) {
+                return Mono.just(cached);
+            }
+            long evictionsBefore = evictions.get();
+            return load(userId)
+                    .doOnNext(followeeIds -> {
+                        if (evictions.get() == evictionsBefore) {
+                            cache.put(userId, followeeIds);
+                        }
+                    });
+        });
+    }
+
+    /**
+     * Drop this instance's copy right away (the writer's next read sees its own follow);
+     * other instances drop theirs when the follow change is announced.
+     */
+    @Override
+    public void evict(String userId) {
+        evictions.incrementAndGet();
+        cache.invalidate(userId);
+    }
+
+    /**
+     * Resubscribes with backoff if Redis is unavailable or the connection drops;
+     * a lost message only keeps a set until its ttl.
+     */
+    @PostConstruct
+    void listenForChanges() {
+        invalidationSubscription = redisTemplate.listenToChannel(changesChannel)
+                .doOnNext(message -> evict(message.getMessage()))
+                .retryWhen(Retry.backoff(Long.MAX_VALUE, Duration.ofSeconds(1)).maxBackoff(Duration.ofSeconds(30)))
+                .subscribe();
+    }
+
+    @PreDestroy
+    void stopListening() {
+        if (invalidationSubscription != null) {
+            invalidationSubscription.dispose();
+        }
+    }
+
+    private Mono<Set<String>> load(String userId) {
+        return followRepository.findByFollowerId(userId)
+                .map(Follow::getFolloweeId)
+                .collect(Collectors.toUnmodifiableSet());
+    }
+}
@@ -0,0 +1,131 @@
+package com.sheemab.socialmedia.Feed.System.service.Impl;
+
+import com.sheemab.socialmedia.Feed.System.config.FeedProperties;
+import com.sheemab.socialmedia.Feed.System.entity.Likes;
+import com.sheemab.socialmedia.Feed.System.repository.HotPostRepository;
+import com.sheemab.socialmedia.Feed.System.repository.LikeRepository;
+import com.sheemab.socialmedia.Feed.System.service.IHotPostService;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+import reactor.core.publisher.Mono;
+
+/**
+ * Hot-post tier: posts with at least like-threshold likes answer hasUserLiked / countLikes from a
+ * Redis set of their likers instead of Mongo. Mongo stays the source of truth: the set is built from
+ * the likes collection, every like/unlike is mirrored into it after the Mongo write, and any Redis
+ * failure takes the post out of the tier so reads fall back to Mongo.
+ * Reads return an empty Mono for posts that are not (yet) in the tier; callers fall back with switchIfEmpty().
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class HotPostService implements IHotPostService {
+
+    private static final int LOAD_BATCH_SIZE = 1_000; // likers per SADD while promoting
+
+    private final HotPostRepository hotPostRepository;
+    private final LikeRepository likeRepository;
+    private final FeedProperties feedProperties;
+
+    @Override
+    public Mono<Boolean> hasLiked(String postId, String userId) {
+        return whenReady(postId, hotPostRepository.isLiker(postId, userId));
+    }
+
+    /**
+     * Exact like count of a hot post (SCARD of its likers set).
+     */
+    @Override
+    public Mono<Integer> likeCount(String postId) {
+        return whenReady(postId, hotPostRepository.likerCount(postId).map(Long::intValue));
+    }
+
+    /**
+     * Promote the post in the background once it reaches the threshold (the caller does not wait for the load).
+     * One instance wins the promotion; the set is filled from Mongo and only then marked ready, by that same
+     * promotion only (its warming token), after removing the likers that unliked while the scan was running.
+     */
+    @Override
+    public void promoteIfHot(String postId, int likeCount) {
+        if (!isEnabled() || likeCount < feedProperties.getHotPosts().getLikeThreshold()) {
+            return;
+        }
+
+        hotPostRepository.startWarming(postId)
+                .flatMap(token -> likeRepository.findLikersByPostId(postId)
+                        .map(Likes::getUserId)
+                        .buffer(LOAD_BATCH_SIZE)
+                        .concatMap(userIds -> hotPostRepository.addLikers(postId, userIds))
+                        .then(hotPostRepository.markReady(postId, token)))
+                .doOnNext(promoted -> {
+                    if (promoted) {
+                        log.info("Post {} moved to the hot-post tier", postId);
+                    } else {
+                        log.info("Promotion of post {} was superseded before it finished", postId);
+                    }
+                })
+                .onErrorResume(e -> demote(postId, e).thenReturn(false))
+                .subscribe();
+    }
+
+    /**
+     * Mirror a like that is already in Mongo. Only touches the set of posts in the tier.
+     */
+    @Override
+    public Mono<Void> onLike(String postId, String userId) {
+        return mirror(postId, hotPostRepository.addLiker(postId, userId));
+    }
+
+    @Override
+    public Mono<Void> onUnlike(String postId, String userId) {
+        return mirror(postId, hotPostRepository.removeLiker(postId, userId));
+    }
+
+    /**
+     * A like write whose outcome is unknown (it failed part way) cannot be mirrored: drop the post from the tier.
+     */
+    @Override
+    public Mono<Void> onWriteFailed(String postId) {
+        if (!isEnabled()) {
+            return Mono.empty();
+        }
+        return demote(postId, null);
+    }
+
+    private <T> Mono<T> whenReady(String postId, Mono<T> read) {
+        if (!isEnabled()) {
+            return Mono.empty();
+        }
+        return hotPostRepository.isReady(postId)
+                .filter(ready -> ready)
+                .flatMap(ready -> read)
+                // Redis is only a cache here: fall back to Mongo
+                .onErrorResume(e -> {
+                    log.warn("Hot-post lookup for {} failed, falling back to Mongo", postId, e);
+                    return Mono.empty();
+                });
+    }
+
+    private Mono<Void> mirror(String postId, Mono<Void> write) {
+        if (!isEnabled()) {
+            return Mono.empty();
+        }
+        return write
+                // a missed write would leave the set wrong: drop the post from the tier instead
+                .onErrorResume(e -> demote(postId, e));
+    }
+
+    private Mono<Void> demote(String postId, Throwable cause) {
+        log.warn("Taking post {} out of the hot-post tier", postId, cause);
+        return hotPostRepository.demote(postId)
+                .onErrorResume(e -> {
+                    log.error("Could not demote hot post {}; it expires after feed.hot-posts.ttl", postId, e);
+                    return Mono.empty();
+                });
+    }
+
+    private boolean isEnabled() {
+        return feedProperties.getHotPosts().isEnabled();
+    }
+}
@@ -0,0 +1,131 @@
+package com.sheemab.socialmedia.Feed.System.service.Impl;
+
+import com.sheemab.socialmedia.Feed.System.config.FeedProperties;
+import com.sheemab.socialmedia.Feed.System.dto.FeedCursor;
+import com.sheemab.socialmedia.Feed.System.entity.Post;
+import com.sheemab.socialmedia.Feed.System.repository.PostRepository;
+import lombok.RequiredArgsConstructor;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Deque;
+import java.util.List;
+import java.util.PriorityQueue;
+import java.util.Set;
+
+/**
+ * Pull engine that never asks Mongo to sort the union of all followed authors' posts.
+ * Every author gets its own stream read in small index-ordered chunks (userId, createdAt, id),
+ * and the heads of those streams are merged with a heap until one page is complete.
+ * Work per page is O(authors * chunk-size) documents instead of "everything the authors ever posted".
+ */
+@Component
+@RequiredArgsConstructor
+public class KWayMergeFeedEngine {
+
+    private final PostRepository postRepository;
+    private final FeedProperties feedProperties;
+
+    /**
+     * Up to {@code count} posts of the given authors, newest first, strictly after the cursor (if any).
+     */
+    public Flux<Post> merge(Set<String> authorIds, FeedCursor after, int count) {
+        if (authorIds == null || authorIds.isEmpty() || count <= 0) {
+            return Flux.empty();
+        }
+
+        FeedProperties.Merge settings = feedProperties.getMerge();
+        int chunkSize = Math.max(1, Math.min(count, settings.getChunkSize()));
+
+        return Flux.fromIterable(authorIds)
+                // Step 1: open every author's stream with its first chunk (bounded number in flight)
+                .flatMap(authorId -> loadChunk(authorId, after, chunkSize)
+                        .map(chunk -> new AuthorStream(authorId, chunk, chunkSize)), settings.getConcurrency())
+                .filter(AuthorStream::hasNext)
+                // Step 2: heap of streams ordered by their newest buffered post
+                .collect(() -> new PriorityQueue<>(AuthorStream.BY_HEAD), PriorityQueue<AuthorStream>::add)
+                // Step 3: pop heads until the page is full
+                .flatMap(heap -> drain(heap, new ArrayList<>(count), count, chunkSize))
+                .flatMapIterable(page -> page);
+    }
+
+    /**
+     * Move posts from the heap into the page. When an author's buffer runs dry while it may still have
+     * older posts, its next chunk is fetched before anything else is emitted, because that chunk's
+     * first post could be newer than every other head in the heap.
+     */
+    private Mono<List<Post>> drain(PriorityQueue<AuthorStream> heap, List<Post> page, int count, int chunkSize) {
+        while (page.size() < count && !heap.isEmpty()) {
+            AuthorStream stream = heap.poll();
+            Post post = stream.next();
+            page.add(post);
+
+            if (stream.hasNext()) {
+                heap.add(stream);
+            } else if (stream.mayHaveMore() && page.size() < count) {
+                return loadChunk(stream.authorId, FeedCursor.of(post), chunkSize)
+                        .flatMap(chunk -> {
+                            stream.refill(chunk, chunkSize);
+                            if (stream.hasNext()) {
+                                heap.add(stream);
+                            }
+                            return drain(heap, page, count, chunkSize);
+                        });
+            }
+        }
+        return Mono.just(page);
+    }
+
+    private Mono<List<Post>> loadChunk(String authorId, FeedCursor after, int chunkSize) {
+        PageRequest limit = PageRequest.of(0, chunkSize);
+        Flux<Post> posts = after == null
+                ? postRepository.findByUserIdOrderByCreatedAtDescIdDesc(authorId, limit)
+                : postRepository.findByUserIdBefore(authorId, after.createdAt(), after.id(), limit);
+        return posts.collectList();
+    }
+
+    /**
+     * One author's stream: the buffered chunk, and whether the last chunk came back full
+     * (a short chunk means the author has no older posts).
+     */
+    private static final class AuthorStream {
+
+        static final Comparator<AuthorStream> BY_HEAD =
+                Comparator.comparing(AuthorStream::peek, FeedCursor.NEWEST_FIRST);
+
+        private final String authorId;
+        private final Deque<Post> buffer = new ArrayDeque<>();
+        private boolean mayHaveMore;
+
+        AuthorStream(String authorId, List<Post> chunk, int chunkSize) {
+            this.authorId = authorId;
+            refill(chunk, chunkSize);
+        }
+
+        void refill(List<Post> chunk, int chunkSize) {
+            buffer.addAll(chunk);
+            mayHaveMore = chunk.size() == chunkSize;
+        }
+
+        boolean hasNext() {
+            return !buffer.isEmpty();
+        }
+
+        boolean mayHaveMore() {
+            return mayHaveMore;
+        }
+
+        Post peek() {
+            return buffer.peekFirst();
+        }
+
+        Post next() {
+            return buffer.pollFirst();
+        }
+    }
+}
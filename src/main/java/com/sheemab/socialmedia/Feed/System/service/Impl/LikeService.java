@@ -1,5 +1,6 @@
 package com.sheemab.socialmedia.Feed.System.service.Impl;
 
+import com.sheemab.socialmedia.Feed.System.config.FeedProperties;
 import com.sheemab.socialmedia.Feed.System.dto.LikeResponseDto;
 import com.sheemab.socialmedia.Feed.System.entity.Likes;
 import com.sheemab.socialmedia.Feed.System.entity.Post;
@@ -7,28 +8,52 @@ import com.sheemab.socialmedia.Feed.System.entity.User;
 import com.sheemab.socialmedia.Feed.System.repository.LikeRepository;
 import com.sheemab.socialmedia.Feed.System.repository.PostRepository;
 import com.sheemab.socialmedia.Feed.System.repository.UserRepository;
+import com.sheemab.socialmedia.Feed.System.service.IFeedVersionService;
+import com.sheemab.socialmedia.Feed.System.service.IHotPostService;
 import com.sheemab.socialmedia.Feed.System.service.ILikeService;
+import com.sheemab.socialmedia.Feed.System.service.IUsernameService;
 import lombok.RequiredArgsConstructor;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.http.HttpStatus;
 import org.springframework.stereotype.Service;
+import org.springframework.web.server.ResponseStatusException;
 import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 
 import java.time.LocalDateTime;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
 
 @Service
 @RequiredArgsConstructor
 public class LikeService implements ILikeService {
 
+    private static final String LIKE_COUNT = "like-count"; // coalesced countLikes() reads
+
     private final LikeRepository likeRepository;
     private final PostRepository postRepository;
     private final UserRepository userRepository;
+    private final IUsernameService usernameService;
+    private final FeedProperties feedProperties;  // max post ids per viewer-state request
+    private final IHotPostService hotPostService; // Redis likers sets of very liked posts
+    private final LikeWriteBehind likeWriteBehind; // optional buffered path (feed.like-writes.enabled)
+    private final IFeedVersionService feedVersionService; // feed version stamps (ETag)
+    private final RequestCoalescer requestCoalescer;      // shares identical concurrent reads
 
 
     /**
      * Add a like to a post by a user
+     * Idempotent: liking a post twice keeps the first like (and its likedAt) and does not bump the counter again.
+     * The unique (postId, userId) index decides, so two concurrent likes cannot both count.
      */
     @Override
     public Mono<LikeResponseDto> addLike(String postId, String userId) {
+        if (likeWriteBehind.isEnabled()) {
+            return likeCountChanged(postId, bufferedLike(postId, userId));
+        }
+
         // 1️ Check if the post exists
         Mono<Post> postMono = postRepository.findById(postId)
                 .switchIfEmpty(Mono.error(new RuntimeException("Post not found: " + postId)));
@@ -48,8 +73,16 @@ public class LikeService implements ILikeService {
                     like.setPostId(postId);
                     like.setLikedAt(LocalDateTime.now());
 
-                    // 5️ Save Like and convert to DTO
-                    return likeRepository.save(like)
+                    // 5️ Insert Like and bump the post's likeCount atomically ($inc)
+                    //    Already liked -> the insert hits the unique index, return the existing like instead
+                    return likeRepository.insert(like)
+                            .flatMap(saved -> postRepository.incrementLikeCount(postId, 1).thenReturn(saved))
+                            .flatMap(saved -> hotPostService.onLike(postId, userId).thenReturn(saved))
+                            .flatMap(saved -> feedVersionService.engagementChanged(postId, userId).thenReturn(saved))
+                            .doOnNext(saved -> requestCoalescer.invalidate(LIKE_COUNT, postId))
+                            .onErrorResume(DuplicateKeyException.class,
+                                    e -> likeRepository.findByPostIdAndUserId(postId, userId))
+                            // 6️ Convert to DTO
                             .map(saved -> {
                                 LikeResponseDto dto = new LikeResponseDto();
                                 dto.setUsername(user.getUsername());
@@ -61,47 +94,127 @@ public class LikeService implements ILikeService {
 
     /**
      * Remove a like by a user on a post
+     * The post's likeCount is decremented by the number of likes actually deleted,
+     * so two concurrent unlikes cannot decrement it twice.
+     * With write-behind enabled the delete is buffered, and unliking a post that was not liked is not reported;
+     * the feed versions and hot-post sets are then updated by the flush, once the delete is written.
      */
     @Override
     public Mono<Void> removeLike(String postId, String userId) {
-        return likeRepository.findByPostIdAndUserId(postId, userId)
-                .switchIfEmpty(Mono.error(new RuntimeException("Like not found for post: " + postId)))
-                .flatMap(likeRepository::delete); // flatMap because delete() returns Mono<Void>
+        if (likeWriteBehind.isEnabled()) {
+            return likeCountChanged(postId, likeWriteBehind.unlike(postId, userId));
+        }
+
+        return likeRepository.deleteByPostIdAndUserId(postId, userId)
+                .flatMap(deleted -> deleted == 0
+                        ? Mono.error(new RuntimeException("Like not found for post: " + postId))
+                        : postRepository.incrementLikeCount(postId, -deleted.intValue()))
+                .then(hotPostService.onUnlike(postId, userId))
+                .then(Mono.fromRunnable(() -> requestCoalescer.invalidate(LIKE_COUNT, postId)))
+                .then(feedVersionService.engagementChanged(postId, userId));
+    }
+
+    /**
+     * Once a buffered like/unlike is acknowledged, the next count is read again instead of served from
+     * a load that started before it (with acknowledge = buffered the counter itself follows at the flush).
+     */
+    private <T> Mono<T> likeCountChanged(String postId, Mono<T> write) {
+        return write.doOnSuccess(result -> requestCoalescer.invalidate(LIKE_COUNT, postId));
+    }
+
+    /**
+     * Write-behind variant of addLike(): no post or user read per click.
+     * The user is checked through the username cache, the post once per flush.
+     * The feed versions and hot-post sets are updated by the flush, once the like is written.
+     */
+    private Mono<LikeResponseDto> bufferedLike(String postId, String userId) {
+        return usernameService.getUsernames(List.of(userId))
+                .flatMap(usernames -> {
+                    String username = usernames.get(userId);
+                    if (username == null) {
+                        return Mono.error(new RuntimeException("User not found: " + userId));
+                    }
+                    return likeWriteBehind.like(postId, userId)
+                            .map(likedAt -> {
+                                LikeResponseDto dto = new LikeResponseDto();
+                                dto.setUsername(username);
+                                dto.setLikedAt(likedAt);
+                                return dto;
+                            });
+                });
     }
 
     /**
      * Get all likes for a post
+     * Usernames are resolved in one batch through the username cache instead of one lookup per like.
+     * Likes of users that no longer exist are skipped.
      */
     @Override
     public Flux<LikeResponseDto> getLikesByPost(String postId) {
         return likeRepository.findByPostId(postId)
-                .flatMap(like ->
-                        userRepository.findById(like.getUserId())
-                                .map(user -> {
+                .collectList()
+                .flatMapMany(likes -> usernameService.getUsernames(
+                                likes.stream().map(Likes::getUserId).toList())
+                        .flatMapIterable(usernames -> likes.stream()
+                                .filter(like -> usernames.containsKey(like.getUserId()))
+                                .map(like -> {
                                     LikeResponseDto dto = new LikeResponseDto();
-                                    dto.setUsername(user.getUsername());
+                                    dto.setUsername(usernames.get(like.getUserId()));
                                     dto.setLikedAt(like.getLikedAt());
                                     return dto;
                                 })
-                );
+                                .toList()));
     }
 
     /**
      * Get the count of likes for a post
+     * Hot posts are answered from Redis; otherwise reads the denormalized Post.likeCount
+     * instead of counting like documents (and promotes the post if it has become hot).
+     * Concurrent requests for the same post share one lookup.
      */
     @Override
     public Mono<Integer> countLikes(String postId) {
-        return likeRepository.countByPostId(postId);
+        return requestCoalescer.coalesce(LIKE_COUNT, postId, () -> hotPostService.likeCount(postId)
+                .switchIfEmpty(postRepository.findCountersById(postId)
+                        .map(Post::getLikeCount)
+                        .doOnNext(likeCount -> hotPostService.promoteIfHot(postId, likeCount))
+                        .defaultIfEmpty(0))); // unknown post -> no likes
     }
 
     /**
      * Check if a user has liked a post
+     * Hot posts are answered from Redis, everything else from the likes collection.
      */
     @Override
     public Mono<Boolean> hasUserLiked(String postId, String userId) {
-        return likeRepository.findByPostIdAndUserId(postId, userId)
-                .map(like -> true)     // If found → true
-                .defaultIfEmpty(false); // If empty → false
+        return hotPostService.hasLiked(postId, userId)
+                .switchIfEmpty(likeRepository.findByPostIdAndUserId(postId, userId)
+                        .map(like -> true)      // If found → true
+                        .defaultIfEmpty(false)); // If empty → false
     }
-}
 
+    /**
+     * Check which of several posts a user has liked, in one indexed query.
+     * Returns postId -> liked for every requested id, in request order.
+     */
+    @Override
+    public Mono<Map<String, Boolean>> hasUserLikedPosts(String userId, List<String> postIds) {
+        int maxPostIds = feedProperties.getPage().getMaxLimit();
+        if (postIds.size() > maxPostIds) {
+            return Mono.error(new ResponseStatusException(
+                    HttpStatus.BAD_REQUEST, "At most " + maxPostIds + " post ids per request"));
+        }
+        if (postIds.isEmpty()) {
+            return Mono.just(Map.of());
+        }
+
+        return likeRepository.findLikedPosts(userId, postIds)
+                .map(Likes::getPostId)
+                .collect(Collectors.toSet())
+                .map(liked -> {
+                    Map<String, Boolean> result = new LinkedHashMap<>();
+                    postIds.forEach(postId -> result.put(postId, liked.contains(postId)));
+                    return result;
+                });
+    }
+}
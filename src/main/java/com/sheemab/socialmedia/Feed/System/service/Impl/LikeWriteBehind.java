@@ -0,0 +1,334 @@
+package com.sheemab.socialmedia.Feed.System.service.Impl;
+
+import com.mongodb.ErrorCategory;
+import com.mongodb.MongoBulkWriteException;
+import com.mongodb.WriteConcern;
+import com.mongodb.bulk.BulkWriteResult;
+import com.mongodb.client.model.BulkWriteOptions;
+import com.mongodb.client.model.DeleteOneModel;
+import com.mongodb.client.model.UpdateOneModel;
+import com.mongodb.client.model.UpdateOptions;
+import com.mongodb.client.model.WriteModel;
+import com.sheemab.socialmedia.Feed.System.config.FeedProperties;
+import com.sheemab.socialmedia.Feed.System.entity.Likes;
+import com.sheemab.socialmedia.Feed.System.entity.Post;
+import com.sheemab.socialmedia.Feed.System.service.IFeedVersionService;
+import com.sheemab.socialmedia.Feed.System.service.IHotPostService;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.bson.Document;
+import org.bson.conversions.Bson;
+import org.bson.types.ObjectId;
+import org.springframework.data.mongodb.core.ReactiveMongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Component;
+import org.springframework.web.server.ResponseStatusException;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+import reactor.util.retry.Retry;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+/**
+ * Write-behind pipeline for likes/unlikes (feed.like-writes.enabled).
+ * Operations are buffered for up to one window (or max-batch-size operations) and flushed together:
+ * - per (postId, userId) only the last operation of the window is written (like + unlike + like = one like)
+ * - likes become upserts ($setOnInsert) and unlikes deletes, one unordered bulkWrite per post
+ * - the like counters of all posts in the window are adjusted with one more bulkWrite of $inc,
+ *   counting only the likes actually inserted and deleted
+ * - only then are the feed versions bumped and the hot-post likers sets updated, so a read after that
+ *   sees the new like state
+ * A viral post then costs two writes per window instead of two per click.
+ * At most queue-capacity operations wait for a flush; beyond that likes are rejected with 503
+ * instead of piling up in memory.
+ */
+@Slf4j
+@Component
+public class LikeWriteBehind {
+
+    private final ReactiveMongoTemplate mongoTemplate;
+    private final FeedProperties.LikeWrites settings;
+    private final IFeedVersionService feedVersionService;
+    private final IHotPostService hotPostService;
+    private final int bumpConcurrency;
+
+    private final Sinks.Many<LikeWrite> queue;
+    private CompletableFuture<Void> drained;
+
+    /**
+     * One buffered operation; done completes when the operation has been flushed.
+     */
+    private record LikeWrite(String postId, String userId, boolean like, LocalDateTime at, Sinks.One<Void> done) {
+    }
+
+    /**
+     * Outcome of the bulkWrite of one post: like count change of the rows actually written, and the
+     * error to report to that post's requests (null when everything, or only duplicate likes, went through).
+     */
+    private record PostResult(String postId, int likeCountDelta, Throwable error) {
+    }
+
+    public LikeWriteBehind(ReactiveMongoTemplate mongoTemplate, FeedProperties feedProperties,
+                           IFeedVersionService feedVersionService, IHotPostService hotPostService) {
+        this.mongoTemplate = mongoTemplate;
+        this.settings = feedProperties.getLikeWrites();
+        this.feedVersionService = feedVersionService;
+        this.hotPostService = hotPostService;
+        this.bumpConcurrency = feedProperties.getConcurrency().getFanOut();
+        // bounded, and not cancelled when the pipeline fails: the restarted pipeline resubscribes to the same queue
+        this.queue = Sinks.many().multicast().onBackpressureBuffer(settings.getQueueCapacity(), false);
+    }
+
+    public boolean isEnabled() {
+        return settings.isEnabled();
+    }
+
+    /**
+     * Queue a like. Completes with the like time once buffered (BUFFERED) or once written (FLUSHED).
+     */
+    public Mono<LocalDateTime> like(String postId, String userId) {
+        LocalDateTime now = LocalDateTime.now();
+        return enqueue(new LikeWrite(postId, userId, true, now, Sinks.one())).thenReturn(now);
+    }
+
+    /**
+     * Queue an unlike. Unliking a post that was not liked is not reported (the delete just matches nothing).
+     */
+    public Mono<Void> unlike(String postId, String userId) {
+        return enqueue(new LikeWrite(postId, userId, false, LocalDateTime.now(), Sinks.one()));
+    }
+
+    private Mono<Void> enqueue(LikeWrite write) {
+        return Mono.defer(() -> {
+            try {
+                // several request threads emit concurrently: retry briefly instead of failing on contention
+                queue.emitNext(write, Sinks.EmitFailureHandler.busyLooping(Duration.ofMillis(100)));
+            } catch (Sinks.EmissionException e) {
+                // queue full (flushes fall behind) or shutting down
+                return Mono.error(new ResponseStatusException(
+                        HttpStatus.SERVICE_UNAVAILABLE, "Too many pending like writes, retry later"));
+            }
+            if (settings.getAcknowledge() == FeedProperties.Acknowledge.BUFFERED) {
+                return Mono.<Void>empty();
+            }
+            // never wait forever: a window lost to a pipeline failure is not completed by anyone
+            return write.done().asMono()
+                    .timeout(settings.getWindow().plus(settings.getAcknowledgeTimeout()),
+                            Mono.error(new ResponseStatusException(HttpStatus.SERVICE_UNAVAILABLE,
+                                    "Like write not confirmed in time; it may still be applied")));
+        });
+    }
+
+    @PostConstruct
+    public void start() {
+        if (!settings.isEnabled()) {
+            return;
+        }
+        drained = queue.asFlux()
+                // fair backpressure: a slow flush holds the operations back in the queue instead of overflowing
+                .bufferTimeout(settings.getMaxBatchSize(), settings.getWindow(), true)
+                // one flush at a time, in order: a later window never overtakes an earlier one
+                .concatMap(this::flush)
+                .doOnError(e -> log.error("Like write pipeline failed, restarting it", e))
+                .retryWhen(Retry.fixedDelay(Long.MAX_VALUE, Duration.ofSeconds(1)))
+                .then()
+                .toFuture();
+    }
+
+    /**
+     * Flush whatever is still buffered before shutting down.
+     */
+    @PreDestroy
+    public void stop() throws Exception {
+        if (drained == null) {
+            return;
+        }
+        queue.emitComplete(Sinks.EmitFailureHandler.busyLooping(Duration.ofMillis(100)));
+        drained.get(settings.getWindow().toMillis() + 10_000, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Write one window. Never errors: a failed window fails the waiting requests (FLUSHED) and is logged,
+     * and the pipeline carries on with the next one. A failed post only fails the requests of that post.
+     */
+    private Mono<Void> flush(List<LikeWrite> writes) {
+        // last operation per (postId, userId) wins; keyed per post to give one bulkWrite per post
+        Map<String, Map<String, LikeWrite>> latestByPost = new LinkedHashMap<>();
+        for (LikeWrite write : writes) {
+            latestByPost.computeIfAbsent(write.postId(), postId -> new LinkedHashMap<>())
+                    .put(write.userId(), write);
+        }
+
+        return existingPostIds(latestByPost.keySet())
+                .flatMap(existing -> {
+                    // the post was deleted while its likes were buffered -> nothing to write
+                    writes.stream()
+                            .filter(write -> !existing.contains(write.postId()))
+                            .forEach(write -> write.done().tryEmitError(
+                                    new RuntimeException("Post not found: " + write.postId())));
+
+                    return Flux.fromIterable(latestByPost.entrySet())
+                            .filter(entry -> existing.contains(entry.getKey()))
+                            .concatMap(entry -> writeLikes(entry.getKey(), entry.getValue().values()))
+                            .collectList()
+                            .flatMap(results -> incrementLikeCounts(results)
+                                    .then(engagementChanged(writes, results))
+                                    .then(hotPostsChanged(latestByPost, results))
+                                    .then(Mono.<Void>fromRunnable(() -> complete(writes, results))));
+                })
+                .onErrorResume(e -> {
+                    log.error("Flushing {} like operations failed", writes.size(), e);
+                    writes.forEach(write -> write.done().tryEmitError(e));
+                    return Mono.empty();
+                });
+    }
+
+    /**
+     * Feed version bumps of the written likes (never errors).
+     */
+    private Mono<Void> engagementChanged(List<LikeWrite> writes, List<PostResult> results) {
+        Set<String> written = results.stream()
+                .filter(result -> result.error() == null)
+                .map(PostResult::postId)
+                .collect(Collectors.toSet());
+        return Flux.fromIterable(writes)
+                .filter(write -> written.contains(write.postId()))
+                .map(write -> Map.entry(write.postId(), write.userId()))
+                .distinct()
+                .flatMap(entry -> feedVersionService.engagementChanged(entry.getKey(), entry.getValue()), bumpConcurrency)
+                .then();
+    }
+
+    /**
+     * Mirror the written likes into the hot-post likers sets (never errors). Only the last operation per user
+     * was written, so only that one is mirrored; a post whose write failed part way leaves the tier.
+     */
+    private Mono<Void> hotPostsChanged(Map<String, Map<String, LikeWrite>> latestByPost, List<PostResult> results) {
+        return Flux.fromIterable(results)
+                .concatMap(result -> result.error() != null
+                        ? hotPostService.onWriteFailed(result.postId())
+                        : Flux.fromIterable(latestByPost.get(result.postId()).values())
+                        .flatMap(write -> write.like()
+                                ? hotPostService.onLike(write.postId(), write.userId())
+                                : hotPostService.onUnlike(write.postId(), write.userId()), bumpConcurrency)
+                        .then())
+                .then();
+    }
+
+    /**
+     * Answer the waiting requests: errors for posts whose write failed, success for everything else.
+     * Already-failed writes (deleted posts) ignore this.
+     */
+    private void complete(List<LikeWrite> writes, List<PostResult> results) {
+        Map<String, Throwable> errors = new LinkedHashMap<>();
+        results.stream()
+                .filter(result -> result.error() != null)
+                .forEach(result -> errors.put(result.postId(), result.error()));
+
+        for (LikeWrite write : writes) {
+            Throwable error = errors.get(write.postId());
+            if (error != null) {
+                write.done().tryEmitError(error);
+            } else {
+                write.done().tryEmitEmpty();
+            }
+        }
+    }
+
+    /**
+     * Which of the posts still exist (one _id-only query per window instead of one read per click).
+     */
+    private Mono<Set<String>> existingPostIds(Set<String> postIds) {
+        Query query = Query.query(Criteria.where("_id").in(postIds));
+        query.fields().include("_id");
+        return mongoTemplate.find(query, Post.class)
+                .map(Post::getId)
+                .collect(Collectors.toSet());
+    }
+
+    /**
+     * One unordered bulkWrite for the final like state of each user on one post (at most one row per user,
+     * so the order does not matter). A row that fails does not stop the others.
+     *
+     * @return change of the post's like count (likes actually inserted minus likes actually deleted)
+     */
+    private Mono<PostResult> writeLikes(String postId, Iterable<LikeWrite> writes) {
+        List<WriteModel<Document>> models = new ArrayList<>();
+        for (LikeWrite write : writes) {
+            Bson filter = new Document("postId", postId).append("userId", write.userId());
+            if (write.like()) {
+                // already liked -> matches and changes nothing, so a repeated like is not counted twice
+                models.add(new UpdateOneModel<>(filter,
+                        new Document("$setOnInsert", new Document("postId", postId)
+                                .append("userId", write.userId())
+                                .append("likedAt", mongoTemplate.getConverter().convertToMongoType(write.at()))),
+                        new UpdateOptions().upsert(true)));
+            } else {
+                models.add(new DeleteOneModel<>(filter));
+            }
+        }
+
+        return mongoTemplate.getCollection(mongoTemplate.getCollectionName(Likes.class))
+                .flatMap(collection -> Mono.from(collection.withWriteConcern(writeConcern())
+                        .bulkWrite(models, new BulkWriteOptions().ordered(false))))
+                .map(result -> new PostResult(postId, likeCountDelta(result), null))
+                .onErrorResume(MongoBulkWriteException.class, e -> {
+                    // the other rows were still applied: count exactly those
+                    // a duplicate like (two concurrent upserts of the same like) is simply already liked
+                    boolean onlyDuplicates = e.getWriteErrors().stream()
+                            .allMatch(error -> ErrorCategory.fromErrorCode(error.getCode()) == ErrorCategory.DUPLICATE_KEY);
+                    if (!onlyDuplicates) {
+                        log.error("Writing likes of post {} partly failed", postId, e);
+                    }
+                    return Mono.just(new PostResult(postId, likeCountDelta(e.getWriteResult()), onlyDuplicates ? null : e));
+                })
+                .onErrorResume(e -> {
+                    log.error("Writing likes of post {} failed", postId, e);
+                    return Mono.just(new PostResult(postId, 0, e));
+                });
+    }
+
+    private Mono<Void> incrementLikeCounts(List<PostResult> results) {
+        List<WriteModel<Document>> models = new ArrayList<>();
+        for (PostResult result : results) {
+            if (result.likeCountDelta() != 0) {
+                String postId = result.postId();
+                models.add(new UpdateOneModel<>(
+                        new Document("_id", ObjectId.isValid(postId) ? new ObjectId(postId) : postId),
+                        new Document("$inc", new Document("likeCount", result.likeCountDelta()))));
+            }
+        }
+        if (models.isEmpty()) {
+            return Mono.empty();
+        }
+
+        return mongoTemplate.getCollection(mongoTemplate.getCollectionName(Post.class))
+                .flatMap(collection -> Mono.from(collection.withWriteConcern(writeConcern())
+                        .bulkWrite(models, new BulkWriteOptions().ordered(false))))
+                .then();
+    }
+
+    private static int likeCountDelta(BulkWriteResult result) {
+        if (!result.wasAcknowledged()) {
+            return 0; // unacknowledged writes report nothing; the nightly reconciliation fixes the counter
+        }
+        return result.getUpserts().size() - result.getDeletedCount();
+    }
+
+    private WriteConcern writeConcern() {
+        return WriteConcern.valueOf(settings.getWriteConcern());
+    }
+}
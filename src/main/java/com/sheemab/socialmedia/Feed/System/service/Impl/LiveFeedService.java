@@ -0,0 +1,186 @@
+package com.sheemab.socialmedia.Feed.System.service.Impl;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.sheemab.socialmedia.Feed.System.config.FeedProperties;
+import com.sheemab.socialmedia.Feed.System.dto.LivePostEvent;
+import com.sheemab.socialmedia.Feed.System.dto.PostResponseDto;
+import com.sheemab.socialmedia.Feed.System.entity.Follow;
+import com.sheemab.socialmedia.Feed.System.entity.Post;
+import com.sheemab.socialmedia.Feed.System.repository.FollowRepository;
+import com.sheemab.socialmedia.Feed.System.repository.UserRepository;
+import com.sheemab.socialmedia.Feed.System.service.ILiveFeedService;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.redis.connection.ReactiveSubscription;
+import org.springframework.data.redis.core.ReactiveStringRedisTemplate;
+import org.springframework.http.codec.ServerSentEvent;
+import org.springframework.stereotype.Service;
+import reactor.core.publisher.BufferOverflowStrategy;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+import reactor.util.retry.Retry;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.stream.Collectors;
+
+/**
+ * Live feed: new posts are pushed to connected clients instead of being polled for.
+ * createPost() publishes every new post on one Redis pub/sub channel; every instance listens on
+ * that channel once and hands each post to the clients connected to it that follow the author.
+ * So a post reaches its followers whichever instance it was created on and they are connected to.
+ * Follows/unfollows are announced the same way, so a connected user's following set is re-read right away;
+ * the connections of one user on an instance share that set.
+ */
+@Slf4j
+@Service
+public class LiveFeedService implements ILiveFeedService {
+
+    private final ReactiveStringRedisTemplate redisTemplate;
+    private final FollowRepository followRepository;
+    private final UserRepository userRepository;
+    private final ObjectMapper objectMapper;
+    private final FeedProperties.Live settings;
+
+    // One channel subscription per instance, shared by all connected clients
+    private final Flux<LivePostEvent> events;
+
+    // userIds whose follows changed (on any instance), shared the same way
+    private final Flux<String> followingChanges;
+
+    // latest following set of each connected user, loaded once for all of that user's connections
+    private final Map<String, Flux<Set<String>>> followingByUser = new ConcurrentHashMap<>();
+
+    public LiveFeedService(ReactiveStringRedisTemplate redisTemplate,
+                           FollowRepository followRepository,
+                           UserRepository userRepository,
+                           ObjectMapper objectMapper,
+                           FeedProperties feedProperties) {
+        this.redisTemplate = redisTemplate;
+        this.followRepository = followRepository;
+        this.userRepository = userRepository;
+        this.objectMapper = objectMapper;
+        this.settings = feedProperties.getLive();
+
+        // share(): subscribed to Redis while at least one client is connected
+        // Resubscribes with backoff if Redis is unavailable or the connection drops
+        this.events = redisTemplate.listenToChannel(settings.getChannel())
+                .concatMap(message -> parse(message.getMessage()))
+                .retryWhen(Retry.backoff(Long.MAX_VALUE, Duration.ofSeconds(1)).maxBackoff(Duration.ofSeconds(30)))
+                .share();
+        this.followingChanges = redisTemplate.listenToChannel(settings.getFollowingChannel())
+                .map(ReactiveSubscription.Message::getMessage)
+                .retryWhen(Retry.backoff(Long.MAX_VALUE, Duration.ofSeconds(1)).maxBackoff(Duration.ofSeconds(30)))
+                .share();
+    }
+
+    /**
+     * Announce a freshly saved post to every instance.
+     * A new post has no likes or comments yet, so the DTO is complete without any further reads.
+     * Failing to publish only costs the live push (clients still see the post on their next feed read),
+     * so it never fails the post creation.
+     */
+    @Override
+    public Mono<Void> publish(Post post) {
+        LivePostEvent event = new LivePostEvent(FeedAssembler.toPostResponseDto(post, List.of(), List.of(), Map.of()));
+
+        return Mono.fromCallable(() -> objectMapper.writeValueAsString(event))
+                .flatMap(json -> redisTemplate.convertAndSend(settings.getChannel(), json))
+                .then()
+                .onErrorResume(e -> {
+                    log.warn("Could not publish post {} to live feeds", post.getId(), e);
+                    return Mono.empty();
+                });
+    }
+
+    /**
+     * Tell the follower's live connections, on every instance, to re-read who they follow.
+     * Like publish(), a failure only delays the change until the next following-refresh.
+     */
+    @Override
+    public Mono<Void> followingChanged(String followerId) {
+        return redisTemplate.convertAndSend(settings.getFollowingChannel(), followerId)
+                .then()
+                .onErrorResume(e -> {
+                    log.warn("Could not announce the follow change of {} to live feeds", followerId, e);
+                    return Mono.empty();
+                });
+    }
+
+    /**
+     * Server-sent events for one connected client: one "post" event (id = post id) per new post
+     * of a followed user, and a comment line every heartbeat interval so idle connections are not cut by proxies.
+     * Posts that arrive before the following set is first loaded wait for it instead of being dropped.
+     */
+    @Override
+    public Flux<ServerSentEvent<PostResponseDto>> subscribe(String userId) {
+        Flux<ServerSentEvent<PostResponseDto>> posts = Flux.defer(() -> {
+            AtomicReference<Set<String>> latest = new AtomicReference<>();
+            Sinks.One<Set<String>> firstLoaded = Sinks.one();
+
+            Flux<Set<String>> following = following(userId)
+                    .doOnNext(followees -> {
+                        latest.set(followees);
+                        firstLoaded.tryEmitValue(followees);
+                    });
+
+            Flux<LivePostEvent> followedPosts = events
+                    // A slow client only loses its own oldest events; it never holds up the shared subscription
+                    .onBackpressureBuffer(settings.getBufferSize(),
+                            dropped -> log.debug("Live feed of {} is lagging, dropped post {}", userId, dropped.getPost().getId()),
+                            BufferOverflowStrategy.DROP_OLDEST)
+                    .delayUntil(event -> firstLoaded.asMono())
+                    .filter(event -> latest.get().contains(event.getPost().getUserId()));
+
+            // events first, so nothing published while the set loads is missed
+            return Flux.merge(followedPosts, following.thenMany(Flux.<LivePostEvent>empty()));
+        }).map(event -> ServerSentEvent.<PostResponseDto>builder(event.getPost())
+                .id(event.getPost().getId())
+                .event("post")
+                .build());
+
+        Flux<ServerSentEvent<PostResponseDto>> heartbeats = Flux.interval(settings.getHeartbeat())
+                .onBackpressureDrop()
+                .map(tick -> ServerSentEvent.<PostResponseDto>builder().comment("heartbeat").build());
+
+        return userRepository.existsById(userId)
+                .flatMapMany(exists -> exists
+                        ? Flux.merge(posts, heartbeats)
+                        : Flux.error(new RuntimeException("User not found: " + userId)));
+    }
+
+    /**
+     * Who the user follows: loaded on connect, on every follow/unfollow of the user and every following-refresh.
+     * replay(1).refCount(): the user's connections share one load, and it stops with the last connection.
+     */
+    private Flux<Set<String>> following(String userId) {
+        return followingByUser.computeIfAbsent(userId, id -> {
+            Flux<Long> refreshes = Flux.interval(Duration.ZERO, settings.getFollowingRefresh());
+            Flux<Long> changes = followingChanges.filter(id::equals).map(changed -> 0L);
+
+            AtomicReference<Flux<Set<String>>> shared = new AtomicReference<>();
+            shared.set(Flux.merge(refreshes, changes)
+                    // a burst of changes during one load needs only one more load
+                    .onBackpressureLatest()
+                    .concatMap(trigger -> followRepository.findByFollowerId(id)
+                            .map(Follow::getFolloweeId)
+                            .collect(Collectors.toSet()), 1)
+                    .doFinally(signal -> followingByUser.remove(id, shared.get()))
+                    .replay(1)
+                    .refCount());
+            return shared.get();
+        });
+    }
+
+    private Mono<LivePostEvent> parse(String json) {
+        return Mono.fromCallable(() -> objectMapper.readValue(json, LivePostEvent.class))
+                .onErrorResume(e -> {
+                    log.warn("Ignoring malformed live feed message: {}", json, e);
+                    return Mono.empty();
+                });
+    }
+}
@@ -0,0 +1,233 @@
+package com.sheemab.socialmedia.Feed.System.service.Impl;
+
+import com.sheemab.socialmedia.Feed.System.config.FeedProperties;
+import com.sheemab.socialmedia.Feed.System.entity.Comments;
+import com.sheemab.socialmedia.Feed.System.entity.Follow;
+import com.sheemab.socialmedia.Feed.System.entity.Likes;
+import com.sheemab.socialmedia.Feed.System.entity.Post;
+import com.sheemab.socialmedia.Feed.System.entity.PostCleanup;
+import com.sheemab.socialmedia.Feed.System.repository.CommentRepository;
+import com.sheemab.socialmedia.Feed.System.repository.FollowRepository;
+import com.sheemab.socialmedia.Feed.System.repository.HotPostRepository;
+import com.sheemab.socialmedia.Feed.System.repository.LikeRepository;
+import com.sheemab.socialmedia.Feed.System.repository.PostCleanupRepository;
+import com.sheemab.socialmedia.Feed.System.repository.PostRepository;
+import com.sheemab.socialmedia.Feed.System.repository.TimelineRepository;
+import com.sheemab.socialmedia.Feed.System.service.IPostCleanupService;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+
+/**
+ * Background cascade of post deletion. Deleting a post only records a PostCleanup job;
+ * a scheduled run then removes, in rate-limited batches:
+ * - the post's likes and comments
+ * - the post from the Redis timelines of the author's followers (PUSH / HYBRID)
+ * - the post's hot-tier likers set
+ * and deletes the job last, so an interrupted cleanup is simply picked up again by the next run.
+ * A job whose post still exists is kept as well: the post delete may not have gone through yet.
+ * Runs page past kept jobs, so they never hold up newer ones; a job whose post still exists abandon-after
+ * after it was recorded belongs to a delete that failed and is dropped (deleting the post again records a new one).
+ * The number of pending jobs is exported as the feed.posts.cleanup.backlog gauge,
+ * dropped jobs are counted by feed.posts.cleanup.abandoned.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class PostCleanupService implements IPostCleanupService {
+
+    private final PostCleanupRepository postCleanupRepository;
+    private final PostRepository postRepository;
+    private final LikeRepository likeRepository;
+    private final CommentRepository commentRepository;
+    private final FollowRepository followRepository;
+    private final TimelineRepository timelineRepository;
+    private final HotPostRepository hotPostRepository;
+    private final FeedProperties feedProperties;
+    private final MeterRegistry meterRegistry;
+
+    // pending jobs as of the last run (+ jobs enqueued since); read by the gauge
+    private final AtomicLong backlog = new AtomicLong();
+
+    private Counter abandoned;
+
+    @PostConstruct
+    public void registerMetrics() {
+        Gauge.builder("feed.posts.cleanup.backlog", backlog, AtomicLong::get)
+                .description("Deleted posts whose likes, comments and timeline entries are not removed yet")
+                .register(meterRegistry);
+        abandoned = Counter.builder("feed.posts.cleanup.abandoned")
+                .description("Cleanup jobs dropped because their post was never deleted")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Record the cleanup of a post that is about to be deleted.
+     * Must complete before the post is deleted: a job without a post is harmless, the reverse is an orphan.
+     */
+    @Override
+    public Mono<Void> enqueue(Post post) {
+        return postCleanupRepository.save(PostCleanup.builder()
+                        .postId(post.getId())
+                        .authorId(post.getUserId())
+                        .deletedAt(LocalDateTime.now())
+                        .build())
+                .doOnSuccess(saved -> backlog.incrementAndGet())
+                .then();
+    }
+
+    /**
+     * Run up to posts-per-run pending cleanups, oldest first, one at a time.
+     * Jobs that are kept (post still there) or fail do not count, the run reads on past them (keyset on deletedAt)
+     * until posts-per-run cleanups are done or no job is left.
+     * Runs on every instance; two instances cleaning the same post only repeat idempotent deletes.
+     *
+     * @return number of cleanups completed
+     */
+    @Override
+    @Scheduled(fixedDelayString = "${feed.cleanup.interval:10s}")
+    public Mono<Long> runCleanups() {
+        return cleanUpAfter(null, 0)
+                .flatMap(done -> postCleanupRepository.count()
+                        .doOnNext(backlog::set)
+                        .thenReturn(done))
+                .doOnNext(done -> {
+                    if (done > 0) {
+                        log.info("Cleaned up {} deleted posts, {} left", done, backlog.get());
+                    }
+                });
+    }
+
+    /**
+     * One page of jobs deleted after the given time (all jobs from the oldest if null), then the next page
+     * if this one did not complete enough cleanups.
+     */
+    private Mono<Long> cleanUpAfter(LocalDateTime after, long done) {
+        int postsPerRun = feedProperties.getCleanup().getPostsPerRun();
+        PageRequest page = PageRequest.of(0, postsPerRun);
+        Flux<PostCleanup> jobs = after == null
+                ? postCleanupRepository.findByOrderByDeletedAtAsc(page)
+                : postCleanupRepository.findByDeletedAtAfterOrderByDeletedAtAsc(after, page);
+
+        // read the jobs up front: no Mongo cursor stays open while they are slowly worked off
+        return jobs.collectList()
+                .flatMap(pending -> {
+                    AtomicLong total = new AtomicLong(done);
+                    return Flux.fromIterable(pending)
+                            // checked before each job: stop as soon as the run has done enough
+                            .concatMap(job -> Mono.defer(() -> total.get() >= postsPerRun
+                                    ? Mono.<Long>empty()
+                                    : cleanUpSafely(job).doOnNext(total::addAndGet)))
+                            .then(Mono.defer(() -> pending.size() < postsPerRun || total.get() >= postsPerRun
+                                    ? Mono.just(total.get())
+                                    : cleanUpAfter(pending.get(pending.size() - 1).getDeletedAt(), total.get())));
+                });
+    }
+
+    /**
+     * @return 1 if the cleanup completed, 0 if the job was kept, dropped or failed (a failed one is retried next run)
+     */
+    private Mono<Long> cleanUpSafely(PostCleanup job) {
+        return cleanUp(job)
+                .map(cleaned -> cleaned ? 1L : 0L)
+                .onErrorResume(e -> {
+                    log.warn("Cleanup of deleted post {} failed, will retry", job.getPostId(), e);
+                    return Mono.just(0L);
+                });
+    }
+
+    /**
+     * @return false if the post still exists: the job was left for a later run, or dropped once abandon-after has passed
+     */
+    private Mono<Boolean> cleanUp(PostCleanup job) {
+        String postId = job.getPostId();
+
+        return postRepository.existsById(postId)
+                .flatMap(exists -> {
+                    // the post delete has not gone through (yet): never touch a live post
+                    if (exists) {
+                        return keepOrAbandon(job).thenReturn(false);
+                    }
+                    return deleteInBatches(size -> likeRepository.findIdsByPostId(postId, size)
+                                    .map(Likes::getLikeId), likeRepository::deleteAllById)
+                            .then(deleteInBatches(size -> commentRepository.findIdsByPostId(postId, size)
+                                    .map(Comments::getCommentId), commentRepository::deleteAllById))
+                            .then(removeFromTimelines(job))
+                            .then(hotPostRepository.demote(postId))
+                            // the job goes only once everything above has succeeded
+                            .then(postCleanupRepository.deleteById(postId))
+                            .thenReturn(true);
+                });
+    }
+
+    /**
+     * A recent job is kept, the delete may still be in flight. An old one belongs to a delete that failed
+     * (the client got an error and the post stayed): drop it, so the backlog does not grow forever.
+     */
+    private Mono<Void> keepOrAbandon(PostCleanup job) {
+        LocalDateTime abandonBefore = LocalDateTime.now().minus(feedProperties.getCleanup().getAbandonAfter());
+        if (job.getDeletedAt() == null || !job.getDeletedAt().isBefore(abandonBefore)) {
+            log.debug("Deleted post {} still exists, keeping its cleanup job", job.getPostId());
+            return Mono.empty();
+        }
+        log.warn("Post {} still exists {} after its cleanup was recorded, dropping the job",
+                job.getPostId(), feedProperties.getCleanup().getAbandonAfter());
+        return postCleanupRepository.deleteByPostIdAndDeletedAt(job.getPostId(), job.getDeletedAt())
+                .filter(deleted -> deleted > 0)
+                .doOnNext(deleted -> abandoned.increment())
+                .then();
+    }
+
+    /**
+     * Repeatedly read one batch of ids and delete them with one $in delete, pausing before every batch,
+     * until a batch comes back short.
+     */
+    private Mono<Void> deleteInBatches(Function<PageRequest, Flux<String>> nextBatch,
+                                       Function<List<String>, Mono<Void>> delete) {
+        FeedProperties.Cleanup settings = feedProperties.getCleanup();
+        int batchSize = settings.getBatchSize();
+
+        return Mono.defer(() -> nextBatch.apply(PageRequest.of(0, batchSize))
+                        .collectList()
+                        .flatMap(ids -> ids.isEmpty()
+                                ? Mono.just(0)
+                                : delete.apply(ids).thenReturn(ids.size())))
+                .delaySubscription(settings.getBatchPause())
+                .repeat()
+                .takeUntil(deleted -> deleted < batchSize)
+                .then();
+    }
+
+    /**
+     * Timelines only exist in PUSH / HYBRID mode; followers are walked in batches like the likes.
+     */
+    private Mono<Void> removeFromTimelines(PostCleanup job) {
+        if (feedProperties.getMode() == FeedProperties.Mode.PULL) {
+            return Mono.empty();
+        }
+        FeedProperties.Cleanup settings = feedProperties.getCleanup();
+
+        return followRepository.findByFolloweeId(job.getAuthorId())
+                .map(Follow::getFollowerId)
+                .buffer(settings.getBatchSize())
+                .concatMap(followerIds -> Flux.fromIterable(followerIds)
+                        .flatMap(followerId -> timelineRepository.remove(followerId, job.getPostId()),
+                                feedProperties.getConcurrency().getFanOut())
+                        .then()
+                        .delaySubscription(settings.getBatchPause()))
+                .then();
+    }
+}
@@ -1,35 +1,70 @@
 package com.sheemab.socialmedia.Feed.System.service.Impl;
 
+import com.sheemab.socialmedia.Feed.System.config.FeedProperties;
 import com.sheemab.socialmedia.Feed.System.dto.CommentResponseDto;
+import com.sheemab.socialmedia.Feed.System.dto.ExportPageDto;
+import com.sheemab.socialmedia.Feed.System.dto.ExportPartitionDto;
 import com.sheemab.socialmedia.Feed.System.dto.LikeResponseDto;
 import com.sheemab.socialmedia.Feed.System.dto.PostRequestDto;
 import com.sheemab.socialmedia.Feed.System.dto.PostResponseDto;
+import com.sheemab.socialmedia.Feed.System.entity.Comments;
+import com.sheemab.socialmedia.Feed.System.entity.Likes;
 import com.sheemab.socialmedia.Feed.System.entity.Post;
+import com.sheemab.socialmedia.Feed.System.mapper.PostMapper;
+import com.sheemab.socialmedia.Feed.System.repository.CommentRepository;
+import com.sheemab.socialmedia.Feed.System.repository.LikeRepository;
 import com.sheemab.socialmedia.Feed.System.repository.PostRepository;
 import com.sheemab.socialmedia.Feed.System.repository.UserRepository;
+import com.sheemab.socialmedia.Feed.System.service.IFeedVersionService;
+import com.sheemab.socialmedia.Feed.System.service.ILiveFeedService;
+import com.sheemab.socialmedia.Feed.System.service.IPostCleanupService;
 import com.sheemab.socialmedia.Feed.System.service.IPostService;
+import com.sheemab.socialmedia.Feed.System.service.ITimelineService;
+import com.sheemab.socialmedia.Feed.System.service.IUsernameService;
 import lombok.RequiredArgsConstructor;
-import org.modelmapper.ModelMapper;
+import org.bson.types.ObjectId;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+import org.springframework.http.HttpStatus;
 import org.springframework.stereotype.Service;
+import org.springframework.web.server.ResponseStatusException;
 import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 
 import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.IntStream;
 
 @Service
 @RequiredArgsConstructor
 public class PostService implements IPostService {
 
+    // bounds of the export id space
+    private static final String MIN_ID = "0".repeat(24);
+    private static final String MAX_ID = "f".repeat(24);
+
     private final PostRepository postRepository;  // Reactive repository for Post entity
-    private final ModelMapper modelMapper;        // Used to map entities <-> DTOs
+    private final PostMapper postMapper;          // Maps Post -> PostResponseDto
     private final UserRepository userRepository;  // Repository to fetch User details
+    private final ITimelineService timelineService; // Pushes new posts to follower timelines (PUSH mode)
+    private final ILiveFeedService liveFeedService; // Pushes new posts to connected followers (SSE)
+    private final LikeRepository likeRepository;    // Likes of a post
+    private final CommentRepository commentRepository; // Comments of a post
+    private final IUsernameService usernameService; // Cached userId -> username resolution
+    private final IFeedVersionService feedVersionService; // Feed version stamps of followers (ETag)
+    private final FeedProperties feedProperties;          // Export page sizes and legacy limit
+    private final IPostCleanupService postCleanupService; // Removes likes/comments of deleted posts
+    private final RequestCoalescer requestCoalescer;      // Shares identical concurrent reads
 
     /**
      * Create a new Post.
      * Steps:
      * 1. Build a Post object from PostRequestDto
      * 2. Save it in DB
-     * 3. Map the saved entity to PostResponseDto
+     * 3. Fan the post out to follower timelines (no-op in PULL mode)
+     * 4. Publish it to the live feeds of connected followers and bump their feed versions
+     * 5. Map the saved entity to PostResponseDto
      */
     @Override
     public Mono<PostResponseDto> createPost(PostRequestDto postRequestDto) {
@@ -41,40 +76,130 @@ public class PostService implements IPostService {
 
         // save() returns Mono<Post>
         return postRepository.save(post)
+                // flatMap() because fanOut() is reactive; thenReturn() passes the saved post along
+                .flatMap(saved -> timelineService.fanOut(saved)
+                        .then(liveFeedService.publish(saved))
+                        .doOnSuccess(v -> feedVersionService.postsChanged(saved.getUserId()))
+                        .thenReturn(saved))
                 // map() = transform Post into PostResponseDto (synchronous transformation)
-                .map(saved -> modelMapper.map(saved, PostResponseDto.class));
+                .map(saved -> postMapper.toPostResponseDto(saved));
     }
 
     /**
      * Fetch a post by ID.
      * - If not found, throw an error.
      * - Otherwise, map entity to DTO.
+     * Concurrent requests for the same post share one query (a new post is read by many followers at once).
      */
     @Override
     public Mono<PostResponseDto> getPostById(String postId) {
-        return postRepository.findById(postId) // returns Mono<Post>
+        return requestCoalescer.coalesce("post-by-id", postId, () -> postRepository.findById(postId) // returns Mono<Post>
                 // If empty (no Post found), throw exception
                 .switchIfEmpty(Mono.error(new RuntimeException("Post not found: " + postId)))
                 // map() is used because we already have Post inside Mono.
-                .map(post -> modelMapper.map(post, PostResponseDto.class));
+                .map(postMapper::toPostResponseDto));
     }
 
     /**
-     * Fetch all posts.
-     * - findAll() returns Flux<Post>
-     * - map each Post to PostResponseDto
+     * Fetch all posts, oldest first, up to feed.export.legacy-limit.
+     * Kept for old clients only: bulk readers use getExportPartitions() + exportPosts().
      */
     @Override
     public Flux<PostResponseDto> getAllPosts() {
-        return postRepository.findAll()
-                .map(post -> modelMapper.map(post, PostResponseDto.class));
+        int limit = feedProperties.getExport().getLegacyLimit();
+        return postRepository.findAllBy(PageRequest.of(0, limit, Sort.by("id")))
+                .map(postMapper::toPostResponseDto);
+    }
+
+    /**
+     * Split the posts collection into up to count adjacent _id ranges that can be exported in parallel.
+     * ObjectIds start with their creation time, so the span between the oldest and the newest post
+     * is cut into equal time slices: two index lookups, no scan. Slices hold equal time, not equal
+     * post counts; ask for more partitions than workers to even the load out.
+     * The first range starts at the smallest possible id and the last ends at the largest,
+     * so no post is left out, including the ones created while the export runs.
+     */
+    @Override
+    public Mono<List<ExportPartitionDto>> getExportPartitions(int count) {
+        int partitions = Math.max(1, Math.min(count, feedProperties.getExport().getMaxPartitions()));
+
+        Mono<Long> oldest = postRepository.findOldestIds(PageRequest.of(0, 1)).next()
+                .map(post -> (long) new ObjectId(post.getId()).getTimestamp())
+                .defaultIfEmpty(0L);
+        Mono<Long> newest = postRepository.findNewestIds(PageRequest.of(0, 1)).next()
+                .map(post -> (long) new ObjectId(post.getId()).getTimestamp())
+                .defaultIfEmpty(0L);
+
+        return Mono.zip(oldest, newest)
+                .map(span -> {
+                    long start = span.getT1();
+                    long end = span.getT2() + 1;
+
+                    // inner boundaries; distinct() when the span has fewer seconds than partitions
+                    List<String> bounds = new ArrayList<>();
+                    bounds.add(MIN_ID);
+                    IntStream.range(1, partitions)
+                            .mapToObj(i -> idAt(start + (end - start) * i / partitions))
+                            .distinct()
+                            .forEach(bounds::add);
+                    bounds.add(MAX_ID);
+
+                    return IntStream.range(0, bounds.size() - 1)
+                            .mapToObj(i -> ExportPartitionDto.builder()
+                                    .partition(i)
+                                    .from(bounds.get(i))
+                                    .to(bounds.get(i + 1))
+                                    .build())
+                            .toList();
+                });
+    }
+
+    /**
+     * One page of an export range, in _id order.
+     * Each page is its own short query keyed on the last id returned, so no database cursor stays open
+     * between pages, and a failed job resumes from the last nextCursor it stored.
+     */
+    @Override
+    public Mono<ExportPageDto> exportPosts(String from, String to, String cursor, Integer limit) {
+        String lower = from != null ? from : MIN_ID;
+        String upper = to != null ? to : MAX_ID;
+        if (!ObjectId.isValid(lower) || !ObjectId.isValid(upper) || (cursor != null && !ObjectId.isValid(cursor))) {
+            return Mono.error(new ResponseStatusException(HttpStatus.BAD_REQUEST, "Invalid export range or cursor"));
+        }
+
+        FeedProperties.Export export = feedProperties.getExport();
+        int pageSize = limit == null ? export.getDefaultLimit() : Math.max(1, Math.min(limit, export.getMaxLimit()));
+
+        // Fetch one extra post: if it shows up, there is a next page
+        PageRequest page = PageRequest.of(0, pageSize + 1);
+        Flux<Post> posts = cursor == null
+                ? postRepository.findExportPage(lower, upper, page)
+                : postRepository.findExportPageAfter(cursor, upper, page);
+
+        return posts.collectList()
+                .map(found -> {
+                    boolean hasMore = found.size() > pageSize;
+                    List<Post> pagePosts = hasMore ? found.subList(0, pageSize) : found;
+                    return ExportPageDto.builder()
+                            .posts(pagePosts.stream().map(postMapper::toPostResponseDto).toList())
+                            .nextCursor(hasMore ? pagePosts.get(pagePosts.size() - 1).getId() : null)
+                            .build();
+                });
+    }
+
+    /**
+     * The smallest ObjectId created at the given second (zero machine/counter part).
+     */
+    private static String idAt(long epochSeconds) {
+        return String.format("%08x", epochSeconds) + "0".repeat(16);
     }
 
     /**
      * Delete a post by ID.
      * - First, check if the post exists (findById).
      * - If not found, throw error.
-     * - If found, delete it.
+     * - If found, record a cleanup job for its likes, comments and timeline entries (run in the background),
+     *   then delete it and bump the feed versions of the author's followers.
      */
     @Override
     public Mono<Void> deletePost(String postId) {
@@ -82,7 +207,9 @@ public class PostService implements IPostService {
                 .switchIfEmpty(Mono.error(new RuntimeException("Post not found: " + postId)))
                 // flatMap() = used when the next operation also returns a Mono/Flux
                 // Here delete() returns Mono<Void>, so we use flatMap.
-                .flatMap(existing -> postRepository.delete(existing));
+                .flatMap(existing -> postCleanupService.enqueue(existing)
+                        .then(postRepository.delete(existing))
+                        .doOnSuccess(v -> feedVersionService.postsChanged(existing.getUserId())));
     }
 
     /**
@@ -90,10 +217,10 @@ public class PostService implements IPostService {
      */
     @Override
     public Mono<Integer> getLikeCount(String postId) {
-        return postRepository.findById(postId)
+        return postRepository.findCountersById(postId)
                 .switchIfEmpty(Mono.error(new RuntimeException("Post not found: " + postId)))
-                // map() is fine here since post.getLikes().size() is a direct value, not reactive.
-                .map(post -> post.getLikes().size());
+                // map() is fine here since likeCount is a stored field (kept up to date with $inc), not reactive.
+                .map(Post::getLikeCount);
     }
 
     /**
@@ -101,59 +228,61 @@ public class PostService implements IPostService {
      */
     @Override
     public Mono<Integer> getCommentCount(String postId) {
-        return postRepository.findById(postId)
+        return postRepository.findCountersById(postId)
                 .switchIfEmpty(Mono.error(new RuntimeException("Post not found: " + postId)))
-                .map(post -> post.getComments().size());
+                .map(Post::getCommentCount);
     }
 
     /**
      * Get all users who liked a post.
      * Steps:
-     * 1. Find Post by ID
-     * 2. Convert its List<Like> into Flux<Like> using flatMapMany()
-     * 3. For each Like, fetch User from UserRepository (returns Mono<User>)
-     * 4. Use flatMap to convert each User into LikeResponseDto
+     * 1. Check the Post exists
+     * 2. Load its likes from the likes collection (the embedded Post.likes list is never written)
+     * 3. Resolve all likers' usernames in one batch through the username cache
+     * 4. Build one LikeResponseDto per like (likes of deleted users are skipped)
      */
     @Override
     public Flux<LikeResponseDto> getUsersThatLikePost(String postId) {
-        return postRepository.findById(postId)
-                .switchIfEmpty(Mono.error(new RuntimeException("Post not found: " + postId)))
-                // flatMapMany() = convert Mono<Post> into Flux<Like>
-                // because post.getLikes() is a List<Like>, we convert it into Flux
-                .flatMapMany(post -> Flux.fromIterable(post.getLikes()))
-                // flatMap() = because findById returns Mono<User>
-                .flatMap(like ->
-                        userRepository.findById(like.getUserId())
-                                .map(user -> LikeResponseDto.builder()
-                                        .username(user.getUsername())
-                                        .build()
-                                )
-                );
+        return postRepository.existsById(postId)
+                .flatMapMany(exists -> exists
+                        ? likeRepository.findByPostId(postId)
+                        : Flux.error(new RuntimeException("Post not found: " + postId)))
+                .collectList()
+                // flatMapMany() = convert Mono<List<Likes>> back into a Flux of DTOs
+                .flatMapMany(likes -> usernameService.getUsernames(
+                                likes.stream().map(Likes::getUserId).toList())
+                        .flatMapIterable(usernames -> likes.stream()
+                                .filter(like -> usernames.containsKey(like.getUserId()))
+                                .map(like -> LikeResponseDto.builder()
+                                        .username(usernames.get(like.getUserId()))
+                                        .build())
+                                .toList()));
     }
 
     /**
      * Get all comments of a post with commenter details.
      * Steps:
-     * 1. Find Post by ID
-     * 2. Convert its List<Comment> into Flux<Comment>
-     * 3. For each Comment, fetch the User who made it
+     * 1. Check the Post exists
+     * 2. Load its comments from the comments collection
+     * 3. Resolve all commenters' usernames in one batch through the username cache
      * 4. Build CommentResponseDto with username + comment text
      */
     @Override
     public Flux<CommentResponseDto> getUsersThatCommentsOnPOst(String postId) {
-        return postRepository.findById(postId)
-                .switchIfEmpty(Mono.error(new RuntimeException("Post not found: " + postId)))
-                // flatMapMany() because comments is a List<Comment>
-                .flatMapMany(post -> Flux.fromIterable(post.getComments()))
-                // flatMap() because findById returns Mono<User>
-                .flatMap(comment ->
-                        userRepository.findById(comment.getUserId())
-                                .map(user -> CommentResponseDto.builder()
-                                        .username(user.getUsername())
+        return postRepository.existsById(postId)
+                .flatMapMany(exists -> exists
+                        ? commentRepository.findByPostId(postId)
+                        : Flux.error(new RuntimeException("Post not found: " + postId)))
+                .collectList()
+                .flatMapMany(comments -> usernameService.getUsernames(
+                                comments.stream().map(Comments::getUserId).toList())
+                        .flatMapIterable(usernames -> comments.stream()
+                                .filter(comment -> usernames.containsKey(comment.getUserId()))
+                                .map(comment -> CommentResponseDto.builder()
+                                        .username(usernames.get(comment.getUserId()))
                                         .text(comment.getText())
                                         .commentedAt(comment.getCommentedAt())
-                                        .build()
-                                )
-                );
+                                        .build())
+                                .toList()));
     }
 }
@@ -0,0 +1,108 @@
+package com.sheemab.socialmedia.Feed.System.service.Impl;
+
+import com.sheemab.socialmedia.Feed.System.config.FeedProperties;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Supplier;
+
+/**
+ * Single-flight reads: concurrent requests for the same (name, key) subscribe to one shared load
+ * instead of each running the same query. A successful result is kept for feed.single-flight.cache-ttl
+ * after the load completes, so a burst that is close together but not exactly concurrent is served too;
+ * errors and empty results are never kept. Writers call invalidate() so the next read loads again.
+ * The ttl has a single clock: the entry's expiry, set when the load completes and checked on every lookup.
+ * Meter: feed.singleflight.requests (tags name, result = loaded / coalesced);
+ * coalesced / total is the share of requests that did not reach the database.
+ */
+@Component
+@RequiredArgsConstructor
+public class RequestCoalescer {
+
+    private final FeedProperties feedProperties;
+    private final MeterRegistry meterRegistry;
+
+    private final Map<String, Entry> inFlight = new ConcurrentHashMap<>();
+
+    /**
+     * One shared load; expiresAt (System.nanoTime()) stays at MAX_VALUE while the load is in flight.
+     */
+    private static final class Entry {
+        private Mono<?> shared;
+        private volatile long expiresAt = Long.MAX_VALUE;
+
+        boolean isExpired(long now) {
+            return now - expiresAt >= 0;
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    public <T> Mono<T> coalesce(String name, String key, Supplier<Mono<T>> loader) {
+        FeedProperties.SingleFlight settings = feedProperties.getSingleFlight();
+        if (!settings.isEnabled()) {
+            return loader.get();
+        }
+
+        String entryKey = name + ":" + key;
+        return Mono.defer(() -> {
+            boolean[] loaded = {false};
+            Entry entry = inFlight.compute(entryKey, (k, existing) -> {
+                if (existing != null && !existing.isExpired(System.nanoTime())) {
+                    return existing;
+                }
+                loaded[0] = true;
+                return share(entryKey, loader.get(), settings.getCacheTtl());
+            });
+            counter(name, loaded[0] ? "loaded" : "coalesced").increment();
+            return (Mono<T>) entry.shared;
+        });
+    }
+
+    /**
+     * Drop the entry of (name, key), loaded or still loading: the next read runs its own load.
+     */
+    public void invalidate(String name, String key) {
+        inFlight.remove(name + ":" + key);
+    }
+
+    /**
+     * One subscription to the source for everyone. When the load completes, the entry is dropped right away
+     * (errors, empty results, ttl 0) or given its expiry; the timer after that only frees the memory of keys
+     * that are not read again, lookups already treat the entry as gone.
+     */
+    private Entry share(String entryKey, Mono<?> source, Duration ttl) {
+        Entry entry = new Entry();
+        AtomicBoolean hasValue = new AtomicBoolean();
+
+        entry.shared = source
+                .doOnNext(value -> hasValue.set(true))
+                .doFinally(signal -> {
+                    // remove this exact entry: a later load for the same key may already be in the map
+                    if (!hasValue.get() || ttl.isZero()) {
+                        inFlight.remove(entryKey, entry);
+                    } else {
+                        entry.expiresAt = System.nanoTime() + ttl.toNanos();
+                        Schedulers.parallel().schedule(() -> inFlight.remove(entryKey, entry),
+                                ttl.toMillis(), TimeUnit.MILLISECONDS);
+                    }
+                })
+                .cache();
+        return entry;
+    }
+    private Counter counter(String name, String result) {
+        return Counter.builder("feed.singleflight.requests")
+                .description("Reads that ran their own load vs. joined one in flight or just finished")
+                .tag("name", name)
+                .tag("result", result)
+                .register(meterRegistry);
+    }
+}
@@ -0,0 +1,53 @@
+package com.sheemab.socialmedia.Feed.System.service.Impl;
+
+import com.sheemab.socialmedia.Feed.System.config.FeedProperties;
+import com.sheemab.socialmedia.Feed.System.entity.Post;
+import com.sheemab.socialmedia.Feed.System.entity.User;
+import com.sheemab.socialmedia.Feed.System.repository.FollowRepository;
+import com.sheemab.socialmedia.Feed.System.repository.TimelineRepository;
+import com.sheemab.socialmedia.Feed.System.repository.UserRepository;
+import com.sheemab.socialmedia.Feed.System.service.ITimelineService;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Service;
+import reactor.core.publisher.Mono;
+
+@Service
+@RequiredArgsConstructor
+public class TimelineService implements ITimelineService {
+
+    private final TimelineRepository timelineRepository;
+    private final UserRepository userRepository;
+    private final FollowRepository followRepository;
+    private final FeedProperties feedProperties;
+
+    /**
+     * Fan-out-on-write: push a freshly saved post into the timeline of every follower of its author.
+     * Does nothing when the feed runs in PULL mode.
+     * In HYBRID mode authors with follower-threshold or more followers are not fanned out;
+     * they are recorded as pulled authors and merged into feeds at read time instead.
+     */
+    @Override
+    public Mono<Void> fanOut(Post post) {
+        if (feedProperties.getMode() == FeedProperties.Mode.PULL) {
+            return Mono.empty();
+        }
+
+        return userRepository.findById(post.getUserId())
+                .flatMap(author -> isPulledAuthor(author)
+                        ? timelineRepository.addPulledAuthor(author.getId())
+                        : pushToFollowers(post, author));
+    }
+
+    private boolean isPulledAuthor(User author) {
+        return feedProperties.getMode() == FeedProperties.Mode.HYBRID
+                && author.getFollowersCount() >= feedProperties.getHybrid().getFollowerThreshold();
+    }
+
+    private Mono<Void> pushToFollowers(Post post, User author) {
+        // stream the author's Follow edges; one timeline write per follower, fan-out writes in flight at most
+        return followRepository.findByFolloweeId(author.getId())
+                .flatMap(edge -> timelineRepository.push(edge.getFollowerId(), post.getId(), post.getCreatedAt()),
+                        feedProperties.getConcurrency().getFanOut())
+                .then();
+    }
+}
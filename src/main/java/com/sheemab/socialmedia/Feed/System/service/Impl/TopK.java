@@ -0,0 +1,51 @@
+package com.sheemab.socialmedia.Feed.System.service.Impl;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.PriorityQueue;
+import java.util.function.ToDoubleFunction;
+
+/**
+ * Best k items of a collection by score, without sorting the collection:
+ * a min-heap of at most k entries (the worst kept item on top) is updated once per item,
+ * O(n log k) time and O(k) extra space; only the k survivors are sorted at the end.
+ */
+public final class TopK {
+
+    private TopK() {
+    }
+
+    private record Scored<T>(T item, double score) {
+    }
+
+    /**
+     * @param tieBreak order among items with the same score (first = better)
+     * @return at most k items, best first
+     */
+    public static <T> List<T> select(Iterable<T> items, int k, ToDoubleFunction<T> score, Comparator<T> tieBreak) {
+        if (k <= 0) {
+            return List.of();
+        }
+
+        // best first: higher score, then tieBreak
+        Comparator<Scored<T>> better = Comparator.<Scored<T>>comparingDouble(Scored::score).reversed()
+                .thenComparing(Scored::item, tieBreak);
+
+        // worst kept item at the head
+        PriorityQueue<Scored<T>> heap = new PriorityQueue<>(k + 1, better.reversed());
+        for (T item : items) {
+            Scored<T> scored = new Scored<>(item, score.applyAsDouble(item));
+            if (heap.size() < k) {
+                heap.add(scored);
+            } else if (better.compare(scored, heap.peek()) < 0) {
+                heap.poll();
+                heap.add(scored);
+            }
+        }
+
+        List<Scored<T>> top = new ArrayList<>(heap);
+        top.sort(better);
+        return top.stream().map(Scored::item).toList();
+    }
+}
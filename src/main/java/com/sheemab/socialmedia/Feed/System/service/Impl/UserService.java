@@ -1,37 +1,64 @@
 package com.sheemab.socialmedia.Feed.System.service.Impl;
 
+import com.sheemab.socialmedia.Feed.System.config.FeedProperties;
+import com.sheemab.socialmedia.Feed.System.dto.StreamPageDto;
+import com.sheemab.socialmedia.Feed.System.dto.UserPageDto;
 import com.sheemab.socialmedia.Feed.System.dto.UserRequestDto;
 import com.sheemab.socialmedia.Feed.System.dto.UserResponseDto;
+import com.sheemab.socialmedia.Feed.System.entity.Follow;
 import com.sheemab.socialmedia.Feed.System.entity.User;
+import com.sheemab.socialmedia.Feed.System.mapper.UserMapper;
+import com.sheemab.socialmedia.Feed.System.repository.FollowRepository;
 import com.sheemab.socialmedia.Feed.System.repository.UserRepository;
+import com.sheemab.socialmedia.Feed.System.service.IFeedVersionService;
+import com.sheemab.socialmedia.Feed.System.service.IFollowingService;
+import com.sheemab.socialmedia.Feed.System.service.ILiveFeedService;
 import com.sheemab.socialmedia.Feed.System.service.IUserService;
+import com.sheemab.socialmedia.Feed.System.service.IUsernameService;
 import lombok.RequiredArgsConstructor;
-import org.modelmapper.ModelMapper;
+import org.bson.types.ObjectId;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
 import org.springframework.http.HttpStatus;
 import org.springframework.stereotype.Service;
 import org.springframework.web.server.ResponseStatusException;
 import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 
-import java.util.Set;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Objects;
+import java.util.function.BiFunction;
+import java.util.function.Function;
 
 @Service
 @RequiredArgsConstructor
 public class UserService implements IUserService {
 
+    private static final int USERNAME_MAX_LENGTH = 30;
+
     private final UserRepository userRepository;  // Reactive repository for User
-    private final ModelMapper modelMapper;        // Used to convert entity <-> DTO
+    private final UserMapper userMapper;          // Maps User -> UserResponseDto
+    private final IUsernameService usernameService; // Username cache, evicted on rename
+    private final FollowRepository followRepository; // Follow graph edges
+    private final FeedProperties feedProperties;    // Page size limits, streaming concurrency
+    private final IFeedVersionService feedVersionService; // Follower's feed version stamp (ETag)
+    private final ILiveFeedService liveFeedService;       // Follower's live feed connections
+    private final IFollowingService followingService;     // Follower's cached followee ids
 
     /**
      * Create a new user.
      * Steps:
-     * 1. Check if user already exists by email
-     * 2. If exists -> throw error
-     * 3. If not -> save user and return UserResponseDto
+     * 1. Validate the username (not blank, not too long, not taken)
+     * 2. Check if user already exists by email
+     * 3. If exists -> throw error
+     * 4. If not -> save user and return UserResponseDto
      */
     @Override
     public Mono<UserResponseDto> createUser(UserRequestDto userRequestDto) {
-        return userRepository.existsByEmail(userRequestDto.getEmail()) // returns Mono<Boolean>
+        return validateUsername(userRequestDto.getUsername(), null)
+                .then(userRepository.existsByEmail(userRequestDto.getEmail())) // returns Mono<Boolean>
                 .doOnNext(val -> System.out.println("existsByEmail("
                         + userRequestDto.getEmail() + ") => " + val)) // for debugging/logging
                 // flatMap() because we need to *conditionally* call another reactive method
@@ -47,17 +74,65 @@ public class UserService implements IUserService {
                                     .username(userRequestDto.getUsername())
                                     .build()
                             )
+                            .onErrorMap(DuplicateKeyException.class, e -> usernameTaken())
                             // map() because we already have savedUser inside Mono and just want to transform it
-                            .map(savedUser -> modelMapper.map(savedUser, UserResponseDto.class));
+                            .map(userMapper::toUserResponseDto);
                 });
     }
 
+    /**
+     * Rename a user.
+     * The new name is validated like on sign-up. The cached username is evicted from both cache tiers
+     * (and every instance's local tier) before and after the save: a lookup that read the old name from
+     * the database just before the save cannot leave it cached (evict() also repeats itself shortly after).
+     */
+    @Override
+    public Mono<UserResponseDto> updateUsername(String userId, String username) {
+        return getUser(userId)
+                .flatMap(user -> validateUsername(username, userId)
+                        .then(usernameService.evict(userId))
+                        .then(Mono.defer(() -> {
+                            user.setUsername(username);
+                            return userRepository.save(user)
+                                    .onErrorMap(DuplicateKeyException.class, e -> usernameTaken());
+                        })))
+                .flatMap(saved -> usernameService.evict(userId).thenReturn(saved))
+                .map(userMapper::toUserResponseDto);
+    }
+
+    /**
+     * Username rules of sign-up and rename: not blank (400), at most USERNAME_MAX_LENGTH characters (400),
+     * not used by another user (409). userId is the user being renamed, null on sign-up.
+     * The check gives the early, friendly answer; two concurrent requests for the same name can both pass it,
+     * and then the unique username index rejects the second save (mapped to the same 409).
+     */
+    private Mono<Void> validateUsername(String username, String userId) {
+        if (username == null || username.isBlank()) {
+            return Mono.error(new ResponseStatusException(HttpStatus.BAD_REQUEST, "Username must not be blank"));
+        }
+        if (username.length() > USERNAME_MAX_LENGTH) {
+            return Mono.error(new ResponseStatusException(HttpStatus.BAD_REQUEST,
+                    "Username must be at most " + USERNAME_MAX_LENGTH + " characters"));
+        }
+
+        Mono<Boolean> taken = userId == null
+                ? userRepository.existsByUsername(username)
+                : userRepository.existsByUsernameAndIdNot(username, userId);
+        return taken.flatMap(exists -> exists
+                ? Mono.error(usernameTaken())
+                : Mono.empty());
+    }
+
+    private static ResponseStatusException usernameTaken() {
+        return new ResponseStatusException(HttpStatus.CONFLICT, "Username already taken");
+    }
+
     /**
      * Follow another user.
      * - Prevent following yourself
-     * - Fetch both users (follower + followee) using Mono.zip
-     * - Update both sides (following + followers)
-     * - Save both users
+     * - Check both users exist (cheap: a User document no longer embeds the graph)
+     * - Insert one Follow edge; the unique (followerId, followeeId) index makes a duplicate follow a no-op
+     * - Only when the edge is new, bump both counters atomically ($inc)
      */
     @Override
     public Mono<Void> follow(String followerId, String followeeId) {
@@ -67,102 +142,108 @@ public class UserService implements IUserService {
             return Mono.error(new RuntimeException("You cannot follow yourself"));
         }
 
-        // Mono.zip() -> Combine results of 2 Monos into a Tuple2 (like (follower, followee))
+        // Mono.zip() -> wait for both existence checks (like (follower, followee))
         return Mono.zip(getUser(followerId), getUser(followeeId))
-                .flatMap(tuple -> {
-                    User follower = tuple.getT1(); // first user
-                    User followee = tuple.getT2(); // second user
-
-                    // Prevent duplicate follow
-                    if (follower.getFollowing().contains(followee.getId())) {
-                        return Mono.empty(); // Already following, do nothing
-                    }
-
-                    // Add followee to follower's "following" list
-                    follower.follow(followeeId);
-
-                    // Add follower to followee's "followers" list
-                    followee.addFollower(followerId);
-
-                    // Save both users
-                    // then() → used to ignore the result of save and move to next operation
-                    return userRepository.save(follower)
-                            .then(userRepository.save(followee))
-                            .then(); // return Mono<Void>
-                })
+                .flatMap(tuple -> followRepository.insert(Follow.builder()
+                                .followerId(followerId)
+                                .followeeId(followeeId)
+                                .followedAt(LocalDateTime.now())
+                                .build())
+                        // Already following -> the insert hits the unique index, do nothing
+                        .onErrorResume(DuplicateKeyException.class, e -> Mono.empty()))
+                // Only runs when a new edge was inserted (empty Mono for a duplicate follow)
+                .doOnNext(edge -> followingService.evict(followerId))
+                .flatMap(edge -> userRepository.incrementFollowingCount(followerId, 1)
+                        .then(userRepository.incrementFollowersCount(followeeId, 1))
+                        .then(feedVersionService.followingChanged(followerId))
+                        .then(liveFeedService.followingChanged(followerId)))
                 .then(); // Final Mono<Void>
     }
 
     /**
      * Unfollow a user.
-     * - Fetch both users (follower + followee)
-     * - Remove links from both sides
-     * - Save both
+     * - Check both users exist
+     * - Delete the Follow edge (single atomic write)
+     * - Decrement both counters only if an edge was actually deleted
      */
     @Override
     public Mono<Void> unfollow(String followerId, String followeeId) {
         return Mono.zip(getUser(followerId), getUser(followeeId))
-                .flatMap(tuple -> {
-                    User follower = tuple.getT1();
-                    User followee = tuple.getT2();
-
-                    // Remove followee from follower's following list
-                    follower.unfollow(followeeId);
-
-                    // Remove follower from followee's followers list
-                    followee.removeFollower(followerId);
-
-                    // Save both
-                    return userRepository.save(follower)
-                            .then(userRepository.save(followee))
-                            .then();
-                })
+                .flatMap(tuple -> followRepository.deleteByFollowerIdAndFolloweeId(followerId, followeeId))
+                .filter(deleted -> deleted > 0)
+                .doOnNext(deleted -> followingService.evict(followerId))
+                .flatMap(deleted -> userRepository.incrementFollowingCount(followerId, -deleted.intValue())
+                        .then(userRepository.incrementFollowersCount(followeeId, -deleted.intValue()))
+                        .then(feedVersionService.followingChanged(followerId))
+                        .then(liveFeedService.followingChanged(followerId)))
                 .then();
     }
 
     /**
-     * Get all users that the given user is following.
+     * Get one page of the users that the given user is following, most recent follows first.
      * Steps:
-     * 1. Find the user by ID
-     * 2. Extract their followingIds (Set<String>)
-     * 3. Fetch those users by IDs -> returns Flux<User>
-     * 4. Map to UserResponseDto
+     * 1. Check the user exists
+     * 2. Read one page (+1 to detect a next page) of Follow edges, keyed on the edge id
+     * 3. Fetch those users by IDs in one call -> Flux<User>
+     * 4. Map to UserResponseDto, in edge order
      */
     @Override
-    public Flux<UserResponseDto> getFollowing(String userId) {
-        return getUser(userId)
-                .switchIfEmpty(Mono.error(new RuntimeException("User not found")))
-                // flatMapMany() because following is a Set<String> (multiple values) -> convert to Flux
-                .flatMapMany(user -> {
-                    Set<String> followingIds = user.getFollowing();
-                    return userRepository.findAllById(followingIds); // returns Flux<User>
-                })
-                .map(user -> modelMapper.map(user, UserResponseDto.class)); // map User -> DTO
+    public Mono<UserPageDto> getFollowing(String userId, Integer limit, String cursor) {
+        return edgePage(userId, limit, cursor,
+                (size, after) -> after == null
+                        ? followRepository.findByFollowerIdOrderByIdDesc(userId, size)
+                        : followRepository.findByFollowerIdAndIdLessThanOrderByIdDesc(userId, after, size),
+                Follow::getFolloweeId);
     }
 
     /**
-     * Get all followers of a user.
+     * Get one page of the followers of a user, most recent followers first.
      * Very similar to getFollowing()
      */
     @Override
-    public Flux<UserResponseDto> getFollowers(String userId) {
-        return getUser(userId)
-                .switchIfEmpty(Mono.error(new RuntimeException("User not found")))
-                .flatMapMany(user -> {
-                    Set<String> followingIds = user.getFollowers();
-                    return userRepository.findAllById(followingIds);
-                })
-                .map(user -> modelMapper.map(user, UserResponseDto.class));
+    public Mono<UserPageDto> getFollowers(String userId, Integer limit, String cursor) {
+        return edgePage(userId, limit, cursor,
+                (size, after) -> after == null
+                        ? followRepository.findByFolloweeIdOrderByIdDesc(userId, size)
+                        : followRepository.findByFolloweeIdAndIdLessThanOrderByIdDesc(userId, after, size),
+                Follow::getFollowerId);
+    }
+
+    /**
+     * Streaming variant of getFollowing(): users are emitted one by one, in edge order,
+     * as soon as each one is loaded.
+     */
+    @Override
+    public Mono<StreamPageDto<UserResponseDto>> streamFollowing(String userId, Integer limit, String cursor) {
+        return selectEdges(userId, limit, cursor,
+                (size, after) -> after == null
+                        ? followRepository.findByFollowerIdOrderByIdDesc(userId, size)
+                        : followRepository.findByFollowerIdAndIdLessThanOrderByIdDesc(userId, after, size),
+                Follow::getFolloweeId)
+                .map(this::streamUsers);
+    }
+
+    /**
+     * Streaming variant of getFollowers().
+     */
+    @Override
+    public Mono<StreamPageDto<UserResponseDto>> streamFollowers(String userId, Integer limit, String cursor) {
+        return selectEdges(userId, limit, cursor,
+                (size, after) -> after == null
+                        ? followRepository.findByFolloweeIdOrderByIdDesc(userId, size)
+                        : followRepository.findByFolloweeIdAndIdLessThanOrderByIdDesc(userId, after, size),
+                Follow::getFollowerId)
+                .map(this::streamUsers);
     }
 
     /**
      * Get follower count of a user.
-     * map() is enough since we're just transforming User -> Integer
+     * map() is enough since we're just reading the stored counter
      */
     @Override
     public Mono<Integer> getFollowersCount(String userId) {
         return getUser(userId)
-                .map(user -> user.getFollowers().size());
+                .map(User::getFollowersCount);
     }
 
     /**
@@ -171,7 +252,84 @@ public class UserService implements IUserService {
     @Override
     public Mono<Integer> getFollowingCount(String userId) {
         return getUser(userId)
-                .map(user -> user.getFollowing().size());
+                .map(User::getFollowingCount);
+    }
+
+    /**
+     * Shared keyset pagination over Follow edges for getFollowing()/getFollowers().
+     * The cursor is the id of the last edge of the previous page.
+     */
+    private Mono<UserPageDto> edgePage(String userId, Integer limit, String cursor,
+                                       BiFunction<Pageable, String, Flux<Follow>> edgeQuery,
+                                       Function<Follow, String> otherSide) {
+        return selectEdges(userId, limit, cursor, edgeQuery, otherSide)
+                .flatMap(page -> findUsersInOrder(page.userIds())
+                        .map(users -> new UserPageDto(users, page.nextCursor())));
+    }
+
+    /**
+     * Load users by id in one call, keeping the order of the given ids (users deleted in the meantime are skipped).
+     */
+    private Mono<List<UserResponseDto>> findUsersInOrder(List<String> userIds) {
+        return userRepository.findAllById(userIds)
+                .collectMap(User::getId)
+                // findAllById() does not keep order -> re-order by the edges
+                .map(usersById -> userIds.stream()
+                        .map(usersById::get)
+                        .filter(Objects::nonNull)
+                        .map(userMapper::toUserResponseDto)
+                        .toList());
+    }
+
+    /**
+     * The user ids on the other side of one page of edges, plus the cursor of the next page (null on the last page).
+     */
+    private record EdgeSelection(List<String> userIds, String nextCursor) {
+    }
+
+    private Mono<EdgeSelection> selectEdges(String userId, Integer limit, String cursor,
+                                            BiFunction<Pageable, String, Flux<Follow>> edgeQuery,
+                                            Function<Follow, String> otherSide) {
+        if (cursor != null && !ObjectId.isValid(cursor)) {
+            return Mono.error(new ResponseStatusException(HttpStatus.BAD_REQUEST, "Invalid cursor"));
+        }
+
+        int pageSize = pageSize(limit);
+
+        return getUser(userId)
+                // Fetch one extra edge: if it shows up, there is a next page
+                .flatMap(user -> edgeQuery.apply(PageRequest.of(0, pageSize + 1), cursor).collectList())
+                .map(edges -> {
+                    boolean hasMore = edges.size() > pageSize;
+                    List<Follow> page = hasMore ? edges.subList(0, pageSize) : edges;
+                    String nextCursor = hasMore ? page.get(page.size() - 1).getId() : null;
+                    return new EdgeSelection(page.stream().map(otherSide).toList(), nextCursor);
+                });
+    }
+
+    /**
+     * One findAllById per batch of streaming batch-size users, up to streaming-concurrency batches at a time,
+     * emitted in edge order.
+     */
+    private StreamPageDto<UserResponseDto> streamUsers(EdgeSelection page) {
+        FeedProperties.Streaming streaming = feedProperties.getStreaming();
+        return new StreamPageDto<>(
+                Flux.fromIterable(page.userIds())
+                        .buffer(Math.max(streaming.getBatchSize(), 1))
+                        .flatMapSequential(this::findUsersInOrder, streaming.getConcurrency())
+                        .flatMapIterable(users -> users),
+                page.nextCursor());
+    }
+
+    /**
+     * Clamp the requested page size to [1, max-limit]; no limit -> default-limit (same limits as the feed).
+     */
+    private int pageSize(Integer limit) {
+        FeedProperties.Page page = feedProperties.getPage();
+        if (limit == null) {
+            return page.getDefaultLimit();
+        }
+        return Math.max(1, Math.min(limit, page.getMaxLimit()));
     }
 
     /**
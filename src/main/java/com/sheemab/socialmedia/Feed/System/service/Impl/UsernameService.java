@@ -0,0 +1,217 @@
+package com.sheemab.socialmedia.Feed.System.service.Impl;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.sheemab.socialmedia.Feed.System.config.FeedProperties;
+import com.sheemab.socialmedia.Feed.System.entity.User;
+import com.sheemab.socialmedia.Feed.System.repository.UserRepository;
+import com.sheemab.socialmedia.Feed.System.service.IUsernameService;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.redis.core.ReactiveStringRedisTemplate;
+import org.springframework.stereotype.Service;
+import reactor.core.Disposable;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.util.retry.Retry;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * userId -> username resolution shared by the feed, like, comment and post services.
+ * Tier 1: bounded in-process cache (LRU-ish eviction + TTL).
+ * Tier 2: Redis string keys with a longer TTL, read with one MGET per batch.
+ * Whatever misses both tiers is loaded with a single findAllById and written back to both.
+ * Renames go through evict(), which also tells every other instance to drop its local copy.
+ */
+@Slf4j
+@Service
+public class UsernameService implements IUsernameService {
+
+    // Redis write-backs in flight per batch
+    private static final int WRITE_BACK_CONCURRENCY = 16;
+
+    private final UserRepository userRepository;
+    private final ReactiveStringRedisTemplate redisTemplate;
+    private final FeedProperties.Usernames settings;
+    private final Cache<String, String> localCache;
+
+    private final Counter redisHits;
+    private final Counter redisMisses;
+    private final Counter databaseLoads;
+    private final DistributionSummary resolved;
+
+    private Disposable invalidationSubscription;
+
+    public UsernameService(UserRepository userRepository,
+                           ReactiveStringRedisTemplate redisTemplate,
+                           FeedProperties feedProperties,
+                           MeterRegistry meterRegistry) {
+        this.userRepository = userRepository;
+        this.redisTemplate = redisTemplate;
+        this.settings = feedProperties.getUsernames();
+        this.localCache = Caffeine.newBuilder()
+                .maximumSize(settings.getLocalMaxSize())
+                .expireAfterWrite(settings.getLocalTtl())
+                .recordStats()
+                .build();
+
+        // Local tier hit/miss/eviction metrics come from Caffeine's own stats
+        CaffeineCacheMetrics.monitor(meterRegistry, localCache, "usernames");
+        this.redisHits = Counter.builder("usernames.redis.lookups").tag("result", "hit").register(meterRegistry);
+        this.redisMisses = Counter.builder("usernames.redis.lookups").tag("result", "miss").register(meterRegistry);
+        this.databaseLoads = Counter.builder("usernames.database.loads").register(meterRegistry);
+        this.resolved = DistributionSummary.builder("usernames.resolved")
+                .description("Usernames resolved per batch")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Resolve usernames for the given ids. Unknown users are simply absent from the map.
+     */
+    @Override
+    public Mono<Map<String, String>> getUsernames(Collection<String> userIds) {
+        return resolve(userIds)
+                .doOnNext(usernames -> resolved.record(usernames.size()));
+    }
+
+    private Mono<Map<String, String>> resolve(Collection<String> userIds) {
+        Map<String, String> usernames = new HashMap<>();
+        List<String> localMisses = new ArrayList<>();
+
+        // Step 1: local tier
+        for (String userId : new LinkedHashSet<>(userIds)) {
+            String username = localCache.getIfPresent(userId);
+            if (username != null) {
+                usernames.put(userId, username);
+            } else {
+                localMisses.add(userId);
+            }
+        }
+
+        if (localMisses.isEmpty()) {
+            return Mono.just(usernames);
+        }
+
+        // Step 2: Redis tier for everything the local tier did not have
+        return fromRedis(localMisses)
+                .flatMap(redisFound -> {
+                    usernames.putAll(redisFound);
+                    localCache.putAll(redisFound);
+
+                    List<String> redisMissIds = localMisses.stream()
+                            .filter(userId -> !redisFound.containsKey(userId))
+                            .toList();
+                    if (redisMissIds.isEmpty()) {
+                        return Mono.just(usernames);
+                    }
+
+                    // Step 3: one database round trip for the rest
+                    return fromDatabase(redisMissIds)
+                            .map(databaseFound -> {
+                                usernames.putAll(databaseFound);
+                                return usernames;
+                            });
+                });
+    }
+
+    /**
+     * Drop a user's cached username everywhere (call before and after a rename).
+     * Done once more after evict-again-after: a lookup that read the old name from the database before
+     * the rename may write it back to Redis after this eviction.
+     */
+    @Override
+    public Mono<Void> evict(String userId) {
+        return evictNow(userId)
+                .doOnSuccess(v -> evictNow(userId)
+                        .delaySubscription(settings.getEvictAgainAfter())
+                        .subscribe(null, e -> log.warn("Second eviction of username {} failed", userId, e)));
+    }
+
+    private Mono<Void> evictNow(String userId) {
+        return Mono.defer(() -> {
+            localCache.invalidate(userId);
+            return redisTemplate.delete(redisKey(userId))
+                    .then(redisTemplate.convertAndSend(settings.getInvalidationChannel(), userId))
+                    .then();
+        });
+    }
+
+    /**
+     * Other instances publish evictions on a channel; drop our local copy when they do.
+     * Resubscribes with backoff if Redis is unavailable or the connection drops.
+     */
+    @PostConstruct
+    void listenForInvalidations() {
+        invalidationSubscription = redisTemplate.listenToChannel(settings.getInvalidationChannel())
+                .doOnNext(message -> localCache.invalidate(message.getMessage()))
+                .retryWhen(Retry.backoff(Long.MAX_VALUE, Duration.ofSeconds(1)).maxBackoff(Duration.ofSeconds(30)))
+                .subscribe();
+    }
+
+    @PreDestroy
+    void stopListening() {
+        if (invalidationSubscription != null) {
+            invalidationSubscription.dispose();
+        }
+    }
+
+    private Mono<Map<String, String>> fromRedis(List<String> userIds) {
+        List<String> keys = userIds.stream().map(this::redisKey).toList();
+        return redisTemplate.opsForValue().multiGet(keys)
+                .map(values -> {
+                    Map<String, String> found = new HashMap<>();
+                    for (int i = 0; i < userIds.size(); i++) {
+                        if (values.get(i) != null) {
+                            found.put(userIds.get(i), values.get(i));
+                        }
+                    }
+                    redisHits.increment(found.size());
+                    redisMisses.increment(userIds.size() - found.size());
+                    return found;
+                })
+                // Redis is only a cache: if it is down, go to the database
+                .onErrorResume(e -> {
+                    log.warn("Username lookup in Redis failed, falling back to database", e);
+                    return Mono.just(Map.of());
+                });
+    }
+
+    private Mono<Map<String, String>> fromDatabase(List<String> userIds) {
+        return userRepository.findAllById(userIds)
+                .filter(user -> user.getUsername() != null)
+                .collectMap(User::getId, User::getUsername)
+                .flatMap(found -> {
+                    databaseLoads.increment(found.size());
+                    localCache.putAll(found);
+                    return toRedis(found).thenReturn(found);
+                });
+    }
+
+    private Mono<Void> toRedis(Map<String, String> usernames) {
+        return Flux.fromIterable(usernames.entrySet())
+                .flatMap(entry -> redisTemplate.opsForValue()
+                                .set(redisKey(entry.getKey()), entry.getValue(), settings.getRedisTtl()),
+                        WRITE_BACK_CONCURRENCY)
+                .then()
+                .onErrorResume(e -> {
+                    log.warn("Could not write usernames to Redis", e);
+                    return Mono.empty();
+                });
+    }
+
+    private String redisKey(String userId) {
+        return settings.getRedisKeyPrefix() + userId;
+    }
+}
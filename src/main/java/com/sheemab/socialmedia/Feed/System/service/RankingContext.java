@@ -0,0 +1,14 @@
+package com.sheemab.socialmedia.Feed.System.service;
+
+import java.time.LocalDateTime;
+import java.util.Set;
+
+/**
+ * What a FeedScorer knows about the request besides the post itself.
+ *
+ * @param viewerId      the user whose feed is ranked
+ * @param now           one timestamp for the whole request, so every candidate ages the same way
+ * @param closeAuthorIds authors of candidates who follow the viewer back
+ */
+public record RankingContext(String viewerId, LocalDateTime now, Set<String> closeAuthorIds) {
+}
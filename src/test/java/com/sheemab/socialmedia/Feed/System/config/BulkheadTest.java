@@ -0,0 +1,121 @@
+package com.sheemab.socialmedia.Feed.System.config;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.mock.http.server.reactive.MockServerHttpRequest;
+import org.springframework.mock.web.server.MockServerWebExchange;
+import org.springframework.web.server.ServerWebExchange;
+import reactor.core.Disposable;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Permits of a bulkhead, and that the web filter gives them back however the request ends.
+ */
+class BulkheadTest {
+
+    private static final Duration WAIT = Duration.ofSeconds(5);
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    @Test
+    void rejectsOnceEveryPermitIsTaken() {
+        Bulkhead bulkhead = new Bulkhead("test", 2, meterRegistry);
+
+        assertTrue(bulkhead.tryAcquire());
+        assertTrue(bulkhead.tryAcquire());
+        assertFalse(bulkhead.tryAcquire());
+
+        assertEquals(2, inFlight("test"));
+        assertEquals(1, rejected("test"));
+    }
+
+    @Test
+    void releasedPermitCanBeTakenAgain() {
+        Bulkhead bulkhead = new Bulkhead("test", 1, meterRegistry);
+
+        assertTrue(bulkhead.tryAcquire());
+        assertFalse(bulkhead.tryAcquire());
+        bulkhead.release();
+
+        assertTrue(bulkhead.tryAcquire());
+        assertEquals(1, inFlight("test"));
+    }
+
+    @Test
+    void saturatedFilterAnswers503() {
+        BulkheadWebFilter filter = filter(1);
+        filter.filter(feedRead(), exchange -> Mono.never()).subscribe();
+
+        ServerWebExchange rejected = feedRead();
+        filter.filter(rejected, exchange -> Mono.error(new AssertionError("must not reach the handler"))).block(WAIT);
+
+        assertEquals(HttpStatus.SERVICE_UNAVAILABLE, rejected.getResponse().getStatusCode());
+        assertEquals("1", rejected.getResponse().getHeaders().getFirst(HttpHeaders.RETRY_AFTER));
+        assertEquals(1, rejected("feed-reads"));
+    }
+
+    @Test
+    void permitIsReleasedWhenTheRequestIsCancelled() {
+        BulkheadWebFilter filter = filter(1);
+
+        Disposable request = filter.filter(feedRead(), exchange -> Mono.never()).subscribe();
+        assertEquals(1, inFlight("feed-reads"));
+
+        // e.g. the client went away
+        request.dispose();
+        assertEquals(0, inFlight("feed-reads"));
+    }
+
+    @Test
+    void permitIsReleasedWhenTheRequestFails() {
+        BulkheadWebFilter filter = filter(1);
+
+        assertThrows(IllegalStateException.class, () -> filter.filter(feedRead(),
+                exchange -> Mono.error(new IllegalStateException("boom"))).block(WAIT));
+
+        assertEquals(0, inFlight("feed-reads"));
+        ServerWebExchange next = feedRead();
+        filter.filter(next, exchange -> Mono.empty()).block(WAIT);
+        assertEquals(0, rejected("feed-reads"));
+    }
+
+    @Test
+    void liveFeedIsNotCounted() {
+        BulkheadWebFilter filter = filter(1);
+
+        filter.filter(exchange("/api/feed/u1/live"), exchange -> Mono.never()).subscribe();
+
+        assertEquals(0, inFlight("feed-reads"));
+    }
+
+    private BulkheadWebFilter filter(int maxConcurrent) {
+        FeedProperties feedProperties = new FeedProperties();
+        feedProperties.getBulkheads().getFeedReads().setMaxConcurrent(maxConcurrent);
+        return new BulkheadWebFilter(feedProperties, meterRegistry);
+    }
+
+    private static ServerWebExchange feedRead() {
+        return exchange("/api/feed/u1");
+    }
+
+    private static ServerWebExchange exchange(String path) {
+        return MockServerWebExchange.from(MockServerHttpRequest.get(path));
+    }
+
+    private double inFlight(String name) {
+        return meterRegistry.get("feed.bulkhead.in.flight").tag("bulkhead", name).gauge().value();
+    }
+
+    private double rejected(String name) {
+        return meterRegistry.get("feed.bulkhead.rejected").tag("bulkhead", name).counter().count();
+    }
+}
@@ -0,0 +1,94 @@
+package com.sheemab.socialmedia.Feed.System.mapper;
+
+import com.sheemab.socialmedia.Feed.System.dto.PostResponseDto;
+import com.sheemab.socialmedia.Feed.System.dto.UserResponseDto;
+import com.sheemab.socialmedia.Feed.System.entity.Comments;
+import com.sheemab.socialmedia.Feed.System.entity.Likes;
+import com.sheemab.socialmedia.Feed.System.entity.Post;
+import com.sheemab.socialmedia.Feed.System.entity.User;
+import org.junit.jupiter.api.Test;
+import org.modelmapper.ModelMapper;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * The hand-written mappers must produce the same DTOs as the ModelMapper bean they replaced.
+ */
+class MapperEquivalenceTest {
+
+    private static final LocalDateTime NOW = LocalDateTime.of(2025, 1, 1, 12, 0);
+
+    private final ModelMapper modelMapper = new ModelMapper();
+    private final PostMapper postMapper = new PostMapper();
+    private final UserMapper userMapper = new UserMapper();
+
+    @Test
+    void postWithoutEmbeddedLikesOrComments() {
+        assertPostEquivalent(Post.builder()
+                .id("p1")
+                .userId("u1")
+                .content("hello")
+                .createdAt(NOW)
+                .likeCount(7)
+                .commentCount(2)
+                .build());
+    }
+
+    @Test
+    void postWithEmptyEmbeddedLists() {
+        assertPostEquivalent(Post.builder()
+                .id("p1")
+                .userId("u1")
+                .content("hello")
+                .createdAt(NOW)
+                .likes(new ArrayList<>())
+                .comments(new ArrayList<>())
+                .build());
+    }
+
+    @Test
+    void postWithEmbeddedLikesAndComments() {
+        assertPostEquivalent(Post.builder()
+                .id("p1")
+                .userId("u1")
+                .content("hello")
+                .createdAt(NOW)
+                .likes(List.of(
+                        new Likes("l1", "p1", "u2", NOW.plusMinutes(1)),
+                        new Likes("l2", "p1", "u3", null)))
+                .comments(List.of(
+                        new Comments("c1", "u2", "nice", "p1", NOW.plusMinutes(2))))
+                .likeCount(2)
+                .commentCount(1)
+                .build());
+    }
+
+    @Test
+    void postWithOnlyNulls() {
+        assertPostEquivalent(new Post());
+    }
+
+    @Test
+    void user() {
+        assertUserEquivalent(User.builder()
+                .id("u1")
+                .username("alice")
+                .email("alice@example.com")
+                .followersCount(10)
+                .followingCount(3)
+                .build());
+        assertUserEquivalent(new User());
+    }
+
+    private void assertPostEquivalent(Post post) {
+        assertEquals(modelMapper.map(post, PostResponseDto.class), postMapper.toPostResponseDto(post));
+    }
+
+    private void assertUserEquivalent(User user) {
+        assertEquals(modelMapper.map(user, UserResponseDto.class), userMapper.toUserResponseDto(user));
+    }
+}
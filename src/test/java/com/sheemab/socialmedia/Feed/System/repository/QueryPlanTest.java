@@ -0,0 +1,270 @@
+package com.sheemab.socialmedia.Feed.System.repository;
+
+import com.mongodb.event.CommandFailedEvent;
+import com.mongodb.event.CommandListener;
+import com.mongodb.event.CommandStartedEvent;
+import com.mongodb.event.CommandSucceededEvent;
+import com.sheemab.socialmedia.Feed.System.entity.Comments;
+import com.sheemab.socialmedia.Feed.System.entity.Follow;
+import com.sheemab.socialmedia.Feed.System.entity.Likes;
+import com.sheemab.socialmedia.Feed.System.entity.Post;
+import com.sheemab.socialmedia.Feed.System.entity.PostCleanup;
+import com.sheemab.socialmedia.Feed.System.entity.User;
+import org.bson.BsonDocument;
+import org.bson.BsonString;
+import org.bson.Document;
+import org.bson.types.ObjectId;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.reactivestreams.Publisher;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.mongo.MongoClientSettingsBuilderCustomizer;
+import org.springframework.boot.test.autoconfigure.data.mongo.DataMongoTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Import;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.mongodb.core.ReactiveMongoTemplate;
+import org.springframework.data.mongodb.core.index.IndexResolver;
+import reactor.core.publisher.Flux;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+
+/**
+ * Every repository query must be answered from an index: each repository method is called with real
+ * (String) ids, the commands it sends are captured from the driver, and the winning plan of each of them
+ * may not contain a COLLSCAN stage. So the test checks the queries Spring Data actually builds
+ * (id conversion, derived queries, @Query strings), not hand-written copies of them.
+ * Needs the same local MongoDB as the rest of the tests.
+ */
+@DataMongoTest
+@Import(QueryPlanTest.CommandCapture.class)
+class QueryPlanTest {
+
+    private static final PageRequest PAGE = PageRequest.of(0, 21);
+
+    @Autowired
+    private ReactiveMongoTemplate mongoTemplate;
+    @Autowired
+    private CommandCapture commandCapture;
+
+    @Autowired
+    private PostRepository postRepository;
+    @Autowired
+    private LikeRepository likeRepository;
+    @Autowired
+    private CommentRepository commentRepository;
+    @Autowired
+    private FollowRepository followRepository;
+    @Autowired
+    private UserRepository userRepository;
+    @Autowired
+    private PostCleanupRepository postCleanupRepository;
+
+    private final String id = new ObjectId().toHexString();
+    private final String userId = new ObjectId().toHexString();
+    private final String otherId = new ObjectId().toHexString();
+    private final String postId = new ObjectId().toHexString();
+    private final LocalDateTime createdAt = LocalDateTime.now();
+
+    /**
+     * Captures the query commands the driver sends while capturing is on.
+     */
+    @TestConfiguration
+    static class CommandCapture implements CommandListener {
+
+        private static final Set<String> QUERIES = Set.of("find", "aggregate", "count", "update", "delete");
+
+        private final List<BsonDocument> commands = new CopyOnWriteArrayList<>();
+        private volatile boolean capturing;
+
+        @Bean
+        MongoClientSettingsBuilderCustomizer captureCommands() {
+            return builder -> builder.addCommandListener(this);
+        }
+
+        @Override
+        public void commandStarted(CommandStartedEvent event) {
+            if (capturing && QUERIES.contains(event.getCommandName())) {
+                // the event's document is only valid during the callback
+                commands.add(event.getCommand().clone());
+            }
+        }
+
+        @Override
+        public void commandSucceeded(CommandSucceededEvent event) {
+        }
+
+        @Override
+        public void commandFailed(CommandFailedEvent event) {
+        }
+
+        List<BsonDocument> capture(Publisher<?> call) {
+            commands.clear();
+            capturing = true;
+            try {
+                Flux.from(call).then().block();
+            } finally {
+                capturing = false;
+            }
+            return new ArrayList<>(commands);
+        }
+    }
+
+    /**
+     * Index creation at startup is asynchronous; create the declared indexes before explaining anything.
+     */
+    @BeforeEach
+    void ensureIndexes() {
+        IndexResolver resolver = IndexResolver.create(mongoTemplate.getConverter().getMappingContext());
+        Flux.just(Post.class, Likes.class, Comments.class, Follow.class, User.class, PostCleanup.class)
+                .concatMap(type -> Flux.fromIterable(resolver.resolveIndexFor(type))
+                        .concatMap(index -> mongoTemplate.indexOps(type).ensureIndex(index)))
+                .then()
+                .block();
+    }
+
+    @Test
+    void postQueriesUseIndexes() {
+        Set<String> authors = Set.of(userId, otherId);
+
+        assertIndexed(postRepository.findByUserIdInOrderByCreatedAtDescIdDesc(authors, PAGE));
+        assertIndexed(postRepository.findByUserIdInBefore(authors, createdAt, id, PAGE));
+        assertIndexed(postRepository.findByUserIdOrderByCreatedAtDescIdDesc(userId, PAGE));
+        assertIndexed(postRepository.findByUserIdBefore(userId, createdAt, id, PAGE));
+        assertIndexed(postRepository.findAllBy(PAGE));
+        assertIndexed(postRepository.findOldestIds(PAGE));
+        assertIndexed(postRepository.findNewestIds(PAGE));
+        assertIndexed(postRepository.findExportPage("0".repeat(24), id, PAGE));
+        assertIndexed(postRepository.findExportPageAfter("0".repeat(24), id, PAGE));
+        assertIndexed(postRepository.findById(postId));
+        assertIndexed(postRepository.existsById(postId));
+        assertIndexed(postRepository.findCountersById(postId));
+        assertIndexed(postRepository.findCountersAfter(id, PAGE));
+        assertIndexed(postRepository.incrementLikeCount(postId, 1));
+        assertIndexed(postRepository.incrementCommentCount(postId, 1));
+        assertIndexed(postRepository.resetCounters(postId, 0, 0, 1, 1));
+    }
+
+    @Test
+    void likeQueriesUseIndexes() {
+        assertIndexed(likeRepository.findByPostIdAndUserId(postId, userId));
+        assertIndexed(likeRepository.findByPostId(postId));
+        assertIndexed(likeRepository.findByPostIdIn(List.of(postId, otherId)));
+        assertIndexed(likeRepository.countByPostId(postId));
+        assertIndexed(likeRepository.findLikedPosts(userId, List.of(postId, otherId)));
+        assertIndexed(likeRepository.findLikersByPostId(postId));
+        assertIndexed(likeRepository.findByPostIdOrderByLikedAtDesc(postId, PAGE));
+        assertIndexed(likeRepository.deleteByPostIdAndUserId(postId, userId));
+        assertIndexed(likeRepository.findIdsByPostId(postId, PAGE));
+    }
+
+    @Test
+    void commentQueriesUseIndexes() {
+        assertIndexed(commentRepository.findByPostIdOrderByCommentedAtDesc(postId));
+        assertIndexed(commentRepository.findByPostIdOrderByCommentedAtDesc(postId, PAGE));
+        assertIndexed(commentRepository.countByPostId(postId));
+        assertIndexed(commentRepository.deleteByCommentId(id));
+        assertIndexed(commentRepository.findByPostId(postId));
+        assertIndexed(commentRepository.findIdsByPostId(postId, PAGE));
+        assertIndexed(commentRepository.findByPostIdIn(List.of(postId, otherId)));
+    }
+
+    @Test
+    void followQueriesUseIndexes() {
+        assertIndexed(followRepository.findByFollowerId(userId));
+        assertIndexed(followRepository.findByFolloweeId(userId));
+        assertIndexed(followRepository.findByFollowerIdAndFolloweeIdIn(userId, List.of(otherId)));
+        assertIndexed(followRepository.findByFolloweeIdAndFollowerIdIn(userId, List.of(otherId)));
+        assertIndexed(followRepository.findByFollowerIdOrderByIdDesc(userId, PAGE));
+        assertIndexed(followRepository.findByFollowerIdAndIdLessThanOrderByIdDesc(userId, id, PAGE));
+        assertIndexed(followRepository.findByFolloweeIdOrderByIdDesc(userId, PAGE));
+        assertIndexed(followRepository.findByFolloweeIdAndIdLessThanOrderByIdDesc(userId, id, PAGE));
+        assertIndexed(followRepository.deleteByFollowerIdAndFolloweeId(userId, otherId));
+    }
+
+    @Test
+    void cleanupQueriesUseIndexes() {
+        assertIndexed(postCleanupRepository.findByOrderByDeletedAtAsc(PAGE));
+        assertIndexed(postCleanupRepository.findByDeletedAtAfterOrderByDeletedAtAsc(createdAt, PAGE));
+        assertIndexed(postCleanupRepository.deleteById(postId));
+        assertIndexed(postCleanupRepository.deleteByPostIdAndDeletedAt(postId, createdAt));
+    }
+
+    @Test
+    void userQueriesUseIndexes() {
+        assertIndexed(userRepository.existsByEmail("someone@example.com"));
+        assertIndexed(userRepository.existsByUsername("someone"));
+        assertIndexed(userRepository.existsByUsernameAndIdNot("someone", userId));
+        assertIndexed(userRepository.findById(userId));
+        assertIndexed(userRepository.findAllById(List.of(userId, otherId)));
+        assertIndexed(userRepository.incrementFollowersCount(userId, 1));
+        assertIndexed(userRepository.incrementFollowingCount(userId, 1));
+    }
+
+    /**
+     * Run the repository call, then explain every query command it sent.
+     */
+    private void assertIndexed(Publisher<?> call) {
+        List<BsonDocument> commands = commandCapture.capture(call);
+        assertFalse(commands.isEmpty(), "the call sent no query command");
+
+        for (BsonDocument command : commands) {
+            // session, cluster time, read preference etc. are not part of the query and not allowed in explain
+            BsonDocument query = new BsonDocument();
+            command.forEach((name, value) -> {
+                if (!name.startsWith("$") && !name.equals("lsid") && !name.equals("txnNumber")) {
+                    query.append(name, value);
+                }
+            });
+            Document explain = mongoTemplate.executeCommand(
+                            new BsonDocument("explain", query).append("verbosity", new BsonString("queryPlanner")).toJson())
+                    .block();
+
+            List<Object> winningPlans = new ArrayList<>();
+            collect(explain, "winningPlan", winningPlans);
+            assertFalse(winningPlans.isEmpty(), () -> "no plan for " + query.toJson() + ": " + explain.toJson());
+            assertFalse(containsStage(winningPlans, "COLLSCAN"),
+                    () -> query.toJson() + " is a collection scan: " + explain.toJson());
+        }
+    }
+
+    /**
+     * Every value stored under the given key, anywhere in the document (aggregate explains nest the plan).
+     */
+    private static void collect(Object node, String key, List<Object> found) {
+        if (node instanceof Document document) {
+            document.forEach((name, value) -> {
+                if (key.equals(name)) {
+                    found.add(value);
+                } else {
+                    collect(value, key, found);
+                }
+            });
+        } else if (node instanceof List<?> list) {
+            list.forEach(value -> collect(value, key, found));
+        }
+    }
+
+    /**
+     * Walk the plan tree (inputStage / inputStages / queryPlan) looking for a stage.
+     */
+    private static boolean containsStage(Object node, String stage) {
+        if (node instanceof Document document) {
+            if (stage.equals(document.get("stage"))) {
+                return true;
+            }
+            return document.values().stream().anyMatch(value -> containsStage(value, stage));
+        }
+        if (node instanceof List<?> list) {
+            return list.stream().anyMatch(value -> containsStage(value, stage));
+        }
+        return false;
+    }
+}
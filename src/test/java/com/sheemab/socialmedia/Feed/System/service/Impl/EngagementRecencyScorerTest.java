@@ -0,0 +1,91 @@
+package com.sheemab.socialmedia.Feed.System.service.Impl;
+
+import com.sheemab.socialmedia.Feed.System.config.FeedProperties;
+import com.sheemab.socialmedia.Feed.System.entity.Post;
+import com.sheemab.socialmedia.Feed.System.service.RankingContext;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Recency decay, engagement weighting and author affinity of the default ranking,
+ * with the default settings (6h half-life, likes 1, comments 3, close authors 1.5).
+ */
+class EngagementRecencyScorerTest {
+
+    private static final double DELTA = 1e-9;
+    private static final LocalDateTime NOW = LocalDateTime.of(2026, 1, 1, 12, 0);
+    private static final RankingContext CONTEXT = new RankingContext("viewer", NOW, Set.of("close"));
+
+    private final FeedProperties feedProperties = new FeedProperties();
+    private final EngagementRecencyScorer scorer = new EngagementRecencyScorer(feedProperties);
+
+    @Test
+    void scoreHalvesEveryHalfLife() {
+        assertEquals(1.0, score(0, 0, 0), DELTA);
+        assertEquals(0.5, score(6, 0, 0), DELTA);
+        assertEquals(0.25, score(12, 0, 0), DELTA);
+    }
+
+    @Test
+    void halfLifeIsConfigurable() {
+        feedProperties.getRanking().setHalfLife(Duration.ofHours(1));
+
+        assertEquals(0.25, score(2, 0, 0), DELTA);
+    }
+
+    @Test
+    void postsFromTheFutureAreNotBoosted() {
+        // clock skew between instances: treated as brand new, not as negative age
+        assertEquals(1.0, score(-1, 0, 0), DELTA);
+    }
+
+    @Test
+    void engagementCountsPerHourOfAge() {
+        // 10 likes in the first hour -> velocity 10
+        assertEquals(11.0, score(0, 10, 0), DELTA);
+        // 10 likes over 2 hours -> velocity 5, decayed for 2 of 6 hours
+        assertEquals(6.0 * Math.pow(0.5, 2.0 / 6), score(2, 10, 0), DELTA);
+    }
+
+    @Test
+    void aCommentWeighsThreeLikes() {
+        assertEquals(score(0, 3, 0), score(0, 0, 1), DELTA);
+        assertEquals(1 + 3 + 3 * 2, score(0, 3, 2), DELTA);
+    }
+
+    @Test
+    void engagementOutweighsAFewHoursOfAge() {
+        assertTrue(score(3, 50, 5) > score(0, 0, 0));
+        assertTrue(score(0, 1, 0) > score(1, 1, 0));
+    }
+
+    @Test
+    void closeAuthorsAreBoosted() {
+        Post post = post("close", 2, 4, 1);
+
+        double boosted = scorer.score(post, CONTEXT);
+        double plain = scorer.score(post, new RankingContext("viewer", NOW, Set.of()));
+
+        assertEquals(1.5 * plain, boosted, DELTA);
+    }
+
+    private double score(int ageHours, int likes, int comments) {
+        return scorer.score(post("author", ageHours, likes, comments), CONTEXT);
+    }
+
+    private static Post post(String userId, int ageHours, int likes, int comments) {
+        return Post.builder()
+                .id("p1")
+                .userId(userId)
+                .createdAt(NOW.minusHours(ageHours))
+                .likeCount(likes)
+                .commentCount(comments)
+                .build();
+    }
+}
@@ -0,0 +1,142 @@
+package com.sheemab.socialmedia.Feed.System.service.Impl;
+
+import com.sheemab.socialmedia.Feed.System.config.FeedMetrics;
+import com.sheemab.socialmedia.Feed.System.config.FeedProperties;
+import com.sheemab.socialmedia.Feed.System.dto.FeedCursor;
+import com.sheemab.socialmedia.Feed.System.dto.FeedOrder;
+import com.sheemab.socialmedia.Feed.System.dto.FeedPageDto;
+import com.sheemab.socialmedia.Feed.System.dto.FeedView;
+import com.sheemab.socialmedia.Feed.System.dto.PostResponseDto;
+import com.sheemab.socialmedia.Feed.System.entity.Post;
+import com.sheemab.socialmedia.Feed.System.entity.User;
+import com.sheemab.socialmedia.Feed.System.repository.CommentRepository;
+import com.sheemab.socialmedia.Feed.System.repository.FollowRepository;
+import com.sheemab.socialmedia.Feed.System.repository.LikeRepository;
+import com.sheemab.socialmedia.Feed.System.repository.PostRepository;
+import com.sheemab.socialmedia.Feed.System.repository.TimelineRepository;
+import com.sheemab.socialmedia.Feed.System.repository.UserRepository;
+import com.sheemab.socialmedia.Feed.System.service.FeedScorer;
+import com.sheemab.socialmedia.Feed.System.service.IFeedVersionService;
+import com.sheemab.socialmedia.Feed.System.service.IFollowingService;
+import com.sheemab.socialmedia.Feed.System.service.IUsernameService;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.domain.PageRequest;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.anyIterable;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * PUSH mode pages: a timeline that runs short, or still lists deleted posts, is topped up from the pull query.
+ */
+class FeedServiceTest {
+
+    private static final Duration WAIT = Duration.ofSeconds(5);
+    private static final LocalDateTime NOW = LocalDateTime.of(2026, 1, 1, 12, 0);
+    private static final String VIEWER = "viewer";
+    private static final String AUTHOR = "author";
+
+    private final PostRepository postRepository = mock(PostRepository.class);
+    private final UserRepository userRepository = mock(UserRepository.class);
+    private final LikeRepository likeRepository = mock(LikeRepository.class);
+    private final CommentRepository commentRepository = mock(CommentRepository.class);
+    private final TimelineRepository timelineRepository = mock(TimelineRepository.class);
+    private final IUsernameService usernameService = mock(IUsernameService.class);
+    private final IFeedVersionService feedVersionService = mock(IFeedVersionService.class);
+    private final IFollowingService followingService = mock(IFollowingService.class);
+    private final FeedProperties feedProperties = new FeedProperties();
+
+    private final FeedService feedService = new FeedService(postRepository, userRepository, likeRepository,
+            commentRepository, timelineRepository, feedProperties, mock(KWayMergeFeedEngine.class), usernameService,
+            mock(FollowRepository.class), mock(FeedScorer.class), new FeedMetrics(new SimpleMeterRegistry()),
+            feedVersionService, followingService);
+
+    private final Post p1 = post("p1", NOW.minusHours(1));
+    private final Post p3 = post("p3", NOW.minusHours(3));
+    private final Post p4 = post("p4", NOW.minusHours(4));
+
+    @BeforeEach
+    void setUp() {
+        feedProperties.setMode(FeedProperties.Mode.PUSH);
+
+        when(userRepository.findById(VIEWER)).thenReturn(Mono.just(User.builder().id(VIEWER).build()));
+        when(followingService.followeeIds(VIEWER)).thenReturn(Mono.just(Set.of(AUTHOR)));
+        when(feedVersionService.pageServed(anyString(), anyList())).thenReturn(Mono.empty());
+
+        // no likes or comments on any post
+        when(likeRepository.findByPostIdIn(anyCollection())).thenReturn(Flux.empty());
+        when(commentRepository.findByPostIdIn(anyCollection())).thenReturn(Flux.empty());
+        when(usernameService.getUsernames(any())).thenReturn(Mono.just(Map.of()));
+    }
+
+    @Test
+    void deletedPostLeftInTheTimelineIsReplacedFromThePullQuery() {
+        // page of 2 -> 3 ids read (one extra for the next cursor); "gone" was deleted, cleanup has not run yet
+        when(timelineRepository.readPage(VIEWER, null, 3)).thenReturn(Flux.just("p1", "gone", "p3"));
+        when(postRepository.findAllById(anyIterable())).thenReturn(Flux.just(p3, p1));
+        when(postRepository.findByUserIdInBefore(eq(Set.of(AUTHOR)), eq(p3.getCreatedAt()), eq("p3"),
+                eq(PageRequest.of(0, 1)))).thenReturn(Flux.just(p4));
+
+        FeedPageDto page = feedService.getUserFeed(VIEWER, 2, null, FeedView.FULL, FeedOrder.CHRONOLOGICAL, false)
+                .block(WAIT);
+
+        assertEquals(List.of("p1", "p3"), ids(page));
+        // p4 proves there is more: the feed does not end here
+        assertEquals(FeedCursor.of(p3).encode(), page.getNextCursor());
+    }
+
+    @Test
+    void fullTimelinePageNeedsNoPullQuery() {
+        when(timelineRepository.readPage(VIEWER, null, 3)).thenReturn(Flux.just("p1", "p3", "p4"));
+        when(postRepository.findAllById(anyIterable())).thenReturn(Flux.just(p4, p3, p1));
+
+        FeedPageDto page = feedService.getUserFeed(VIEWER, 2, null, FeedView.FULL, FeedOrder.CHRONOLOGICAL, false)
+                .block(WAIT);
+
+        assertEquals(List.of("p1", "p3"), ids(page));
+        assertEquals(FeedCursor.of(p3).encode(), page.getNextCursor());
+        verify(postRepository, never()).findByUserIdInBefore(any(), any(), any(), any());
+        verify(postRepository, never()).findByUserIdInOrderByCreatedAtDescIdDesc(any(), any());
+    }
+
+    @Test
+    void lastPageHasNoNextCursor() {
+        when(timelineRepository.readPage(VIEWER, null, 3)).thenReturn(Flux.just("p1", "gone"));
+        when(postRepository.findAllById(anyIterable())).thenReturn(Flux.just(p1));
+        when(postRepository.findByUserIdInBefore(eq(Set.of(AUTHOR)), eq(p1.getCreatedAt()), eq("p1"),
+                eq(PageRequest.of(0, 2)))).thenReturn(Flux.empty());
+
+        FeedPageDto page = feedService.getUserFeed(VIEWER, 2, null, FeedView.FULL, FeedOrder.CHRONOLOGICAL, false)
+                .block(WAIT);
+
+        assertEquals(List.of("p1"), ids(page));
+        assertNull(page.getNextCursor());
+    }
+
+    private static List<String> ids(FeedPageDto page) {
+        return page.getPosts().stream().map(PostResponseDto::getId).toList();
+    }
+
+    private static Post post(String id, LocalDateTime createdAt) {
+        return Post.builder().id(id).userId(AUTHOR).content("post " + id).createdAt(createdAt).build();
+    }
+}
@@ -0,0 +1,317 @@
+package com.sheemab.socialmedia.Feed.System.service.Impl;
+
+import com.mongodb.MongoBulkWriteException;
+import com.mongodb.ServerAddress;
+import com.mongodb.bulk.BulkWriteError;
+import com.mongodb.bulk.BulkWriteResult;
+import com.mongodb.bulk.BulkWriteUpsert;
+import com.mongodb.client.model.BulkWriteOptions;
+import com.mongodb.client.model.DeleteOneModel;
+import com.mongodb.client.model.UpdateOneModel;
+import com.mongodb.client.model.WriteModel;
+import com.mongodb.reactivestreams.client.MongoCollection;
+import com.sheemab.socialmedia.Feed.System.config.FeedProperties;
+import com.sheemab.socialmedia.Feed.System.entity.Likes;
+import com.sheemab.socialmedia.Feed.System.entity.Post;
+import com.sheemab.socialmedia.Feed.System.service.IFeedVersionService;
+import com.sheemab.socialmedia.Feed.System.service.IHotPostService;
+import org.bson.BsonDocument;
+import org.bson.BsonObjectId;
+import org.bson.Document;
+import org.bson.conversions.Bson;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.mongodb.core.ReactiveMongoTemplate;
+import org.springframework.data.mongodb.core.convert.MongoConverter;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.server.ResponseStatusException;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * Batching, backpressure and partial failures of the like write-behind, against a mocked collection.
+ */
+class LikeWriteBehindTest {
+
+    private static final Duration WAIT = Duration.ofSeconds(10);
+
+    private final ReactiveMongoTemplate mongoTemplate = mock(ReactiveMongoTemplate.class);
+    @SuppressWarnings("unchecked")
+    private final MongoCollection<Document> likes = mock(MongoCollection.class);
+    @SuppressWarnings("unchecked")
+    private final MongoCollection<Document> posts = mock(MongoCollection.class);
+    private final IFeedVersionService feedVersionService = mock(IFeedVersionService.class);
+    private final IHotPostService hotPostService = mock(IHotPostService.class);
+    private final FeedProperties feedProperties = new FeedProperties();
+    private final FeedProperties.LikeWrites settings = feedProperties.getLikeWrites();
+
+    // every bulkWrite, per collection, in call order
+    private final List<List<WriteModel<Document>>> likeWrites = new ArrayList<>();
+    private final List<List<WriteModel<Document>>> postWrites = new ArrayList<>();
+    private final List<BulkWriteOptions> likeOptions = new ArrayList<>();
+
+    // answer of the likes collection per bulkWrite; by default every upsert inserts and every delete deletes
+    private Function<List<WriteModel<Document>>, Mono<BulkWriteResult>> likesAnswer = models -> Mono.just(applied(models));
+
+    @BeforeEach
+    void setUp() {
+        settings.setEnabled(true);
+        when(feedVersionService.engagementChanged(any(), any())).thenReturn(Mono.empty());
+        when(hotPostService.onLike(any(), any())).thenReturn(Mono.empty());
+        when(hotPostService.onUnlike(any(), any())).thenReturn(Mono.empty());
+        when(hotPostService.onWriteFailed(any())).thenReturn(Mono.empty());
+
+        MongoConverter converter = mock(MongoConverter.class);
+        when(converter.convertToMongoType(any())).thenAnswer(invocation -> invocation.getArgument(0));
+        when(mongoTemplate.getConverter()).thenReturn(converter);
+        when(mongoTemplate.getCollectionName(Likes.class)).thenReturn("likes");
+        when(mongoTemplate.getCollectionName(Post.class)).thenReturn("posts");
+        when(mongoTemplate.getCollection("likes")).thenReturn(Mono.just(likes));
+        when(mongoTemplate.getCollection("posts")).thenReturn(Mono.just(posts));
+        when(likes.withWriteConcern(any())).thenReturn(likes);
+        when(posts.withWriteConcern(any())).thenReturn(posts);
+
+        // every post exists
+        when(mongoTemplate.find(any(Query.class), eq(Post.class))).thenAnswer(invocation -> {
+            Query query = invocation.getArgument(0);
+            Collection<?> ids = (Collection<?>) ((Document) query.getQueryObject().get("_id")).get("$in");
+            return Flux.fromIterable(ids).map(id -> Post.builder().id((String) id).build());
+        });
+
+        when(likes.bulkWrite(anyList(), any(BulkWriteOptions.class))).thenAnswer(invocation -> {
+            List<WriteModel<Document>> models = invocation.getArgument(0);
+            synchronized (likeWrites) {
+                likeWrites.add(models);
+                likeOptions.add(invocation.getArgument(1));
+            }
+            return likesAnswer.apply(models);
+        });
+        when(posts.bulkWrite(anyList(), any(BulkWriteOptions.class))).thenAnswer(invocation -> {
+            List<WriteModel<Document>> models = invocation.getArgument(0);
+            synchronized (postWrites) {
+                postWrites.add(models);
+            }
+            return Mono.just(BulkWriteResult.acknowledged(0, models.size(), 0, models.size(), List.of(), List.of()));
+        });
+    }
+
+    @Test
+    void oneUnorderedBulkWritePerPostWithTheLastOperationPerUser() {
+        settings.setWindow(Duration.ofMillis(200));
+        LikeWriteBehind writeBehind = start();
+
+        Mono.when(
+                writeBehind.like("p1", "u1"),
+                writeBehind.unlike("p1", "u1"),   // the last operation of u1 on p1 wins
+                writeBehind.like("p1", "u2"),
+                writeBehind.like("p2", "u1")
+        ).block(WAIT);
+
+        assertEquals(2, likeWrites.size());
+        assertTrue(likeOptions.stream().noneMatch(BulkWriteOptions::isOrdered));
+
+        List<WriteModel<Document>> p1 = writesOf("p1");
+        assertEquals(2, p1.size());
+        assertInstanceOf(DeleteOneModel.class, p1.get(0));
+        assertInstanceOf(UpdateOneModel.class, p1.get(1));
+        assertEquals(1, writesOf("p2").size());
+
+        // p1: one like inserted, one deleted -> unchanged; p2: one like inserted
+        assertEquals(Map.of("p2", 1), likeCountIncrements());
+
+        // feed versions are bumped once the likes are written, once per (post, user)
+        verify(feedVersionService).engagementChanged("p1", "u1");
+        verify(feedVersionService).engagementChanged("p1", "u2");
+        verify(feedVersionService).engagementChanged("p2", "u1");
+
+        // hot-post sets get the written state only: u1 no longer likes p1
+        verify(hotPostService).onUnlike("p1", "u1");
+        verify(hotPostService, never()).onLike("p1", "u1");
+        verify(hotPostService).onLike("p1", "u2");
+        verify(hotPostService).onLike("p2", "u1");
+    }
+
+    @Test
+    void fullBufferIsFlushedBeforeTheWindowEnds() {
+        settings.setWindow(Duration.ofHours(1));
+        settings.setMaxBatchSize(2);
+        LikeWriteBehind writeBehind = start();
+
+        Mono.when(writeBehind.like("p1", "u1"), writeBehind.like("p1", "u2")).block(WAIT);
+
+        assertEquals(1, likeWrites.size());
+        assertEquals(Map.of("p1", 2), likeCountIncrements());
+    }
+
+    @Test
+    void duplicateLikeOnlySkipsThatRow() {
+        settings.setWindow(Duration.ofMillis(200));
+        likesAnswer = models -> postIdOf(models).equals("p1")
+                // u1 inserted, u2 already liked concurrently (duplicate key on the upsert)
+                ? Mono.error(new MongoBulkWriteException(
+                        BulkWriteResult.acknowledged(0, 0, 0, 0,
+                                List.of(new BulkWriteUpsert(0, new BsonObjectId())), List.of()),
+                        List.of(new BulkWriteError(11000, "E11000 duplicate key error", new BsonDocument(), 1)),
+                        null, new ServerAddress(), Set.of()))
+                : Mono.just(applied(models));
+        LikeWriteBehind writeBehind = start();
+
+        Mono.when(
+                writeBehind.like("p1", "u1"),
+                writeBehind.like("p1", "u2"),
+                writeBehind.like("p2", "u1")
+        ).block(WAIT);
+
+        // the duplicate neither fails the requests nor holds back the counters of the other rows and posts
+        assertEquals(Map.of("p1", 1, "p2", 1), likeCountIncrements());
+    }
+
+    @Test
+    void failedPostOnlyFailsItsOwnRequests() {
+        settings.setWindow(Duration.ofMillis(200));
+        likesAnswer = models -> postIdOf(models).equals("p1")
+                ? Mono.error(new IllegalStateException("boom"))
+                : Mono.just(applied(models));
+        LikeWriteBehind writeBehind = start();
+
+        Mono<Void> p1 = writeBehind.like("p1", "u1").then();
+        Mono<Void> p2 = writeBehind.like("p2", "u1").then();
+        Mono<Throwable> p1Error = p1.then(Mono.<Throwable>empty()).onErrorResume(Mono::just).cache();
+        p1Error.subscribe();
+        p2.block(WAIT);
+
+        assertInstanceOf(IllegalStateException.class, p1Error.block(WAIT));
+        assertEquals(Map.of("p2", 1), likeCountIncrements());
+        verify(feedVersionService, never()).engagementChanged(eq("p1"), any());
+        // what p1's likers set should hold is unknown now: it leaves the hot-post tier
+        verify(hotPostService).onWriteFailed("p1");
+        verify(hotPostService, never()).onLike(eq("p1"), any());
+    }
+
+    @Test
+    void fullQueueRejectsLikesAndThePipelineCarriesOn() {
+        settings.setAcknowledge(FeedProperties.Acknowledge.BUFFERED);
+        settings.setWindow(Duration.ofMillis(100));
+        settings.setMaxBatchSize(2);
+        settings.setQueueCapacity(16);
+
+        // the first flush hangs until released: everything behind it has to wait in the queue
+        Sinks.One<BulkWriteResult> gate = Sinks.one();
+        AtomicInteger calls = new AtomicInteger();
+        likesAnswer = models -> calls.getAndIncrement() == 0 ? gate.asMono() : Mono.just(applied(models));
+        LikeWriteBehind writeBehind = start();
+
+        AtomicInteger rejected = new AtomicInteger();
+        for (int i = 0; i < 1_000; i++) {
+            writeBehind.like("p1", "u" + i)
+                    .onErrorResume(ResponseStatusException.class, e -> {
+                        assertEquals(HttpStatus.SERVICE_UNAVAILABLE, e.getStatusCode());
+                        rejected.incrementAndGet();
+                        return Mono.empty();
+                    })
+                    .block(WAIT);
+        }
+        assertTrue(rejected.get() > 0, "a full queue must reject likes");
+
+        // release the stuck flush: the pipeline did not die on the overflow and writes again
+        gate.tryEmitValue(BulkWriteResult.acknowledged(0, 0, 0, 0, List.of(), List.of()));
+        settings.setAcknowledge(FeedProperties.Acknowledge.FLUSHED);
+        Mono.when(writeBehind.like("p2", "late-1"), writeBehind.like("p2", "late-2")).block(WAIT);
+
+        assertFalse(writesOf("p2").isEmpty());
+    }
+
+    @Test
+    void flushedRequestsDoNotWaitForever() {
+        settings.setWindow(Duration.ofMillis(50));
+        settings.setAcknowledgeTimeout(Duration.ofMillis(200));
+        likesAnswer = models -> Mono.never();
+        LikeWriteBehind writeBehind = start();
+
+        ResponseStatusException e = assertThrows(ResponseStatusException.class,
+                () -> writeBehind.like("p1", "u1").block(WAIT));
+        assertEquals(HttpStatus.SERVICE_UNAVAILABLE, e.getStatusCode());
+    }
+
+    private LikeWriteBehind start() {
+        LikeWriteBehind writeBehind = new LikeWriteBehind(mongoTemplate, feedProperties, feedVersionService, hotPostService);
+        writeBehind.start();
+        return writeBehind;
+    }
+
+    /**
+     * Result of a bulkWrite that inserted every upsert and deleted every delete.
+     */
+    private static BulkWriteResult applied(List<WriteModel<Document>> models) {
+        List<BulkWriteUpsert> upserts = new ArrayList<>();
+        int deleted = 0;
+        for (int i = 0; i < models.size(); i++) {
+            if (models.get(i) instanceof UpdateOneModel) {
+                upserts.add(new BulkWriteUpsert(i, new BsonObjectId()));
+            } else {
+                deleted++;
+            }
+        }
+        return BulkWriteResult.acknowledged(0, 0, deleted, 0, upserts, List.of());
+    }
+
+    private List<WriteModel<Document>> writesOf(String postId) {
+        synchronized (likeWrites) {
+            return likeWrites.stream()
+                    .filter(models -> postIdOf(models).equals(postId))
+                    .flatMap(List::stream)
+                    .toList();
+        }
+    }
+
+    private static String postIdOf(List<WriteModel<Document>> models) {
+        WriteModel<Document> first = models.get(0);
+        Bson filter = first instanceof UpdateOneModel<Document> update
+                ? update.getFilter()
+                : ((DeleteOneModel<Document>) first).getFilter();
+        return ((Document) filter).getString("postId");
+    }
+
+    /**
+     * postId -> total $inc of likeCount over all counter bulkWrites.
+     */
+    private Map<String, Integer> likeCountIncrements() {
+        Map<String, Integer> increments = new HashMap<>();
+        synchronized (postWrites) {
+            for (List<WriteModel<Document>> models : postWrites) {
+                for (WriteModel<Document> model : models) {
+                    UpdateOneModel<Document> update = (UpdateOneModel<Document>) model;
+                    String postId = String.valueOf(((Document) update.getFilter()).get("_id"));
+                    int delta = ((Document) update.getUpdate()).get("$inc", Document.class).getInteger("likeCount");
+                    increments.merge(postId, delta, Integer::sum);
+                }
+            }
+        }
+        return increments;
+    }
+}
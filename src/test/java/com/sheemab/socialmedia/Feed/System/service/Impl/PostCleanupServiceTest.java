@@ -0,0 +1,118 @@
+package com.sheemab.socialmedia.Feed.System.service.Impl;
+
+import com.sheemab.socialmedia.Feed.System.config.FeedProperties;
+import com.sheemab.socialmedia.Feed.System.entity.PostCleanup;
+import com.sheemab.socialmedia.Feed.System.repository.CommentRepository;
+import com.sheemab.socialmedia.Feed.System.repository.FollowRepository;
+import com.sheemab.socialmedia.Feed.System.repository.HotPostRepository;
+import com.sheemab.socialmedia.Feed.System.repository.LikeRepository;
+import com.sheemab.socialmedia.Feed.System.repository.PostCleanupRepository;
+import com.sheemab.socialmedia.Feed.System.repository.PostRepository;
+import com.sheemab.socialmedia.Feed.System.repository.TimelineRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * Jobs whose post was never deleted must not hold up the cleanup of newer deleted posts.
+ */
+class PostCleanupServiceTest {
+
+    private static final Duration WAIT = Duration.ofSeconds(10);
+    private static final LocalDateTime NOW = LocalDateTime.now();
+
+    private final PostCleanupRepository postCleanupRepository = mock(PostCleanupRepository.class);
+    private final PostRepository postRepository = mock(PostRepository.class);
+    private final LikeRepository likeRepository = mock(LikeRepository.class);
+    private final CommentRepository commentRepository = mock(CommentRepository.class);
+    private final HotPostRepository hotPostRepository = mock(HotPostRepository.class);
+    private final FeedProperties feedProperties = new FeedProperties();
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    private final PostCleanupService postCleanupService = new PostCleanupService(postCleanupRepository, postRepository,
+            likeRepository, commentRepository, mock(FollowRepository.class), mock(TimelineRepository.class),
+            hotPostRepository, feedProperties, meterRegistry);
+
+    @BeforeEach
+    void setUp() {
+        postCleanupService.registerMetrics();
+        feedProperties.getCleanup().setPostsPerRun(2);
+        feedProperties.getCleanup().setBatchPause(Duration.ZERO);
+
+        // a deleted post without likes or comments; PULL mode has no timelines
+        when(likeRepository.findIdsByPostId(anyString(), any())).thenReturn(Flux.empty());
+        when(commentRepository.findIdsByPostId(anyString(), any())).thenReturn(Flux.empty());
+        when(hotPostRepository.demote(anyString())).thenReturn(Mono.empty());
+        when(postCleanupRepository.deleteById(anyString())).thenReturn(Mono.empty());
+        when(postCleanupRepository.deleteByPostIdAndDeletedAt(anyString(), any())).thenReturn(Mono.just(1L));
+        when(postCleanupRepository.count()).thenReturn(Mono.just(0L));
+    }
+
+    @Test
+    void jobsOfPostsThatStillExistDoNotHoldUpNewerJobs() {
+        // a full first page of jobs whose post delete failed, then a job of a post that is gone
+        PostCleanup kept1 = job("kept1", NOW.minusMinutes(3));
+        PostCleanup kept2 = job("kept2", NOW.minusMinutes(2));
+        PostCleanup deleted = job("deleted", NOW.minusMinutes(1));
+        when(postCleanupRepository.findByOrderByDeletedAtAsc(any())).thenReturn(Flux.just(kept1, kept2));
+        when(postCleanupRepository.findByDeletedAtAfterOrderByDeletedAtAsc(eq(kept2.getDeletedAt()), any()))
+                .thenReturn(Flux.just(deleted));
+        when(postRepository.existsById("kept1")).thenReturn(Mono.just(true));
+        when(postRepository.existsById("kept2")).thenReturn(Mono.just(true));
+        when(postRepository.existsById("deleted")).thenReturn(Mono.just(false));
+
+        assertEquals(1L, postCleanupService.runCleanups().block(WAIT));
+
+        verify(postCleanupRepository).deleteById("deleted");
+        verify(postCleanupRepository, never()).deleteById("kept1");
+        verify(postCleanupRepository, never()).deleteById("kept2");
+        verify(postCleanupRepository, never()).deleteByPostIdAndDeletedAt(anyString(), any());
+        // the live posts' likes were never touched
+        verify(likeRepository, never()).findIdsByPostId(eq("kept1"), any());
+    }
+
+    @Test
+    void runStopsOncePostsPerRunAreCleaned() {
+        PostCleanup first = job("first", NOW.minusMinutes(2));
+        PostCleanup second = job("second", NOW.minusMinutes(1));
+        when(postCleanupRepository.findByOrderByDeletedAtAsc(any())).thenReturn(Flux.just(first, second));
+        when(postRepository.existsById(anyString())).thenReturn(Mono.just(false));
+
+        assertEquals(2L, postCleanupService.runCleanups().block(WAIT));
+
+        verify(postCleanupRepository, never()).findByDeletedAtAfterOrderByDeletedAtAsc(any(), any());
+    }
+
+    @Test
+    void jobOfAPostThatOutlivesAbandonAfterIsDropped() {
+        feedProperties.getCleanup().setAbandonAfter(Duration.ofMinutes(10));
+        PostCleanup stale = job("stale", NOW.minusHours(1));
+        when(postCleanupRepository.findByOrderByDeletedAtAsc(any())).thenReturn(Flux.just(stale));
+        when(postRepository.existsById("stale")).thenReturn(Mono.just(true));
+
+        assertEquals(0L, postCleanupService.runCleanups().block(WAIT));
+
+        // dropped as read, the post and its likes stay
+        verify(postCleanupRepository).deleteByPostIdAndDeletedAt("stale", stale.getDeletedAt());
+        verify(likeRepository, never()).findIdsByPostId(eq("stale"), any());
+        assertEquals(1, meterRegistry.get("feed.posts.cleanup.abandoned").counter().count());
+    }
+
+    private static PostCleanup job(String postId, LocalDateTime deletedAt) {
+        return PostCleanup.builder().postId(postId).authorId("author").deletedAt(deletedAt).build();
+    }
+}
@@ -0,0 +1,146 @@
+package com.sheemab.socialmedia.Feed.System.service.Impl;
+
+import com.sheemab.socialmedia.Feed.System.config.FeedProperties;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+/**
+ * Sharing, expiry, invalidation and error handling of the single-flight reads.
+ */
+class RequestCoalescerTest {
+
+    private static final Duration WAIT = Duration.ofSeconds(5);
+
+    private final FeedProperties feedProperties = new FeedProperties();
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final RequestCoalescer coalescer = new RequestCoalescer(feedProperties, meterRegistry);
+
+    private final AtomicInteger loads = new AtomicInteger();
+
+    @Test
+    void concurrentCallersShareOneLoad() {
+        Sinks.One<String> result = Sinks.one();
+        Supplier<Mono<String>> loader = counted(result.asMono());
+
+        List<Mono<String>> callers = List.of(
+                coalescer.coalesce("post-by-id", "p1", loader).cache(),
+                coalescer.coalesce("post-by-id", "p1", loader).cache(),
+                coalescer.coalesce("post-by-id", "p1", loader).cache());
+        callers.forEach(Mono::subscribe);
+        result.tryEmitValue("post");
+
+        callers.forEach(caller -> assertEquals("post", caller.block(WAIT)));
+        assertEquals(1, loads.get());
+        assertEquals(1, requests("loaded"));
+        assertEquals(2, requests("coalesced"));
+    }
+
+    @Test
+    void otherKeysLoadSeparately() {
+        coalescer.coalesce("post-by-id", "p1", counted(Mono.just("one"))).block(WAIT);
+        coalescer.coalesce("post-by-id", "p2", counted(Mono.just("two"))).block(WAIT);
+        coalescer.coalesce("like-count", "p1", counted(Mono.just("three"))).block(WAIT);
+
+        assertEquals(3, loads.get());
+    }
+
+    @Test
+    void resultIsSharedUntilTheTtlEnds() throws InterruptedException {
+        feedProperties.getSingleFlight().setCacheTtl(Duration.ofMillis(200));
+        Supplier<Mono<String>> loader = counted(Mono.fromSupplier(() -> "load " + loads.get()));
+
+        assertEquals("load 1", coalescer.coalesce("post-by-id", "p1", loader).block(WAIT));
+        assertEquals("load 1", coalescer.coalesce("post-by-id", "p1", loader).block(WAIT));
+
+        Thread.sleep(300);
+        assertEquals("load 2", coalescer.coalesce("post-by-id", "p1", loader).block(WAIT));
+    }
+
+    @Test
+    void zeroTtlOnlySharesLoadsInFlight() {
+        feedProperties.getSingleFlight().setCacheTtl(Duration.ZERO);
+        Supplier<Mono<String>> loader = counted(Mono.just("post"));
+
+        coalescer.coalesce("post-by-id", "p1", loader).block(WAIT);
+        coalescer.coalesce("post-by-id", "p1", loader).block(WAIT);
+
+        assertEquals(2, loads.get());
+    }
+
+    @Test
+    void invalidateMakesTheNextReadLoadAgain() {
+        feedProperties.getSingleFlight().setCacheTtl(Duration.ofMinutes(1));
+        Supplier<Mono<String>> loader = counted(Mono.fromSupplier(() -> "load " + loads.get()));
+
+        assertEquals("load 1", coalescer.coalesce("like-count", "p1", loader).block(WAIT));
+        coalescer.invalidate("like-count", "p1");
+
+        assertEquals("load 2", coalescer.coalesce("like-count", "p1", loader).block(WAIT));
+    }
+
+    @Test
+    void errorsReachEveryCallerAndAreNotKept() {
+        feedProperties.getSingleFlight().setCacheTtl(Duration.ofMinutes(1));
+        Sinks.One<String> result = Sinks.one();
+
+        Mono<String> first = coalescer.coalesce("post-by-id", "p1", counted(result.asMono())).cache();
+        Mono<String> second = coalescer.coalesce("post-by-id", "p1", counted(result.asMono())).cache();
+        first.subscribe(null, e -> { });
+        second.subscribe(null, e -> { });
+        result.tryEmitError(new IllegalStateException("boom"));
+
+        assertThrows(IllegalStateException.class, () -> first.block(WAIT));
+        assertThrows(IllegalStateException.class, () -> second.block(WAIT));
+        assertEquals(1, loads.get());
+
+        // the failed load is gone: the next read tries again
+        assertEquals("post", coalescer.coalesce("post-by-id", "p1", counted(Mono.just("post"))).block(WAIT));
+        assertEquals(2, loads.get());
+    }
+
+    @Test
+    void emptyResultsAreNotKept() {
+        feedProperties.getSingleFlight().setCacheTtl(Duration.ofMinutes(1));
+        Supplier<Mono<String>> loader = counted(Mono.empty());
+
+        coalescer.coalesce("post-by-id", "p1", loader).block(WAIT);
+        coalescer.coalesce("post-by-id", "p1", loader).block(WAIT);
+
+        assertEquals(2, loads.get());
+    }
+
+    @Test
+    void disabledCoalescingLoadsEveryTime() {
+        feedProperties.getSingleFlight().setEnabled(false);
+        Supplier<Mono<String>> loader = counted(Mono.just("post"));
+
+        coalescer.coalesce("post-by-id", "p1", loader).block(WAIT);
+        coalescer.coalesce("post-by-id", "p1", loader).block(WAIT);
+
+        assertEquals(2, loads.get());
+    }
+
+    /**
+     * A loader whose Monos count every subscription to the source, i.e. every query that would run.
+     */
+    private <T> Supplier<Mono<T>> counted(Mono<T> source) {
+        return () -> Mono.defer(() -> {
+            loads.incrementAndGet();
+            return source;
+        });
+    }
+
+    private double requests(String result) {
+        return meterRegistry.get("feed.singleflight.requests").tag("result", result).counter().count();
+    }
+}
@@ -0,0 +1,79 @@
+package com.sheemab.socialmedia.Feed.System.service.Impl;
+
+import com.sheemab.socialmedia.Feed.System.dto.FeedCursor;
+import com.sheemab.socialmedia.Feed.System.entity.Post;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDateTime;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Bounded top-k selection: same result as sorting everything and taking the first k.
+ */
+class TopKTest {
+
+    private static final Comparator<Integer> SMALLER_FIRST = Comparator.naturalOrder();
+
+    @Test
+    void keepsTheBestKBestFirst() {
+        List<Integer> top = TopK.select(List.of(5, 1, 9, 3, 7), 3, Integer::doubleValue, SMALLER_FIRST);
+
+        assertEquals(List.of(9, 7, 5), top);
+    }
+
+    @Test
+    void equalScoresAreOrderedByTheTieBreak() {
+        // every item scores the same: the tie-break alone decides what is kept, and in which order
+        List<Integer> top = TopK.select(List.of(4, 2, 8, 6, 1), 3, item -> 1.0, SMALLER_FIRST);
+
+        assertEquals(List.of(1, 2, 4), top);
+    }
+
+    @Test
+    void equallyScoredPostsAreNewestFirst() {
+        LocalDateTime now = LocalDateTime.of(2026, 1, 1, 12, 0);
+        Post older = post("p1", now.minusHours(2));
+        Post newer = post("p2", now.minusHours(1));
+        Post sameTimeHigherId = post("p3", now.minusHours(1));
+
+        List<Post> top = TopK.select(List.of(older, newer, sameTimeHigherId), 2, post -> 1.0, FeedCursor.NEWEST_FIRST);
+
+        assertEquals(List.of(sameTimeHigherId, newer), top);
+    }
+
+    @Test
+    void kLargerThanTheInputReturnsEverythingBestFirst() {
+        List<Integer> top = TopK.select(List.of(2, 3, 1), 10, Integer::doubleValue, SMALLER_FIRST);
+
+        assertEquals(List.of(3, 2, 1), top);
+    }
+
+    @Test
+    void emptyInputOrZeroK() {
+        assertEquals(List.of(), TopK.select(List.<Integer>of(), 3, Integer::doubleValue, SMALLER_FIRST));
+        assertEquals(List.of(), TopK.select(List.of(1, 2, 3), 0, Integer::doubleValue, SMALLER_FIRST));
+    }
+
+    @Test
+    void matchesAFullSort() {
+        Random random = new Random(42);
+        // few distinct scores, so many ties go through the tie-break
+        List<Integer> items = IntStream.range(0, 1_000).boxed().toList();
+        double[] scores = items.stream().mapToDouble(item -> random.nextInt(50)).toArray();
+
+        Comparator<Integer> best = Comparator.<Integer>comparingDouble(item -> scores[item]).reversed()
+                .thenComparing(SMALLER_FIRST);
+        List<Integer> expected = items.stream().sorted(best).limit(25).toList();
+
+        assertEquals(expected, TopK.select(items, 25, item -> scores[item], SMALLER_FIRST));
+    }
+
+    private static Post post(String id, LocalDateTime createdAt) {
+        return Post.builder().id(id).userId("u1").createdAt(createdAt).build();
+    }
+}